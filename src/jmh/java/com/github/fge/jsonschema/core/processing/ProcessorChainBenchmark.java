@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.DevNullProcessingReport;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare flattened processor chains with nested processor chains
+ *
+ * <p>The nested form reproduces the way chains were built before they were
+ * flattened: one merging processor per {@code chainWith()}, and one extra
+ * processor per {@code failOnError()}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProcessorChainBenchmark
+{
+    private static final MessageProvider INPUT = new MessageProvider()
+    {
+        @Override
+        public ProcessingMessage newMessage()
+        {
+            return new ProcessingMessage();
+        }
+    };
+
+    @Param({ "4", "16", "64" })
+    public int stages;
+
+    private ProcessingReport report;
+    private Processor<MessageProvider, MessageProvider> flat;
+    private Processor<MessageProvider, MessageProvider> nested;
+
+    @Setup
+    public void setup()
+    {
+        report = new DevNullProcessingReport();
+
+        ProcessorChain<MessageProvider, MessageProvider> chain
+            = ProcessorChain.startWith(stage(0));
+        Processor<MessageProvider, MessageProvider> merged = stage(0);
+
+        for (int i = 1; i < stages; i++) {
+            chain = chain.failOnError().chainWith(stage(i));
+            merged = new NestedMerger(new NestedMerger(merged, new Fail()),
+                stage(i));
+        }
+
+        flat = chain.getProcessor();
+        nested = merged;
+    }
+
+    @Benchmark
+    public MessageProvider flatChain()
+        throws ProcessingException
+    {
+        return flat.process(report, INPUT);
+    }
+
+    @Benchmark
+    public MessageProvider nestedChain()
+        throws ProcessingException
+    {
+        return nested.process(report, INPUT);
+    }
+
+    /*
+     * Use several processor classes so that call sites are megamorphic, as
+     * they are in real chains
+     */
+    private static Processor<MessageProvider, MessageProvider> stage(
+        final int index)
+    {
+        switch (index % 4) {
+            case 0:
+                return new Stage0();
+            case 1:
+                return new Stage1();
+            case 2:
+                return new Stage2();
+            default:
+                return new Stage3();
+        }
+    }
+
+    private static final class NestedMerger
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        private final Processor<MessageProvider, MessageProvider> p1;
+        private final Processor<MessageProvider, MessageProvider> p2;
+
+        private NestedMerger(
+            final Processor<MessageProvider, MessageProvider> p1,
+            final Processor<MessageProvider, MessageProvider> p2)
+        {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+            throws ProcessingException
+        {
+            return p2.process(report, p1.process(report, input));
+        }
+    }
+
+    private static final class Fail
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        private final ProcessingMessage message = new ProcessingMessage();
+
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+            throws ProcessingException
+        {
+            if (!report.isSuccess())
+                throw message.asException();
+            return input;
+        }
+    }
+
+    private static final class Stage0
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+        {
+            return input;
+        }
+    }
+
+    private static final class Stage1
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+        {
+            return input;
+        }
+    }
+
+    private static final class Stage2
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+        {
+            return input;
+        }
+    }
+
+    private static final class Stage3
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+        {
+            return input;
+        }
+    }
+}
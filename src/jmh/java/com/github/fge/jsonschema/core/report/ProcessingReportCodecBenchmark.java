@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the Smile and JSON encodings of processing reports
+ *
+ * <p>Encoding and decoding throughput are measured. The size of encoded
+ * reports is not a timing, and is therefore not reported by the benchmark
+ * itself: run the {@link #main(String...)} method of this class to print it
+ * for each combination of parameters.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProcessingReportCodecBenchmark
+{
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    private static final String[] KEYWORDS
+        = { "type", "minimum", "required", "pattern" };
+
+    @Param({ "smile", "json" })
+    public String format;
+
+    @Param({ "16", "256" })
+    public int messages;
+
+    private ProcessingReportCodec codec;
+    private ProcessingReport report;
+    private byte[] encoded;
+
+    /**
+     * Print the size of encoded reports for all benchmark parameters
+     *
+     * @param args unused
+     * @throws ProcessingException failed to build a report
+     */
+    public static void main(final String... args)
+        throws ProcessingException
+    {
+        final ProcessingReportCodecBenchmark benchmark
+            = new ProcessingReportCodecBenchmark();
+
+        for (final String format: new String[] { "smile", "json" })
+            for (final int messages: new int[] { 16, 256 }) {
+                benchmark.format = format;
+                benchmark.messages = messages;
+                benchmark.setup();
+                System.out.printf("%s, %d messages: %d bytes%n", format,
+                    messages, benchmark.encoded.length);
+            }
+    }
+
+    @Setup
+    public void setup()
+        throws ProcessingException
+    {
+        codec = "smile".equals(format) ? ProcessingReportCodec.smile()
+            : ProcessingReportCodec.json();
+        report = new ListProcessingReport();
+
+        /*
+         * Validation reports repeat the same keys, keywords and messages over
+         * and over, with only the instance pointer changing
+         */
+        for (int i = 0; i < messages; i++)
+            report.error(new ProcessingMessage().put("domain", "validation")
+                .put("keyword", KEYWORDS[i % KEYWORDS.length])
+                .setMessage("instance failed to match keyword")
+                .put("instance", FACTORY.objectNode()
+                    .put("pointer", "/items/" + i))
+                .put("schema", FACTORY.objectNode()
+                    .put("loadingURI", "#").put("pointer", "")));
+
+        encoded = codec.encode(report);
+    }
+
+    @Benchmark
+    public byte[] encode()
+    {
+        return codec.encode(report);
+    }
+
+    @Benchmark
+    public ProcessingReport decode()
+        throws IOException
+    {
+        return codec.decodeReport(encoded);
+    }
+}
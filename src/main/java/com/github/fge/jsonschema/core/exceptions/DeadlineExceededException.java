@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.exceptions;
+
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+
+/**
+ * Exception thrown when the deadline of a processing run is exceeded, or when
+ * the run is cancelled
+ *
+ * @see ProcessingDeadline
+ */
+public final class DeadlineExceededException
+    extends ProcessingException
+{
+    public DeadlineExceededException(final ProcessingMessage message)
+    {
+        super(message);
+    }
+}
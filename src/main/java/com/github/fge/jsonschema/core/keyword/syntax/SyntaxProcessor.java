@@ -24,9 +24,12 @@ import com.github.fge.jackson.NodeType;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.util.Dictionary;
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
 import com.github.fge.jsonschema.core.processing.RawProcessor;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ProcessingReports;
 import com.github.fge.jsonschema.core.keyword.syntax.checkers.SyntaxChecker;
 import com.github.fge.jsonschema.core.tree.SchemaTree;
 import com.github.fge.msgsimple.bundle.MessageBundle;
@@ -41,6 +44,13 @@ import java.util.Set;
 
 /**
  * Syntax processor
+ *
+ * <p>If a {@link ProcessingDeadline} is attached to the current thread, it is
+ * checked before each subschema is validated.</p>
+ *
+ * <p>Processing stops early once the report is {@link
+ * ProcessingReports#isSaturated(ProcessingReport) saturated}: no further
+ * keywords are checked and no further subschemas are visited.</p>
  */
 public final class SyntaxProcessor
     extends RawProcessor<SchemaTree, SchemaTree>
@@ -67,13 +77,17 @@ public final class SyntaxProcessor
         final SchemaTree input)
         throws ProcessingException
     {
-        validate(report, input);
+        validate(report, input, ProcessingDeadline.current());
         return input;
     }
 
-    private void validate(final ProcessingReport report, final SchemaTree tree)
+    private void validate(final ProcessingReport report, final SchemaTree tree,
+        final ProcessingDeadline deadline)
         throws ProcessingException
     {
+        if (deadline != null)
+            deadline.check();
+
         final JsonNode node = tree.getNode();
         final NodeType type = NodeType.getNodeType(node);
 
@@ -99,7 +113,8 @@ public final class SyntaxProcessor
         map.keySet().retainAll(fields);
         fields.removeAll(map.keySet());
 
-        if (!fields.isEmpty())
+        if (!fields.isEmpty()
+            && ProcessingReports.isEnabled(report, LogLevel.WARNING))
             report.warn(newMsg(tree, "core.unknownKeywords")
                 .putArgument("ignored", Ordering.natural().sortedCopy(fields)));
 
@@ -108,19 +123,25 @@ public final class SyntaxProcessor
          * analysis.
          */
         final List<JsonPointer> pointers = Lists.newArrayList();
-        for (final SyntaxChecker checker: map.values())
+        for (final SyntaxChecker checker: map.values()) {
+            if (ProcessingReports.isSaturated(report))
+                return;
             checker.checkSyntax(pointers, bundle, report, tree);
+        }
 
         /*
          * Operate on these pointers.
          */
-        for (final JsonPointer pointer: pointers)
-            validate(report, tree.append(pointer));
+        for (final JsonPointer pointer: pointers) {
+            if (ProcessingReports.isSaturated(report))
+                return;
+            validate(report, tree.append(pointer), deadline);
+        }
     }
 
     private ProcessingMessage newMsg(final SchemaTree tree, final String key)
     {
-        return new ProcessingMessage().put("schema", tree)
+        return ProcessingMessage.newLazyMessage().put("schema", tree)
             .put("domain", "syntax").setMessage(bundle.getMessage(key));
 
     }
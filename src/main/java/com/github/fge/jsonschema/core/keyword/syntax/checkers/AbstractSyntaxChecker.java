@@ -25,8 +25,10 @@ import com.github.fge.jackson.jsonpointer.JsonPointer;
 import com.github.fge.jsonschema.core.exceptions.ExceptionProvider;
 import com.github.fge.jsonschema.core.exceptions.InvalidSchemaException;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ProcessingReports;
 import com.github.fge.jsonschema.core.tree.SchemaTree;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 
@@ -136,17 +138,26 @@ public abstract class AbstractSyntaxChecker
     /**
      * Provide a new message for reporting purposes
      *
+     * <p>The returned message is a lazy message: do not modify values put into
+     * it.</p>
+     *
+     * <p>Warnings should only be built if the report does not discard them;
+     * check {@link ProcessingReports#isEnabled(ProcessingReport, LogLevel)}
+     * first.</p>
+     *
      * @param tree the schema tree
      * @param bundle the message bundle to use
      * @param key the message
      * @return a new {@link ProcessingMessage}
      * @see ProcessingMessage#setMessage(String)
+     * @see ProcessingMessage#newLazyMessage()
      */
     protected final ProcessingMessage newMsg(final SchemaTree tree,
         final MessageBundle bundle, final String key)
     {
-        return new ProcessingMessage().setMessage(bundle.getMessage(key))
-            .put("domain", "syntax").put("schema", tree).put("keyword", keyword)
+        return ProcessingMessage.newLazyMessage()
+            .setMessage(bundle.getMessage(key)).put("domain", "syntax")
+            .put("schema", tree).put("keyword", keyword)
             .setExceptionProvider(EXCEPTION_PROVIDER);
     }
 
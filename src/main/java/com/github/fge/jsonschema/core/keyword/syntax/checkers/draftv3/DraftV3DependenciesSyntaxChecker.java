@@ -22,7 +22,9 @@ package com.github.fge.jsonschema.core.keyword.syntax.checkers.draftv3;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jackson.NodeType;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ProcessingReports;
 import com.github.fge.jsonschema.core.keyword.syntax.checkers.SyntaxChecker;
 import com.github.fge.jsonschema.core.keyword.syntax.checkers.helpers.DependenciesSyntaxChecker;
 import com.github.fge.jsonschema.core.tree.SchemaTree;
@@ -81,8 +83,9 @@ public final class DraftV3DependenciesSyntaxChecker
          * empty! This is stupid, so at least warn the user.
          */
         if (size == 0) {
-            report.warn(newMsg(tree, bundle, "common.array.empty")
-                .put("property", name));
+            if (ProcessingReports.isEnabled(report, LogLevel.WARNING))
+                report.warn(newMsg(tree, bundle, "common.array.empty")
+                    .put("property", name));
             return;
         }
 
@@ -108,7 +111,8 @@ public final class DraftV3DependenciesSyntaxChecker
          * Similarly, there is nothing preventing duplicates. Equally stupid,
          * so warn the user.
          */
-        if (!uniqueElements)
+        if (!uniqueElements
+            && ProcessingReports.isEnabled(report, LogLevel.WARNING))
             report.warn(newMsg(tree, bundle, "common.array.duplicateElements")
                 .put("property", name));
     }
@@ -21,7 +21,9 @@ package com.github.fge.jsonschema.core.keyword.syntax.checkers.draftv3;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ProcessingReports;
 import com.github.fge.jsonschema.core.keyword.syntax.checkers.SyntaxChecker;
 import com.github.fge.jsonschema.core.keyword.syntax.checkers.helpers.SchemaOrSchemaArraySyntaxChecker;
 import com.github.fge.jsonschema.core.tree.SchemaTree;
@@ -52,7 +54,8 @@ public final class ExtendsSyntaxChecker
         throws ProcessingException
     {
         final JsonNode node = tree.getNode().get(keyword);
-        if (node.isArray() && node.size() == 0)
+        if (node.isArray() && node.size() == 0
+            && ProcessingReports.isEnabled(report, LogLevel.WARNING))
             report.warn(newMsg(tree, bundle, "draftv3.extends.emptyArray"));
     }
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonschema.core.exceptions.JsonReferenceException;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.keyword.syntax.checkers.SyntaxChecker;
+import com.github.fge.jsonschema.core.keyword.syntax.dictionaries.DraftV4SyntaxCheckerDictionary;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfigurationBuilder;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.messages.JsonSchemaSyntaxMessageBundle;
+import com.github.fge.jsonschema.core.processing.ProcessorChain;
+import com.github.fge.jsonschema.core.processing.RawProcessor;
+import com.github.fge.jsonschema.core.ref.JsonRef;
+import com.github.fge.jsonschema.core.report.DevNullProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.tree.SchemaTree;
+import com.github.fge.jsonschema.core.util.Dictionary;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * JSON Reference prefetcher
+ *
+ * <p>This processor is meant to run before a {@link RefResolver}. It scans the
+ * schemas of the document of its input schema tree for JSON References,
+ * resolves them against their {@code id} context, and loads all documents they
+ * point to concurrently, using the given executor and {@link SchemaLoader}; as
+ * soon as a document is loaded, it is scanned in turn, so that the whole
+ * transitive closure of referenced documents is loaded. The time taken is
+ * therefore that of the longest chain of references, not the sum of all fetch
+ * times.</p>
+ *
+ * <p>Only schema positions are scanned, starting from the root of each
+ * document: the subschemas of a schema are those collected by the syntax
+ * checkers of a dictionary (draft v4 by default). Instance data, such as the
+ * values of {@code enum} or {@code default}, is therefore never mistaken for a
+ * schema. Conversely, a reference into a document at a position which is not
+ * reachable this way (for instance, a member which is not a keyword) is not
+ * followed any further; its references are only loaded when resolved.</p>
+ *
+ * <p>Loaded documents end up in the cache of the schema loader, which must
+ * therefore be enabled (see {@link
+ * LoadingConfigurationBuilder#setEnableCache(boolean)}); the schema tree is
+ * returned unchanged.</p>
+ *
+ * <p>A document which fails to load is reported as a debug message, and does
+ * not stop prefetching; the error will be reported, if need be, when the
+ * reference is actually resolved.</p>
+ *
+ * <p>The executor bounds the number of concurrent fetches; it is not shut
+ * down by this processor. Sample usage:</p>
+ *
+ * <pre>
+ *     final ExecutorService executor = Executors.newFixedThreadPool(8);
+ *     final RefPrefetcher prefetcher = new RefPrefetcher(loader, executor);
+ *     final RefResolver resolver = new RefResolver(loader);
+ *
+ *     // From ValueHolder&lt;SchemaTree&gt; to ValueHolder&lt;SchemaTree&gt;
+ *     processor = ProcessorChain.startWith(prefetcher).chainWith(resolver)
+ *         .getProcessor();
+ * </pre>
+ *
+ * @see ProcessorChain
+ */
+@ThreadSafe
+public final class RefPrefetcher
+    extends RawProcessor<SchemaTree, SchemaTree>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    /**
+     * Message bundle passed to syntax checkers; messages are discarded
+     */
+    private static final MessageBundle SYNTAX_BUNDLE
+        = MessageBundles.getBundle(JsonSchemaSyntaxMessageBundle.class);
+
+    private final SchemaLoader loader;
+    private final ExecutorService executor;
+    private final Map<String, SyntaxChecker> checkers;
+
+    /**
+     * Main constructor
+     *
+     * @param loader the schema loader
+     * @param executor the executor to fetch documents with
+     * @param dict the syntax checkers used to find subschemas
+     * @throws NullPointerException loader, executor or dictionary is null
+     */
+    public RefPrefetcher(final SchemaLoader loader,
+        final ExecutorService executor, final Dictionary<SyntaxChecker> dict)
+    {
+        super("schema", "schema");
+        BUNDLE.checkNotNull(loader, "refProcessing.nullLoader");
+        BUNDLE.checkNotNull(executor, "processing.nullExecutor");
+        BUNDLE.checkNotNull(dict, "dictionary.nullDict");
+        this.loader = loader;
+        this.executor = executor;
+        checkers = dict.entries();
+    }
+
+    /**
+     * Constructor using draft v4 syntax checkers
+     *
+     * @param loader the schema loader
+     * @param executor the executor to fetch documents with
+     * @throws NullPointerException loader or executor is null
+     */
+    public RefPrefetcher(final SchemaLoader loader,
+        final ExecutorService executor)
+    {
+        this(loader, executor, DraftV4SyntaxCheckerDictionary.get());
+    }
+
+    @Override
+    public SchemaTree rawProcess(final ProcessingReport report,
+        final SchemaTree input)
+        throws ProcessingException
+    {
+        final CompletionService<SchemaTree> service
+            = new ExecutorCompletionService<SchemaTree>(executor);
+        final Map<Future<SchemaTree>, URI> pending = Maps.newHashMap();
+        final Set<URI> seen = Sets.newHashSet();
+        final ProcessingReport discard
+            = new DevNullProcessingReport(LogLevel.NONE, LogLevel.NONE);
+
+        seen.add(input.getLoadingRef().getLocator());
+
+        try {
+            submit(service, pending, newLocators(input, seen, discard));
+            Future<SchemaTree> future;
+            URI locator;
+            while (!pending.isEmpty()) {
+                future = service.take();
+                locator = pending.remove(future);
+                try {
+                    submit(service, pending,
+                        newLocators(future.get(), seen, discard));
+                } catch (ExecutionException e) {
+                    report.debug(new ProcessingMessage()
+                        .setMessage(BUNDLE.getMessage(
+                            "refProcessing.prefetchFailed"))
+                        .putArgument("uri", locator)
+                        .put("reason", e.getCause().getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(
+                BUNDLE.getMessage("processing.interrupted"), e);
+        } finally {
+            for (final Future<SchemaTree> future: pending.keySet())
+                future.cancel(true);
+        }
+
+        return input;
+    }
+
+    private void submit(final CompletionService<SchemaTree> service,
+        final Map<Future<SchemaTree>, URI> pending, final List<URI> locators)
+    {
+        for (final URI locator: locators)
+            pending.put(service.submit(new Callable<SchemaTree>()
+            {
+                @Override
+                public SchemaTree call()
+                    throws ProcessingException
+                {
+                    return loader.get(locator);
+                }
+            }), locator);
+    }
+
+    /**
+     * Collect the locators of documents referenced by a tree
+     *
+     * <p>The schemas of the document are walked from its root; references
+     * which resolve within the tree itself, and locators which are not
+     * absolute or have already been seen, are skipped.</p>
+     *
+     * @param tree the schema tree
+     * @param seen the set of locators already seen (updated)
+     * @param discard the report to pass to syntax checkers
+     * @return the list of new locators
+     * @throws ProcessingException a syntax checker failed
+     */
+    private List<URI> newLocators(final SchemaTree tree, final Set<URI> seen,
+        final ProcessingReport discard)
+        throws ProcessingException
+    {
+        final List<URI> ret = Lists.newArrayList();
+        final List<JsonPointer> pointers = Lists.newArrayList();
+
+        /*
+         * Avoid recursion: documents may be deeply nested
+         */
+        final Deque<SchemaTree> trees = new ArrayDeque<SchemaTree>();
+        trees.push(tree.setPointer(JsonPointer.empty()));
+
+        SchemaTree current;
+        JsonNode node;
+        JsonRef ref;
+        URI locator;
+        SyntaxChecker checker;
+
+        while (!trees.isEmpty()) {
+            current = trees.pop();
+            node = current.getNode();
+            if (!node.isObject())
+                continue;
+            ref = refFromNode(node);
+            if (ref != null) {
+                ref = current.resolve(ref);
+                locator = ref.getLocator();
+                if (locator.isAbsolute() && !tree.containsRef(ref)
+                    && seen.add(locator))
+                    ret.add(locator);
+            }
+            pointers.clear();
+            for (final Iterator<String> it = node.fieldNames(); it.hasNext();) {
+                checker = checkers.get(it.next());
+                if (checker != null)
+                    checker.checkSyntax(pointers, SYNTAX_BUNDLE, discard,
+                        current);
+            }
+            for (final JsonPointer pointer: pointers)
+                trees.push(current.append(pointer));
+        }
+
+        return ret;
+    }
+
+    private static JsonRef refFromNode(final JsonNode node)
+    {
+        final JsonNode refNode = node.path("$ref");
+        if (!refNode.isTextual())
+            return null;
+        try {
+            return JsonRef.fromString(refNode.textValue());
+        } catch (JsonReferenceException ignored) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ref prefetcher";
+    }
+}
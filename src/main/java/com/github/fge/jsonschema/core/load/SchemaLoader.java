@@ -29,19 +29,28 @@ import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
 import com.github.fge.jsonschema.core.ref.JsonRef;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.tree.SchemaTree;
+import com.github.fge.jsonschema.core.util.CacheConfiguration;
+import com.github.fge.jsonschema.core.util.JsonNodeWeigher;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheBuilderSpec;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JSON Schema loader
@@ -55,6 +64,14 @@ import java.util.concurrent.ExecutionException;
  * relative URIs to load your schemas; see {@link URITranslator} and {@link
  * LoadingConfigurationBuilder#setURITranslatorConfiguration(URITranslatorConfiguration)}
  * for more details.</p>
+ *
+ * <p>Loaded schemas are cached according to the {@link CacheConfiguration} of
+ * the loading configuration; the weight of a schema is the number of JSON
+ * nodes it is made of. When entries are refreshed after write, they are
+ * reloaded in the background by a small pool of daemon threads shared by all
+ * loaders, and the old schema is used until the new one is loaded.</p>
+ *
+ * @see LoadingConfigurationBuilder#setCacheConfiguration(CacheConfiguration)
  */
 @ThreadSafe
 public final class SchemaLoader
@@ -62,6 +79,28 @@ public final class SchemaLoader
     private static final MessageBundle BUNDLE
         = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
 
+    private static final CacheConfiguration DISABLED_CACHE
+        = CacheConfiguration.newBuilder().setMaximumSize(0L)
+            .setRecordStats(false).freeze();
+
+    private static final int RELOAD_THREADS = 4;
+
+    /**
+     * Executor for background reloads of cached schemas
+     *
+     * <p>Its threads are only started when needed, and stop when idle.</p>
+     */
+    private static final ThreadPoolExecutor RELOAD_EXECUTOR;
+
+    static {
+        RELOAD_EXECUTOR = new ThreadPoolExecutor(RELOAD_THREADS,
+            RELOAD_THREADS, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("schema-loader-reload-%d").build());
+        RELOAD_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     /**
      * The URI manager
      */
@@ -101,10 +140,11 @@ public final class SchemaLoader
         manager = new URIManager(cfg);
         preloadedSchemas = ImmutableMap.copyOf(cfg.getPreloadedSchemas());
 
-        final CacheBuilder<Object, Object> cacheBuilder = cfg.getEnableCache()
-            ? CacheBuilder.newBuilder()
-            : CacheBuilder.from(CacheBuilderSpec.disableCaching());
-        
+        final CacheConfiguration cacheCfg = cfg.getEnableCache()
+            ? cfg.getCacheConfiguration() : DISABLED_CACHE;
+        final CacheBuilder<URI, JsonNode> cacheBuilder
+            = cacheCfg.newCacheBuilder(JsonNodeWeigher.getInstance());
+
         cache = cacheBuilder.build(new CacheLoader<URI, JsonNode>()
         {
             @Nonnull
@@ -114,6 +154,25 @@ public final class SchemaLoader
             {
                 return manager.getContent(key);
             }
+
+            @Nonnull
+            @Override
+            public ListenableFuture<JsonNode> reload(@Nonnull final URI key,
+                @Nonnull final JsonNode oldValue)
+            {
+                final ListenableFutureTask<JsonNode> task
+                    = ListenableFutureTask.create(new Callable<JsonNode>()
+                    {
+                        @Override
+                        public JsonNode call()
+                            throws ProcessingException
+                        {
+                            return manager.getContent(key);
+                        }
+                    });
+                RELOAD_EXECUTOR.execute(task);
+                return task;
+            }
         });
     }
 
@@ -176,6 +235,21 @@ public final class SchemaLoader
         }
     }
 
+    /**
+     * Return the statistics of the schema cache
+     *
+     * <p>Note that if the cache configuration does not record statistics, or
+     * if caching is disabled, all values will be zero. Preloaded schemas are
+     * not accounted for.</p>
+     *
+     * @return the cache statistics
+     * @see CacheConfiguration#getRecordStats()
+     */
+    public CacheStats getCacheStats()
+    {
+        return cache.stats();
+    }
+
     @Override
     public String toString()
     {
@@ -24,15 +24,23 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jackson.JsonNodeReader;
+import com.github.fge.jsonschema.core.exceptions.DeadlineExceededException;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.load.configuration.LoadingConfiguration;
+import com.github.fge.jsonschema.core.load.download.AsyncURIDownloader;
 import com.github.fge.jsonschema.core.load.download.URIDownloader;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureFallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -45,6 +53,13 @@ import java.util.Map;
  * of a URI as an {@link InputStream}, then tries and turns this content into
  * JSON using an {@link ObjectMapper}.</p>
  *
+ * <p>If a {@link ProcessingDeadline} is attached to the current thread, it is
+ * checked before fetching content, and I/O errors occurring after it is
+ * exceeded are reported as such.</p>
+ *
+ * <p>Content can also be fetched asynchronously, using {@link
+ * #getContentAsync(URI)}.</p>
+ *
  * <p>Normally, you will never use this class directly.</p>
  *
  * @see SchemaLoader
@@ -77,11 +92,107 @@ public final class URIManager
      * @throws NullPointerException provided URI is null
      * @throws ProcessingException scheme is not registered, failed to get
      * content, or content is not JSON
+     * @throws DeadlineExceededException the processing deadline is exceeded
      */
     public JsonNode getContent(final URI uri)
         throws ProcessingException
+    {
+        final URIDownloader downloader = getDownloader(uri);
+        final Closer closer = Closer.create();
+        final InputStream in;
+
+        try {
+            in = closer.register(downloader.fetch(uri));
+            return parse(uri, in);
+        } catch (IOException e) {
+            ProcessingDeadline.checkCurrent();
+            throw ioError(uri, e);
+        } finally {
+            try {
+                closer.close();
+            } catch (IOException ignored) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * Get the content at a given URI as a {@link JsonNode}, asynchronously
+     *
+     * <p>If the downloader for the URI scheme is an {@link
+     * AsyncURIDownloader}, content is fetched without blocking the calling
+     * thread, and parsed in the thread completing the fetch. Otherwise, this
+     * method behaves like {@link #getContent(URI)} and returns a completed
+     * future.</p>
+     *
+     * <p>Apart from {@link Error}s, the returned future only fails with a
+     * {@link ProcessingException}: any other failure of the fetch, including
+     * its cancellation, is reported as an I/O error. If the processing deadline
+     * of the calling thread is exceeded when the fetch fails, the future fails
+     * with a {@link DeadlineExceededException} instead.</p>
+     *
+     * @param uri the URI
+     * @return a future completing with the content, or failing with a {@link
+     * ProcessingException} in the same conditions as {@link #getContent(URI)}
+     * @throws NullPointerException provided URI is null
+     */
+    public ListenableFuture<JsonNode> getContentAsync(final URI uri)
+    {
+        final ProcessingDeadline deadline = ProcessingDeadline.current();
+        final URIDownloader downloader;
+
+        try {
+            downloader = getDownloader(uri);
+            if (!(downloader instanceof AsyncURIDownloader))
+                return Futures.immediateFuture(getContent(uri));
+        } catch (ProcessingException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+
+        final ListenableFuture<byte[]> bytes
+            = ((AsyncURIDownloader) downloader).fetchAsync(uri);
+        final ListenableFuture<JsonNode> content = Futures.transform(bytes,
+            new AsyncFunction<byte[], JsonNode>()
+            {
+                @Override
+                public ListenableFuture<JsonNode> apply(final byte[] input)
+                    throws ProcessingException, IOException
+                {
+                    return Futures.immediateFuture(parse(uri,
+                        new ByteArrayInputStream(input)));
+                }
+            });
+
+        return Futures.withFallback(content, new FutureFallback<JsonNode>()
+        {
+            @Override
+            public ListenableFuture<JsonNode> create(final Throwable t)
+                throws ProcessingException
+            {
+                if (t instanceof ProcessingException || t instanceof Error)
+                    return Futures.immediateFailedFuture(t);
+                if (deadline != null)
+                    deadline.check();
+                return Futures.immediateFailedFuture(ioError(uri, t));
+            }
+        });
+    }
+
+    /**
+     * Return the downloader for a URI
+     *
+     * @param uri the URI
+     * @return the downloader
+     * @throws NullPointerException provided URI is null
+     * @throws ProcessingException URI is not absolute, or scheme is not
+     * registered
+     * @throws DeadlineExceededException the processing deadline is exceeded
+     */
+    private URIDownloader getDownloader(final URI uri)
+        throws ProcessingException
     {
         BUNDLE.checkNotNull(uri, "jsonRef.nullURI");
+        ProcessingDeadline.checkCurrent();
 
         if (!uri.isAbsolute())
             throw new ProcessingException(new ProcessingMessage()
@@ -97,11 +208,22 @@ public final class URIManager
                 .setMessage(BUNDLE.getMessage("refProcessing.unhandledScheme"))
                 .putArgument("scheme", scheme).putArgument("uri", uri));
 
-        final Closer closer = Closer.create();
-        final InputStream in;
+        return downloader;
+    }
 
+    /**
+     * Parse content fetched from a URI
+     *
+     * @param uri the URI
+     * @param in the content
+     * @return the content as JSON
+     * @throws ProcessingException content is not JSON
+     * @throws IOException failed to read content
+     */
+    private JsonNode parse(final URI uri, final InputStream in)
+        throws ProcessingException, IOException
+    {
         try {
-            in = closer.register(downloader.fetch(uri));
             return reader.fromInputStream(in);
         } catch (JsonMappingException e) {
             throw new ProcessingException(new ProcessingMessage()
@@ -111,17 +233,15 @@ public final class URIManager
                 .setMessage(BUNDLE.getMessage("uriManager.uriNotJson"))
                 .putArgument("uri", uri)
                 .put("parsingMessage", e.getOriginalMessage()));
-        } catch (IOException e) {
-            throw new ProcessingException(new ProcessingMessage()
-                .setMessage(BUNDLE.getMessage("uriManager.uriIOError"))
-                .putArgument("uri", uri)
-                .put("exceptionMessage", e.getMessage()));
-        } finally {
-            try {
-                closer.close();
-            } catch (IOException ignored) {
-                throw new IllegalStateException();
-            }
         }
     }
+
+    private static ProcessingException ioError(final URI uri,
+        final Throwable t)
+    {
+        return new ProcessingException(new ProcessingMessage()
+            .setMessage(BUNDLE.getMessage("uriManager.uriIOError"))
+            .putArgument("uri", uri)
+            .put("exceptionMessage", t.getMessage()));
+    }
 }
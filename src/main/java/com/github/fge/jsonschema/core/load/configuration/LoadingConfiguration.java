@@ -33,6 +33,7 @@ import com.github.fge.jsonschema.core.load.download.URIDownloader;
 import com.github.fge.jsonschema.core.load.uri.URITranslatorConfiguration;
 import com.github.fge.jsonschema.core.tree.CanonicalSchemaTree;
 import com.github.fge.jsonschema.core.tree.InlineSchemaTree;
+import com.github.fge.jsonschema.core.util.CacheConfiguration;
 import com.google.common.collect.ImmutableMap;
 
 import java.net.URI;
@@ -47,7 +48,8 @@ import java.util.Map;
  * <ul>
  *     <li>what schemas should be preloaded;</li>
  *     <li>what URI schemes should be supported;</li>
- *     <li>whether we want to cache loaded schemas;</li>
+ *     <li>whether we want to cache loaded schemas, and how (see {@link
+ *     CacheConfiguration});</li>
  *     <li>how to resolve URIs (see {@link URITranslatorConfiguration});</li>
  *     <li>what dereferencing mode should be used.</li>
  * </ul>
@@ -96,6 +98,11 @@ public final class LoadingConfiguration
      */
     final boolean enableCache;
 
+    /**
+     * Configuration of the cache of loaded schemas
+     */
+    final CacheConfiguration cacheCfg;
+
     /**
      * Dereferencing mode
      *
@@ -166,6 +173,7 @@ public final class LoadingConfiguration
         parserFeatures = EnumSet.copyOf(builder.parserFeatures);
         reader = buildReader();
         enableCache = builder.enableCache;
+        cacheCfg = builder.cacheCfg;
     }
 
     /**
@@ -243,6 +251,16 @@ public final class LoadingConfiguration
         return enableCache;
     }
 
+    /**
+     * Return the configuration of the cache of loaded schemas
+     *
+     * @return the cache configuration
+     */
+    public CacheConfiguration getCacheConfiguration()
+    {
+        return cacheCfg;
+    }
+
     /**
      * Return a thawed version of this loading configuration
      *
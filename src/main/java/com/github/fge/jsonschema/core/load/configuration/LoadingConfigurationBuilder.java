@@ -31,6 +31,7 @@ import com.github.fge.jsonschema.core.load.uri.URITranslatorConfiguration;
 import com.github.fge.jsonschema.core.load.download.URIDownloader;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
 import com.github.fge.jsonschema.core.ref.JsonRef;
+import com.github.fge.jsonschema.core.util.CacheConfiguration;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.collect.Maps;
@@ -82,6 +83,13 @@ public final class LoadingConfigurationBuilder
      */
     boolean enableCache = true;
 
+    /**
+     * Configuration of the cache of loaded schemas
+     *
+     * <p>The default configuration has no bounds.</p>
+     */
+    CacheConfiguration cacheCfg = CacheConfiguration.byDefault();
+
     /**
      * Dereferencing mode
      *
@@ -133,6 +141,7 @@ public final class LoadingConfigurationBuilder
         preloadedSchemas = Maps.newHashMap(cfg.preloadedSchemas);
         parserFeatures = EnumSet.copyOf(cfg.parserFeatures);
         enableCache = cfg.enableCache;
+        cacheCfg = cfg.cacheCfg;
     }
 
     /**
@@ -148,6 +157,30 @@ public final class LoadingConfigurationBuilder
         this.enableCache = enableCache;
         return this;
     }
+
+    /**
+     * Set the configuration of the cache of loaded schemas
+     *
+     * <p>This is only used if caching is enabled (which is the default). The
+     * weight of a schema is the number of JSON nodes it is made of.</p>
+     *
+     * <p>If the configuration refreshes entries after write, entries are
+     * reloaded in the background, and the old value is returned until the new
+     * one is loaded.</p>
+     *
+     * @param cacheCfg the cache configuration
+     * @return this
+     * @throws NullPointerException configuration is null
+     * @see #setEnableCache(boolean)
+     * @see SchemaLoader#getCacheStats()
+     */
+    public LoadingConfigurationBuilder setCacheConfiguration(
+        final CacheConfiguration cacheCfg)
+    {
+        BUNDLE.checkNotNull(cacheCfg, "cacheCfg.nullConfiguration");
+        this.cacheCfg = cacheCfg;
+        return this;
+    }
     
     /**
      * Add a new URI downloader
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.jsonschema.core.load.URIManager;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * URI downloader with an asynchronous variant of {@link #fetch(URI)}
+ *
+ * <p>When a downloader implementing this interface is registered for a scheme,
+ * {@link URIManager#getContentAsync(URI)} uses {@link #fetchAsync(URI)} to
+ * fetch content without blocking the calling thread.</p>
+ *
+ * @see HttpURIDownloader
+ */
+public interface AsyncURIDownloader
+    extends URIDownloader
+{
+    /**
+     * Fetch the content at a given URI asynchronously
+     *
+     * @param source the URI
+     * @return a future completing with the content, or failing with an {@link
+     * IOException}
+     */
+    ListenableFuture<byte[]> fetchAsync(final URI source);
+}
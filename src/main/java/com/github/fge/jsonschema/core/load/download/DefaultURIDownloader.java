@@ -19,10 +19,19 @@
 
 package com.github.fge.jsonschema.core.load.download;
 
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Default URI downloader
@@ -31,11 +40,19 @@ import java.net.URL;
  * following schemes: {@code http}, {@code https}, {@code ftp}, {@code file}
  * and {@code jar}. This is what this downloader uses.</p>
  *
+ * <p>If a {@link ProcessingDeadline} is attached to the current thread, the
+ * connect and read timeouts of the connection are set to the remaining time,
+ * and reading from the returned stream fails with an {@link
+ * InterruptedIOException} once the deadline is exceeded.</p>
+ *
  * @see URL#openStream()
  */
 public final class DefaultURIDownloader
     implements URIDownloader
 {
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
     private static final URIDownloader INSTANCE
         = new DefaultURIDownloader();
 
@@ -52,6 +69,64 @@ public final class DefaultURIDownloader
     public InputStream fetch(final URI source)
         throws IOException
     {
-        return source.toURL().openStream();
+        final ProcessingDeadline deadline = ProcessingDeadline.current();
+
+        if (deadline == null)
+            return source.toURL().openStream();
+
+        final URLConnection connection = source.toURL().openConnection();
+        final int timeout = timeoutMillis(deadline);
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        return new DeadlineInputStream(connection.getInputStream(), deadline);
+    }
+
+    /*
+     * Note: a timeout of 0 means no timeout at all, hence the minimum of 1
+     */
+    private static int timeoutMillis(final ProcessingDeadline deadline)
+        throws InterruptedIOException
+    {
+        if (deadline.isExpired())
+            throw deadlineExceeded();
+        final long remaining = deadline.getRemaining(TimeUnit.MILLISECONDS);
+        return (int) Math.max(1L, Math.min(remaining, Integer.MAX_VALUE));
+    }
+
+    private static InterruptedIOException deadlineExceeded()
+    {
+        return new InterruptedIOException(
+            BUNDLE.getMessage("processing.deadlineExceeded"));
+    }
+
+    private static final class DeadlineInputStream
+        extends FilterInputStream
+    {
+        private final ProcessingDeadline deadline;
+
+        private DeadlineInputStream(final InputStream in,
+            final ProcessingDeadline deadline)
+        {
+            super(in);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read()
+            throws IOException
+        {
+            if (deadline.isExpired())
+                throw deadlineExceeded();
+            return super.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+            throws IOException
+        {
+            if (deadline.isExpired())
+                throw deadlineExceeded();
+            return super.read(b, off, len);
+        }
     }
 }
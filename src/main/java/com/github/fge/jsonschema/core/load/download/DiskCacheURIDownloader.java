@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.Frozen;
+import com.github.fge.jsonschema.core.load.SchemaLoader;
+import com.github.fge.jsonschema.core.load.URIManager;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfigurationBuilder;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
+import com.github.fge.jsonschema.core.ref.JsonRef;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent, disk caching HTTP downloader (frozen instance)
+ *
+ * <p>The in-memory cache of a {@link SchemaLoader} does not survive a restart
+ * of the JVM; this downloader stores the content it fetches in a directory on
+ * disk, along with its {@code ETag} and {@code Last-Modified} headers, if any.
+ * Entries are keyed by the locator of the requested URI (that is, the
+ * normalized URI without its fragment).</p>
+ *
+ * <p>An entry younger than the configured time to live is served from disk
+ * without any request. Once it is older, a conditional request is issued; if
+ * the server answers that the content was not modified, the cached content is
+ * served and the entry is renewed for another time to live. Content is fetched
+ * using an {@link HttpURIDownloader}, so this downloader only works for the
+ * {@code http} and {@code https} schemes.</p>
+ *
+ * <p>Entries are written to a temporary file in the cache directory, which is
+ * then renamed over the previous entry: readers, including other JVMs sharing
+ * the same directory, either see the previous entry or the new one, and a
+ * crash while writing leaves at worst a stray temporary file; such files, if
+ * older than ten minutes, are deleted when a downloader is created. Unreadable
+ * or truncated entries are treated as missing. Failing to write an entry does
+ * not fail the fetch.</p>
+ *
+ * <p>Entries are read and written by an executor: neither the thread calling
+ * {@link #fetchAsync(URI)} nor the threads of the HTTP downloader, which hold
+ * a slot of their host while they run, wait for the disk.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final DiskCacheURIDownloader downloader = DiskCacheURIDownloader
+ *         .byDefault(new File("/var/cache/schemas"));
+ *     final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+ *         .addScheme("http", downloader).addScheme("https", downloader)
+ *         .freeze();
+ * </pre>
+ *
+ * @see DiskCacheURIDownloaderBuilder
+ * @see LoadingConfigurationBuilder#addScheme(String, URIDownloader)
+ * @see URIManager#getContentAsync(URI)
+ */
+@ThreadSafe
+public final class DiskCacheURIDownloader
+    implements AsyncURIDownloader, Frozen<DiskCacheURIDownloaderBuilder>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    /**
+     * Leading bytes of an entry; change when the entry format changes
+     */
+    private static final int MAGIC = 0x4a534331;
+
+    private static final String SUFFIX = ".entry";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Age from which temporary files are considered left over by a crash
+     */
+    private static final long STALE_TEMPORARY_AGE
+        = TimeUnit.MINUTES.toMillis(10L);
+
+    final File directory;
+    final long timeToLive;
+    final HttpURIDownloader downloader;
+
+    /**
+     * The executor set in the builder, if any
+     */
+    final Executor executor;
+
+    /**
+     * The executor actually reading and writing entries
+     */
+    private final Executor runner;
+
+    /**
+     * Create a new, default, mutable disk caching downloader
+     *
+     * @param directory the cache directory
+     * @return a {@link DiskCacheURIDownloaderBuilder}
+     * @throws NullPointerException directory is null
+     */
+    public static DiskCacheURIDownloaderBuilder newBuilder(
+        final File directory)
+    {
+        return new DiskCacheURIDownloaderBuilder(directory);
+    }
+
+    /**
+     * Create a default disk caching downloader
+     *
+     * @param directory the cache directory
+     * @return a default downloader
+     * @throws NullPointerException directory is null
+     */
+    public static DiskCacheURIDownloader byDefault(final File directory)
+    {
+        return newBuilder(directory).freeze();
+    }
+
+    /**
+     * Create a frozen disk caching downloader from a thawed one
+     *
+     * @param builder the thawed downloader
+     * @see DiskCacheURIDownloaderBuilder#freeze()
+     */
+    DiskCacheURIDownloader(final DiskCacheURIDownloaderBuilder builder)
+    {
+        directory = builder.directory;
+        timeToLive = builder.timeToLive;
+        downloader = builder.downloader;
+        executor = builder.executor;
+        runner = executor != null ? executor
+            : Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("disk-cache-uri-downloader-%d")
+                .build());
+        deleteStaleTemporaryFiles();
+    }
+
+    /*
+     * Note: the HTTP request, if any, is issued by the task reading the entry;
+     * the deadline of the calling thread is propagated to this task, so that
+     * the request is bounded by it as well
+     */
+    @Override
+    public ListenableFuture<byte[]> fetchAsync(final URI source)
+    {
+        BUNDLE.checkNotNull(source, "jsonRef.nullURI");
+        final String locator = JsonRef.fromURI(source).getLocator().toString();
+        final File file = new File(directory, Hashing.sha256()
+            .hashString(locator, Charsets.UTF_8) + SUFFIX);
+        final ListenableFutureTask<ListenableFuture<byte[]>> task
+            = ListenableFutureTask.create(ProcessingDeadline.propagate(
+                new Callable<ListenableFuture<byte[]>>()
+                {
+                    @Override
+                    public ListenableFuture<byte[]> call()
+                    {
+                        return lookup(source, file, locator);
+                    }
+                }));
+
+        try {
+            runner.execute(task);
+        } catch (RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(new IOException(
+                BUNDLE.printf("uriDownloader.requestRejected", source), e));
+        }
+        return Futures.dereference(task);
+    }
+
+    @Override
+    public InputStream fetch(final URI source)
+        throws IOException
+    {
+        return HttpURIDownloader.waitFor(fetchAsync(source));
+    }
+
+    /**
+     * Return the cache directory
+     *
+     * @return the directory
+     */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Return the time during which entries are served without revalidation
+     *
+     * @param unit the time unit to express the time to live in
+     * @return the time to live
+     */
+    public long getTimeToLive(final TimeUnit unit)
+    {
+        return unit.convert(timeToLive, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the HTTP downloader used to fetch and revalidate content
+     *
+     * @return the HTTP downloader
+     */
+    public HttpURIDownloader getDownloader()
+    {
+        return downloader;
+    }
+
+    /**
+     * Return the executor reading and writing entries, if set
+     *
+     * @return the executor, or null if this downloader uses its own
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Return a thawed version of this downloader
+     *
+     * @return a thawed copy
+     * @see DiskCacheURIDownloaderBuilder#DiskCacheURIDownloaderBuilder(DiskCacheURIDownloader)
+     */
+    @Override
+    public DiskCacheURIDownloaderBuilder thaw()
+    {
+        return new DiskCacheURIDownloaderBuilder(this);
+    }
+
+    /**
+     * Serve content from an entry, or fetch it; run by the executor
+     *
+     * @param source the URI
+     * @param file the file of the entry
+     * @param locator the locator of the URI
+     * @return the content, as a future
+     */
+    private ListenableFuture<byte[]> lookup(final URI source, final File file,
+        final String locator)
+    {
+        final Entry entry = Entry.read(file, locator);
+
+        if (entry == null)
+            return Futures.transform(downloader.request(source, null, 0L),
+                store(file, locator, null), runner);
+
+        final long age = System.currentTimeMillis() - entry.storedAt;
+        if (age >= 0L && age < timeToLive)
+            return Futures.immediateFuture(entry.body);
+
+        return Futures.transform(downloader.request(source, entry.etag,
+            entry.lastModified), store(file, locator, entry), runner);
+    }
+
+    /*
+     * Note: the response has no body if the cached entry was not modified; in
+     * this case, validators missing from the response are those of the entry.
+     * The returned function is run by the executor, not by the thread
+     * completing the request.
+     */
+    private Function<HttpURIDownloader.Response, byte[]> store(
+        final File file, final String locator, final Entry previous)
+    {
+        return new Function<HttpURIDownloader.Response, byte[]>()
+        {
+            @Override
+            public byte[] apply(final HttpURIDownloader.Response input)
+            {
+                final Entry entry = input.body != null
+                    ? new Entry(locator, input.etag, input.lastModified,
+                        input.body)
+                    : new Entry(locator,
+                        input.etag != null ? input.etag : previous.etag,
+                        input.lastModified != 0L ? input.lastModified
+                            : previous.lastModified, previous.body);
+                entry.write(directory, file);
+                return entry.body;
+            }
+        };
+    }
+
+    private void deleteStaleTemporaryFiles()
+    {
+        final File[] files = directory.listFiles();
+        if (files == null)
+            return;
+        final long limit = System.currentTimeMillis() - STALE_TEMPORARY_AGE;
+        String name;
+        for (final File file: files) {
+            name = file.getName();
+            if (name.contains(SUFFIX) && name.endsWith(TEMPORARY_SUFFIX)
+                && file.lastModified() < limit)
+                file.delete();
+        }
+    }
+
+    /**
+     * A cache entry
+     *
+     * <p>On disk, an entry is made of {@link #MAGIC}, the locator, the entity
+     * tag, the modification date, the date at which the entry was stored and
+     * the content.</p>
+     */
+    private static final class Entry
+    {
+        private final String locator;
+        private final String etag;
+        private final long lastModified;
+        private final long storedAt;
+        private final byte[] body;
+
+        private Entry(final String locator, final String etag,
+            final long lastModified, final byte[] body)
+        {
+            this(locator, etag, lastModified, System.currentTimeMillis(),
+                body);
+        }
+
+        private Entry(final String locator, final String etag,
+            final long lastModified, final long storedAt, final byte[] body)
+        {
+            this.locator = locator;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.storedAt = storedAt;
+            this.body = body;
+        }
+
+        /*
+         * Note: the locator is checked, since different locators may, however
+         * unlikely, have the same hash
+         */
+        private static Entry read(final File file, final String locator)
+        {
+            final Closer closer = Closer.create();
+            try {
+                final DataInputStream in = closer.register(new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file))));
+                if (in.readInt() != MAGIC || !locator.equals(in.readUTF()))
+                    return null;
+                final String etag = in.readBoolean() ? in.readUTF() : null;
+                final long lastModified = in.readLong();
+                final long storedAt = in.readLong();
+                final int length = in.readInt();
+                if (length < 0 || length > file.length())
+                    return null;
+                final byte[] body = new byte[length];
+                in.readFully(body);
+                return new Entry(locator, etag, lastModified, storedAt, body);
+            } catch (IOException ignored) {
+                return null;
+            } finally {
+                try {
+                    closer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        private void write(final File directory, final File file)
+        {
+            File tmp = null;
+            final Closer closer = Closer.create();
+            try {
+                directory.mkdirs();
+                tmp = File.createTempFile(file.getName(), TEMPORARY_SUFFIX,
+                    directory);
+                final FileOutputStream out
+                    = closer.register(new FileOutputStream(tmp));
+                final DataOutputStream data = new DataOutputStream(
+                    new BufferedOutputStream(out));
+                data.writeInt(MAGIC);
+                data.writeUTF(locator);
+                data.writeBoolean(etag != null);
+                if (etag != null)
+                    data.writeUTF(etag);
+                data.writeLong(lastModified);
+                data.writeLong(storedAt);
+                data.writeInt(body.length);
+                data.write(body);
+                data.flush();
+                out.getFD().sync();
+                closer.close();
+                /*
+                 * Renaming over an existing file fails on some platforms
+                 */
+                if (!tmp.renameTo(file) && !(file.delete()
+                    && tmp.renameTo(file)))
+                    tmp.delete();
+            } catch (IOException ignored) {
+                try {
+                    closer.close();
+                } catch (IOException alsoIgnored) {
+                }
+                if (tmp != null)
+                    tmp.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.Thawed;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disk caching downloader (mutable instance)
+ *
+ * <p>Example:</p>
+ *
+ * <pre>
+ *     final DiskCacheURIDownloader downloader = DiskCacheURIDownloader
+ *         .newBuilder(new File("/var/cache/schemas"))
+ *         .setTimeToLive(1L, TimeUnit.HOURS)
+ *         .freeze();
+ * </pre>
+ *
+ * @see DiskCacheURIDownloader
+ */
+@NotThreadSafe
+public final class DiskCacheURIDownloaderBuilder
+    implements Thawed<DiskCacheURIDownloader>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    final File directory;
+
+    /**
+     * Time to live of entries in milliseconds; 10 minutes by default
+     */
+    long timeToLive = 600000L;
+
+    /**
+     * HTTP downloader used to fetch and revalidate content
+     */
+    HttpURIDownloader downloader = HttpURIDownloader.byDefault();
+
+    /**
+     * Executor reading and writing entries; null if the downloader should
+     * create its own
+     */
+    Executor executor = null;
+
+    /**
+     * Return a new, default mutable disk caching downloader
+     *
+     * @param directory the cache directory
+     * @see DiskCacheURIDownloader#newBuilder(File)
+     */
+    DiskCacheURIDownloaderBuilder(final File directory)
+    {
+        BUNDLE.checkNotNull(directory, "uriDownloader.nullDirectory");
+        this.directory = directory;
+    }
+
+    /**
+     * Build a mutable disk caching downloader out of a frozen one
+     *
+     * @param downloader the frozen downloader
+     * @see DiskCacheURIDownloader#thaw()
+     */
+    DiskCacheURIDownloaderBuilder(final DiskCacheURIDownloader downloader)
+    {
+        directory = downloader.directory;
+        timeToLive = downloader.timeToLive;
+        this.downloader = downloader.downloader;
+        executor = downloader.executor;
+    }
+
+    /**
+     * Set the time during which entries are served without revalidation
+     *
+     * <p>A time to live of 0 means that entries are revalidated on each fetch.
+     * </p>
+     *
+     * @param duration the time to live
+     * @param unit the time unit of the time to live
+     * @return this
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException time to live is negative
+     */
+    public DiskCacheURIDownloaderBuilder setTimeToLive(final long duration,
+        final TimeUnit unit)
+    {
+        BUNDLE.checkNotNull(unit, "processing.nullTimeUnit");
+        BUNDLE.checkArgument(duration >= 0L,
+            "uriDownloader.negativeTimeToLive");
+        timeToLive = unit.toMillis(duration);
+        return this;
+    }
+
+    /**
+     * Set the HTTP downloader used to fetch and revalidate content
+     *
+     * @param downloader the HTTP downloader
+     * @return this
+     * @throws NullPointerException downloader is null
+     */
+    public DiskCacheURIDownloaderBuilder setDownloader(
+        final HttpURIDownloader downloader)
+    {
+        BUNDLE.checkNotNull(downloader, "uriDownloader.nullDownloader");
+        this.downloader = downloader;
+        return this;
+    }
+
+    /**
+     * Set the executor reading and writing entries
+     *
+     * <p>By default, each downloader uses its own pool of daemon threads,
+     * created as needed and stopped when idle.</p>
+     *
+     * @param executor the executor
+     * @return this
+     * @throws NullPointerException executor is null
+     */
+    public DiskCacheURIDownloaderBuilder setExecutor(final Executor executor)
+    {
+        BUNDLE.checkNotNull(executor, "processing.nullExecutor");
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Freeze this downloader
+     *
+     * @return a frozen copy of this builder
+     */
+    @Override
+    public DiskCacheURIDownloader freeze()
+    {
+        return new DiskCacheURIDownloader(this);
+    }
+}
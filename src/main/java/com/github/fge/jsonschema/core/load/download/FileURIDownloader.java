@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfigurationBuilder;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A downloader for the {@code file} URI scheme using NIO
+ *
+ * <p>Unlike {@link DefaultURIDownloader}, which goes through {@link
+ * java.net.URL#openStream()}, this downloader reads files through a {@link
+ * FileChannel}: the whole file is read into an array of the exact file size,
+ * with no intermediate buffer, and the file is closed before {@link
+ * #fetch(URI)} returns.</p>
+ *
+ * <p>This downloader is not registered by default; to use it, register it
+ * with {@link LoadingConfigurationBuilder#addScheme(String, URIDownloader)}
+ * for the {@code file} scheme.</p>
+ */
+public final class FileURIDownloader
+    implements URIDownloader
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final URIDownloader INSTANCE = new FileURIDownloader();
+
+    private FileURIDownloader()
+    {
+    }
+
+    /**
+     * Return the instance of this downloader
+     *
+     * @return the downloader
+     */
+    public static URIDownloader getInstance()
+    {
+        return INSTANCE;
+    }
+
+    @Override
+    public InputStream fetch(final URI source)
+        throws IOException
+    {
+        final FileInputStream in = new FileInputStream(toFile(source));
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(BUNDLE.printf(
+                    "uriDownloader.fileTooLarge", source));
+            return new ByteArrayInputStream(readFully(channel, (int) size));
+        } finally {
+            in.close();
+        }
+    }
+
+    /*
+     * The URI may have a fragment (loading URIs of schemas always have one),
+     * which File does not accept
+     */
+    private static File toFile(final URI source)
+        throws IOException
+    {
+        try {
+            return new File(new URI(source.getScheme(),
+                source.getSchemeSpecificPart(), null));
+        } catch (URISyntaxException e) {
+            throw new IOException(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    private static byte[] readFully(final FileChannel channel, final int size)
+        throws IOException
+    {
+        final byte[] ret = new byte[size];
+        final ByteBuffer buffer = ByteBuffer.wrap(ret);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) == -1)
+                throw new EOFException();
+        return ret;
+    }
+}
@@ -0,0 +1,504 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.Frozen;
+import com.github.fge.jsonschema.core.load.URIManager;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfigurationBuilder;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP downloader (frozen instance)
+ *
+ * <p>Unlike {@link DefaultURIDownloader}, this downloader:</p>
+ *
+ * <ul>
+ *     <li>has connect and read timeouts;</li>
+ *     <li>requests gzip compressed responses, if configured to;</li>
+ *     <li>limits the number of concurrent requests to a same host;</li>
+ *     <li>can fetch content asynchronously.</li>
+ * </ul>
+ *
+ * <p>Requests are run by an executor; the calling thread only waits for the
+ * result when using {@link #fetch(URI)}. Responses are read in full and their
+ * streams closed, so that connections are kept alive and reused by the JDK's
+ * HTTP connection pool (which is sized using the {@code http.maxConnections}
+ * system property). Responses with a status other than 2xx are reported as
+ * I/O errors.</p>
+ *
+ * <p>If a {@link ProcessingDeadline} is attached to the thread initiating a
+ * fetch, timeouts are shortened so as not to exceed it.</p>
+ *
+ * <p>To use it, register it for the schemes you want:</p>
+ *
+ * <pre>
+ *     final HttpURIDownloader downloader = HttpURIDownloader.byDefault();
+ *     final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+ *         .addScheme("http", downloader).addScheme("https", downloader)
+ *         .freeze();
+ * </pre>
+ *
+ * @see HttpURIDownloaderBuilder
+ * @see LoadingConfigurationBuilder#addScheme(String, URIDownloader)
+ * @see URIManager#getContentAsync(URI)
+ */
+@ThreadSafe
+public final class HttpURIDownloader
+    implements AsyncURIDownloader, Frozen<HttpURIDownloaderBuilder>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final Function<Response, byte[]> BODY
+        = new Function<Response, byte[]>()
+    {
+        @Override
+        public byte[] apply(final Response input)
+        {
+            return input.body;
+        }
+    };
+
+    final int connectTimeout;
+    final int readTimeout;
+    final boolean compression;
+    final int maxConnectionsPerHost;
+
+    /**
+     * The executor set in the builder, if any
+     */
+    final Executor executor;
+
+    /**
+     * The executor actually running requests
+     */
+    private final Executor runner;
+
+    /**
+     * Request queues, by scheme, host and port
+     */
+    private final ConcurrentMap<String, Host> hosts
+        = Maps.newConcurrentMap();
+
+    /**
+     * Create a new, default, mutable HTTP downloader
+     *
+     * @return an {@link HttpURIDownloaderBuilder}
+     */
+    public static HttpURIDownloaderBuilder newBuilder()
+    {
+        return new HttpURIDownloaderBuilder();
+    }
+
+    /**
+     * Create a default HTTP downloader
+     *
+     * @return a default downloader
+     */
+    public static HttpURIDownloader byDefault()
+    {
+        return newBuilder().freeze();
+    }
+
+    /**
+     * Create a frozen HTTP downloader from a thawed one
+     *
+     * @param builder the thawed downloader
+     * @see HttpURIDownloaderBuilder#freeze()
+     */
+    HttpURIDownloader(final HttpURIDownloaderBuilder builder)
+    {
+        connectTimeout = builder.connectTimeout;
+        readTimeout = builder.readTimeout;
+        compression = builder.compression;
+        maxConnectionsPerHost = builder.maxConnectionsPerHost;
+        executor = builder.executor;
+        runner = executor != null ? executor
+            : Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("http-uri-downloader-%d")
+                .build());
+    }
+
+    @Override
+    public ListenableFuture<byte[]> fetchAsync(final URI source)
+    {
+        return Futures.transform(request(source, null, 0L), BODY);
+    }
+
+    @Override
+    public InputStream fetch(final URI source)
+        throws IOException
+    {
+        return waitFor(fetchAsync(source));
+    }
+
+    /**
+     * Return the timeout for establishing connections
+     *
+     * @param unit the time unit to express the timeout in
+     * @return the timeout, 0 if none
+     */
+    public long getConnectTimeout(final TimeUnit unit)
+    {
+        return unit.convert(connectTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the timeout for reading data
+     *
+     * @param unit the time unit to express the timeout in
+     * @return the timeout, 0 if none
+     */
+    public long getReadTimeout(final TimeUnit unit)
+    {
+        return unit.convert(readTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tell whether gzip compressed responses are requested
+     *
+     * @return true if this is the case
+     */
+    public boolean getCompression()
+    {
+        return compression;
+    }
+
+    /**
+     * Return the maximum number of concurrent requests to a same host
+     *
+     * @return the maximum number of requests
+     */
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Return a thawed version of this downloader
+     *
+     * <p>Note that a downloader frozen out of the returned builder will have
+     * its own request queues.</p>
+     *
+     * @return a thawed copy
+     * @see HttpURIDownloaderBuilder#HttpURIDownloaderBuilder(HttpURIDownloader)
+     */
+    @Override
+    public HttpURIDownloaderBuilder thaw()
+    {
+        return new HttpURIDownloaderBuilder(this);
+    }
+
+    /**
+     * Submit a request, conditional if validators are given
+     *
+     * <p>If an entity tag or a modification date are given, a response with
+     * status 304 (not modified) is a success, and has no body.</p>
+     *
+     * @param source the URI
+     * @param etag the entity tag of the cached content, or null
+     * @param lastModified the modification date of the cached content, or 0
+     * @return the response, as a future
+     * @throws NullPointerException source is null
+     */
+    ListenableFuture<Response> request(final URI source, final String etag,
+        final long lastModified)
+    {
+        BUNDLE.checkNotNull(source, "jsonRef.nullURI");
+        final Request task = new Request(source,
+            ProcessingDeadline.propagate(new Callable<Response>()
+            {
+                @Override
+                public Response call()
+                    throws IOException
+                {
+                    return download(source, etag, lastModified);
+                }
+            }));
+        hostOf(source).submit(task);
+        return task;
+    }
+
+    /**
+     * Wait for content fetched asynchronously
+     *
+     * @param future the future content
+     * @return the content, as an input stream
+     * @throws IOException fetch failed or was cancelled, or the current thread
+     * was interrupted
+     */
+    static InputStream waitFor(final ListenableFuture<byte[]> future)
+        throws IOException
+    {
+        try {
+            return new ByteArrayInputStream(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new InterruptedIOException(
+                BUNDLE.getMessage("processing.interrupted"));
+        } catch (CancellationException e) {
+            throw new IOException(
+                BUNDLE.getMessage("uriDownloader.cancelled"), e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            Throwables.propagateIfInstanceOf(cause, IOException.class);
+            throw Throwables.propagate(cause);
+        }
+    }
+
+    private Host hostOf(final URI source)
+    {
+        final String key = source.getScheme() + "://" + source.getHost() + ':'
+            + source.getPort();
+        final Host host = hosts.get(key);
+        if (host != null)
+            return host;
+        final Host newHost = new Host();
+        final Host previous = hosts.putIfAbsent(key, newHost);
+        return previous != null ? previous : newHost;
+    }
+
+    private Response download(final URI source, final String etag,
+        final long lastModified)
+        throws IOException
+    {
+        final HttpURLConnection connection
+            = (HttpURLConnection) source.toURL().openConnection();
+        connection.setConnectTimeout(timeout(connectTimeout));
+        connection.setReadTimeout(timeout(readTimeout));
+        if (compression)
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (etag != null)
+            connection.setRequestProperty("If-None-Match", etag);
+        if (lastModified > 0L)
+            connection.setIfModifiedSince(lastModified);
+
+        final int status = connection.getResponseCode();
+        final boolean conditional = etag != null || lastModified > 0L;
+        final Closer closer = Closer.create();
+
+        try {
+            if (conditional && status == HttpURLConnection.HTTP_NOT_MODIFIED)
+                return new Response(null, connection);
+            if (status / 100 != 2) {
+                /*
+                 * Read the error body, if any, so that the connection can be
+                 * reused
+                 */
+                final InputStream error = connection.getErrorStream();
+                if (error != null)
+                    ByteStreams.toByteArray(closer.register(error));
+                throw new IOException(BUNDLE.printf("uriDownloader.httpError",
+                    source, status));
+            }
+            InputStream in = closer.register(connection.getInputStream());
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding()))
+                in = closer.register(new GZIPInputStream(in));
+            return new Response(ByteStreams.toByteArray(in), connection);
+        } catch (Throwable t) {
+            throw closer.rethrow(t);
+        } finally {
+            closer.close();
+        }
+    }
+
+    /*
+     * Note: a timeout of 0 means no timeout at all, hence the minimum of 1
+     */
+    private static int timeout(final int timeout)
+        throws InterruptedIOException
+    {
+        final ProcessingDeadline deadline = ProcessingDeadline.current();
+        if (deadline == null)
+            return timeout;
+        if (deadline.isExpired())
+            throw new InterruptedIOException(
+                BUNDLE.getMessage("processing.deadlineExceeded"));
+        final long remaining = Math.max(1L,
+            deadline.getRemaining(TimeUnit.MILLISECONDS));
+        return (int) Math.min(timeout == 0 ? Integer.MAX_VALUE : timeout,
+            remaining);
+    }
+
+    /**
+     * A successful response
+     */
+    static final class Response
+    {
+        /**
+         * The body; null if the content was not modified
+         */
+        final byte[] body;
+
+        /**
+         * The entity tag; null if none
+         */
+        final String etag;
+
+        /**
+         * The modification date; 0 if unknown
+         */
+        final long lastModified;
+
+        private Response(final byte[] body, final HttpURLConnection connection)
+        {
+            this.body = body;
+            etag = connection.getHeaderField("ETag");
+            lastModified = connection.getLastModified();
+        }
+    }
+
+    /**
+     * A request, as a future response
+     *
+     * <p>Unlike a {@link ListenableFutureTask}, a request can be failed
+     * without being run, if the executor rejects it.</p>
+     */
+    private static final class Request
+        extends FutureTask<Response>
+        implements ListenableFuture<Response>
+    {
+        private final URI source;
+        private final ExecutionList listeners = new ExecutionList();
+
+        private Request(final URI source, final Callable<Response> callable)
+        {
+            super(callable);
+            this.source = source;
+        }
+
+        @Override
+        public void addListener(final Runnable listener,
+            final Executor executor)
+        {
+            listeners.add(listener, executor);
+        }
+
+        @Override
+        protected void done()
+        {
+            listeners.execute();
+        }
+
+        private void reject(final RejectedExecutionException e)
+        {
+            setException(new IOException(
+                BUNDLE.printf("uriDownloader.requestRejected", source), e));
+        }
+    }
+
+    /**
+     * Queue of requests to a given host
+     *
+     * <p>At most {@link #maxConnectionsPerHost} requests are submitted to the
+     * executor at any given time; when one completes, the next one in the
+     * queue, if any, is submitted.</p>
+     */
+    private final class Host
+    {
+        @GuardedBy("this")
+        private final Queue<Request> waiting
+            = new ArrayDeque<Request>();
+
+        @GuardedBy("this")
+        private int active = 0;
+
+        private void submit(final Request task)
+        {
+            synchronized (this) {
+                if (active == maxConnectionsPerHost) {
+                    waiting.add(task);
+                    return;
+                }
+                active++;
+            }
+            execute(task);
+        }
+
+        private void execute(final Request task)
+        {
+            try {
+                runner.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try {
+                            task.run();
+                        } finally {
+                            next();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                task.reject(e);
+                next();
+            }
+        }
+
+        private void next()
+        {
+            final Request task;
+            synchronized (this) {
+                task = waiting.poll();
+                if (task == null) {
+                    active--;
+                    return;
+                }
+            }
+            execute(task);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.Thawed;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP downloader (mutable instance)
+ *
+ * <p>Example:</p>
+ *
+ * <pre>
+ *     final HttpURIDownloader downloader = HttpURIDownloader.newBuilder()
+ *         .setConnectTimeout(2L, TimeUnit.SECONDS)
+ *         .setMaxConnectionsPerHost(8)
+ *         .freeze();
+ * </pre>
+ *
+ * <p>A timeout of 0 means no timeout at all.</p>
+ *
+ * @see HttpURIDownloader
+ */
+@NotThreadSafe
+public final class HttpURIDownloaderBuilder
+    implements Thawed<HttpURIDownloader>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    /**
+     * Connect timeout in milliseconds; 10 seconds by default
+     */
+    int connectTimeout = 10000;
+
+    /**
+     * Read timeout in milliseconds; 30 seconds by default
+     */
+    int readTimeout = 30000;
+
+    /**
+     * Compressed responses are accepted by default
+     */
+    boolean compression = true;
+
+    int maxConnectionsPerHost = 4;
+
+    /**
+     * Executor running requests; null if the downloader should create its own
+     */
+    Executor executor = null;
+
+    /**
+     * Return a new, default mutable HTTP downloader
+     *
+     * @see HttpURIDownloader#newBuilder()
+     */
+    HttpURIDownloaderBuilder()
+    {
+    }
+
+    /**
+     * Build a mutable HTTP downloader out of a frozen one
+     *
+     * @param downloader the frozen downloader
+     * @see HttpURIDownloader#thaw()
+     */
+    HttpURIDownloaderBuilder(final HttpURIDownloader downloader)
+    {
+        connectTimeout = downloader.connectTimeout;
+        readTimeout = downloader.readTimeout;
+        compression = downloader.compression;
+        maxConnectionsPerHost = downloader.maxConnectionsPerHost;
+        executor = downloader.executor;
+    }
+
+    /**
+     * Set the timeout for establishing connections
+     *
+     * @param duration the timeout
+     * @param unit the time unit of the timeout
+     * @return this
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException timeout is negative
+     */
+    public HttpURIDownloaderBuilder setConnectTimeout(final long duration,
+        final TimeUnit unit)
+    {
+        connectTimeout = toMillis(duration, unit);
+        return this;
+    }
+
+    /**
+     * Set the timeout for reading data
+     *
+     * @param duration the timeout
+     * @param unit the time unit of the timeout
+     * @return this
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException timeout is negative
+     */
+    public HttpURIDownloaderBuilder setReadTimeout(final long duration,
+        final TimeUnit unit)
+    {
+        readTimeout = toMillis(duration, unit);
+        return this;
+    }
+
+    /**
+     * Should gzip compressed responses be requested
+     *
+     * @param compression true if compressed responses should be requested
+     * @return this
+     */
+    public HttpURIDownloaderBuilder setCompression(final boolean compression)
+    {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of concurrent requests to a same host
+     *
+     * <p>Requests beyond this limit are queued until a previous request to the
+     * same host completes.</p>
+     *
+     * @param maxConnectionsPerHost the maximum number of requests
+     * @return this
+     * @throws IllegalArgumentException value is not strictly positive
+     */
+    public HttpURIDownloaderBuilder setMaxConnectionsPerHost(
+        final int maxConnectionsPerHost)
+    {
+        BUNDLE.checkArgument(maxConnectionsPerHost > 0,
+            "uriDownloader.illegalMaxConnections");
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    /**
+     * Set the executor running requests
+     *
+     * <p>By default, each downloader uses its own pool of daemon threads,
+     * created as needed and stopped when idle.</p>
+     *
+     * @param executor the executor
+     * @return this
+     * @throws NullPointerException executor is null
+     */
+    public HttpURIDownloaderBuilder setExecutor(final Executor executor)
+    {
+        BUNDLE.checkNotNull(executor, "processing.nullExecutor");
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Freeze this downloader
+     *
+     * @return a frozen copy of this builder
+     */
+    @Override
+    public HttpURIDownloader freeze()
+    {
+        return new HttpURIDownloader(this);
+    }
+
+    /*
+     * Note: a non zero timeout must not be rounded down to 0, which means no
+     * timeout at all
+     */
+    private static int toMillis(final long duration, final TimeUnit unit)
+    {
+        BUNDLE.checkNotNull(unit, "processing.nullTimeUnit");
+        BUNDLE.checkArgument(duration >= 0L, "uriDownloader.negativeTimeout");
+        final long millis = unit.toMillis(duration);
+        if (millis == 0L && duration != 0L)
+            return 1;
+        return (int) Math.min(millis, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Asynchronous counterpart of {@link Processor}
+ *
+ * <p>Instead of returning its output, an asynchronous processor returns a
+ * {@link ListenableFuture} which completes with the output. If processing
+ * fails, the future fails with the {@link ProcessingException} which would
+ * have been thrown by a synchronous processor.</p>
+ *
+ * <p>The report passed as an argument must not be used by the caller until the
+ * returned future has completed.</p>
+ *
+ * <p>Implementations of this interface <b>should not</b> throw exceptions
+ * directly, and should not block.</p>
+ *
+ * @param <IN> input type for that processor
+ * @param <OUT> output type for that processor
+ *
+ * @see AsyncProcessors
+ * @see AsyncProcessorChain
+ */
+public interface AsyncProcessor<IN extends MessageProvider, OUT extends MessageProvider>
+{
+    /**
+     * Process the input asynchronously
+     *
+     * @param report the report to use while processing
+     * @param input the input for this processor
+     * @return a future completing with the output
+     */
+    ListenableFuture<OUT> process(final ProcessingReport report,
+        final IN input);
+}
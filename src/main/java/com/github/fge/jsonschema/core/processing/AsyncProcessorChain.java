@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ExceptionProvider;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * An asynchronous processor chain
+ *
+ * <p>This is the asynchronous equivalent of {@link ProcessorChain}. Both
+ * {@link Processor} and {@link AsyncProcessor} instances can be chained; a
+ * synchronous processor is run in the thread which completes the future of the
+ * previous stage.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final AsyncProcessor&lt;X, Z&gt; chain
+ *         = AsyncProcessorChain.startWith(asyncP1)
+ *         .chainWith(syncP2).failOnError().chainWith(asyncP3)
+ *         .getProcessor();
+ *
+ *     // input is of type X
+ *     final ListenableFuture&lt;Z&gt; future = chain.process(report, x);
+ * </pre>
+ *
+ * <p>If a stage fails, later stages are not run and the future returned by the
+ * chain fails with the same exception.</p>
+ *
+ * <p>The {@link ProcessingDeadline} attached to the thread calling the chain,
+ * if any, is checked and attached again before each stage, whichever thread
+ * runs it.</p>
+ *
+ * <p>Like {@link ProcessorChain}, <b>all instances are immutable</b>.</p>
+ *
+ * @param <IN> the input type for that chain
+ * @param <OUT> the output type for that chain
+ *
+ * @see ProcessorChain#toAsync()
+ */
+@Immutable
+public final class AsyncProcessorChain<IN extends MessageProvider, OUT extends MessageProvider>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    /**
+     * The resulting processor
+     */
+    private final AsyncProcessor<IN, OUT> processor;
+
+    /**
+     * Start a processing chain with a single asynchronous processor
+     *
+     * @param p the processor
+     * @param <X> the input type
+     * @param <Y> the output type
+     * @return a single element processing chain
+     * @throws NullPointerException processor is null
+     */
+    public static <X extends MessageProvider, Y extends MessageProvider>
+        AsyncProcessorChain<X, Y> startWith(final AsyncProcessor<X, Y> p)
+    {
+        BUNDLE.checkNotNull(p, "processing.nullProcessor");
+        return new AsyncProcessorChain<X, Y>(p);
+    }
+
+    /**
+     * Start a processing chain with a single synchronous processor
+     *
+     * <p>The processor is run in the calling thread.</p>
+     *
+     * @param p the processor
+     * @param <X> the input type
+     * @param <Y> the output type
+     * @return a single element processing chain
+     * @throws NullPointerException processor is null
+     * @see AsyncProcessors#sameThread(Processor)
+     */
+    public static <X extends MessageProvider, Y extends MessageProvider>
+        AsyncProcessorChain<X, Y> startWith(final Processor<X, Y> p)
+    {
+        return new AsyncProcessorChain<X, Y>(AsyncProcessors.sameThread(p));
+    }
+
+    /**
+     * Private constructor
+     *
+     * @param processor the processor
+     */
+    private AsyncProcessorChain(final AsyncProcessor<IN, OUT> processor)
+    {
+        this.processor = processor;
+    }
+
+    /**
+     * Stop the processing chain on failure
+     *
+     * @return a new chain
+     * @see ProcessorChain#failOnError()
+     */
+    public AsyncProcessorChain<IN, OUT> failOnError()
+    {
+        return failOnError(new ProcessingMessage()
+            .setMessage(BUNDLE.getMessage("processing.chainStopped")));
+    }
+
+    /**
+     * Stop the processing chain on failure
+     *
+     * <p>If the previous processor ended up with an error, the future returned
+     * by the chain fails with the exception produced by this message.</p>
+     *
+     * @param message the processing message to use
+     * @return a new chain
+     * @see ProcessingMessage#asException()
+     * @see ProcessingMessage#setExceptionProvider(ExceptionProvider)
+     */
+    public AsyncProcessorChain<IN, OUT> failOnError(
+        final ProcessingMessage message)
+    {
+        final Processor<OUT, OUT> fail = new Processor<OUT, OUT>()
+        {
+            @Override
+            public OUT process(final ProcessingReport report, final OUT input)
+                throws ProcessingException
+            {
+                if (!report.isSuccess())
+                    throw message.asException();
+                return input;
+            }
+        };
+
+        return chainWith(fail);
+    }
+
+    /**
+     * Add an asynchronous processor to the chain
+     *
+     * @param p the processor to add
+     * @param <NEWOUT> the return type for that new processor
+     * @return a new chain consisting of the previous chain with the new
+     * processor appended
+     * @throws NullPointerException processor to append is null
+     */
+    public <NEWOUT extends MessageProvider> AsyncProcessorChain<IN, NEWOUT>
+        chainWith(final AsyncProcessor<OUT, NEWOUT> p)
+    {
+        BUNDLE.checkNotNull(p, "processing.nullProcessor");
+        final AsyncProcessor<IN, NEWOUT> merger
+            = new AsyncProcessorMerger<IN, OUT, NEWOUT>(processor, p);
+        return new AsyncProcessorChain<IN, NEWOUT>(merger);
+    }
+
+    /**
+     * Add a synchronous processor to the chain
+     *
+     * @param p the processor to add
+     * @param <NEWOUT> the return type for that new processor
+     * @return a new chain consisting of the previous chain with the new
+     * processor appended
+     * @throws NullPointerException processor to append is null
+     */
+    public <NEWOUT extends MessageProvider> AsyncProcessorChain<IN, NEWOUT>
+        chainWith(final Processor<OUT, NEWOUT> p)
+    {
+        return chainWith(AsyncProcessors.sameThread(p));
+    }
+
+    public AsyncProcessor<IN, OUT> getProcessor()
+    {
+        return processor;
+    }
+
+    private static final class AsyncProcessorMerger<X extends MessageProvider,
+        Y extends MessageProvider, Z extends MessageProvider>
+        implements AsyncProcessor<X, Z>
+    {
+        private final AsyncProcessor<X, Y> p1;
+        private final AsyncProcessor<Y, Z> p2;
+
+        private AsyncProcessorMerger(final AsyncProcessor<X, Y> p1,
+            final AsyncProcessor<Y, Z> p2)
+        {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public ListenableFuture<Z> process(final ProcessingReport report,
+            final X input)
+        {
+            final ProcessingDeadline deadline = ProcessingDeadline.current();
+            final ListenableFuture<Y> intermediate = p1.process(report, input);
+            return Futures.transform(intermediate, new AsyncFunction<Y, Z>()
+            {
+                @Override
+                public ListenableFuture<Z> apply(final Y input)
+                    throws ProcessingException
+                {
+                    if (deadline == null)
+                        return p2.process(report, input);
+                    deadline.check();
+                    final ProcessingDeadline previous
+                        = ProcessingDeadline.install(deadline);
+                    try {
+                        return p2.process(report, input);
+                    } finally {
+                        ProcessingDeadline.restore(previous);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public String toString()
+        {
+            return p1 + " -> " + p2;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Adapters between {@link Processor} and {@link AsyncProcessor}
+ *
+ * <p>Typical usage is to run blocking processors (for instance, a {@link
+ * com.github.fge.jsonschema.core.load.RefResolver} which may need to fetch
+ * remote schemas) on a dedicated executor, and compose them with other
+ * processors using an {@link AsyncProcessorChain}.</p>
+ *
+ * <p>The {@link ProcessingDeadline} attached to the thread calling an
+ * asynchronous processor, if any, is attached to the thread running it.</p>
+ */
+public final class AsyncProcessors
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private AsyncProcessors()
+    {
+    }
+
+    /**
+     * Run a processor on an executor
+     *
+     * <p>If the executor rejects the task, the returned future fails with a
+     * {@link ProcessingException}.</p>
+     *
+     * @param processor the processor
+     * @param executor the executor to run the processor on
+     * @param <IN> input type of the processor
+     * @param <OUT> output type of the processor
+     * @return an asynchronous processor
+     * @throws NullPointerException processor or executor is null
+     */
+    public static <IN extends MessageProvider, OUT extends MessageProvider>
+        AsyncProcessor<IN, OUT> fromProcessor(
+        final Processor<IN, OUT> processor, final Executor executor)
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        BUNDLE.checkNotNull(executor, "processing.nullExecutor");
+        return new ExecutorProcessor<IN, OUT>(processor, executor);
+    }
+
+    /**
+     * Run a processor in the calling thread
+     *
+     * <p>The returned processor runs the processor immediately, and returns an
+     * already completed future.</p>
+     *
+     * @param processor the processor
+     * @param <IN> input type of the processor
+     * @param <OUT> output type of the processor
+     * @return an asynchronous processor
+     * @throws NullPointerException processor is null
+     */
+    public static <IN extends MessageProvider, OUT extends MessageProvider>
+        AsyncProcessor<IN, OUT> sameThread(final Processor<IN, OUT> processor)
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        return new SameThreadProcessor<IN, OUT>(processor);
+    }
+
+    /**
+     * Turn an asynchronous processor into a blocking processor
+     *
+     * <p>The returned processor waits for the future to complete. If the future
+     * fails with a {@link ProcessingException}, this exception is rethrown. If
+     * the waiting thread is interrupted, its interrupt status is restored and
+     * a {@link ProcessingException} is thrown.</p>
+     *
+     * @param processor the asynchronous processor
+     * @param <IN> input type of the processor
+     * @param <OUT> output type of the processor
+     * @return a blocking processor
+     * @throws NullPointerException processor is null
+     */
+    public static <IN extends MessageProvider, OUT extends MessageProvider>
+        Processor<IN, OUT> toProcessor(final AsyncProcessor<IN, OUT> processor)
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        return new BlockingProcessor<IN, OUT>(processor);
+    }
+
+    /**
+     * Wait for the result of a future
+     *
+     * @param future the future
+     * @param <T> the type of the result
+     * @return the result
+     * @throws ProcessingException the future failed with this exception, or
+     * the calling thread was interrupted
+     */
+    static <T> T getResult(final ListenableFuture<T> future)
+        throws ProcessingException
+    {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ProcessingException(
+                BUNDLE.getMessage("processing.interrupted"), e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ProcessingException)
+                throw (ProcessingException) cause;
+            throw Throwables.propagate(cause);
+        }
+    }
+
+    private static final class ExecutorProcessor<IN extends MessageProvider, OUT extends MessageProvider>
+        implements AsyncProcessor<IN, OUT>
+    {
+        private final Processor<IN, OUT> processor;
+        private final Executor executor;
+
+        private ExecutorProcessor(final Processor<IN, OUT> processor,
+            final Executor executor)
+        {
+            this.processor = processor;
+            this.executor = executor;
+        }
+
+        @Override
+        public ListenableFuture<OUT> process(final ProcessingReport report,
+            final IN input)
+        {
+            final Callable<OUT> callable = new Callable<OUT>()
+            {
+                @Override
+                public OUT call()
+                    throws ProcessingException
+                {
+                    return processor.process(report, input);
+                }
+            };
+            final ListenableFutureTask<OUT> task = ListenableFutureTask
+                .create(ProcessingDeadline.propagate(callable));
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                return Futures.immediateFailedFuture(new ProcessingException(
+                    BUNDLE.getMessage("processing.rejected"), e));
+            }
+            return task;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ASYNC[" + processor + ']';
+        }
+    }
+
+    private static final class SameThreadProcessor<IN extends MessageProvider, OUT extends MessageProvider>
+        implements AsyncProcessor<IN, OUT>
+    {
+        private final Processor<IN, OUT> processor;
+
+        private SameThreadProcessor(final Processor<IN, OUT> processor)
+        {
+            this.processor = processor;
+        }
+
+        @Override
+        public ListenableFuture<OUT> process(final ProcessingReport report,
+            final IN input)
+        {
+            try {
+                final OUT output = processor.process(report, input);
+                return Futures.immediateFuture(output);
+            } catch (ProcessingException e) {
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return processor.toString();
+        }
+    }
+
+    private static final class BlockingProcessor<IN extends MessageProvider, OUT extends MessageProvider>
+        implements Processor<IN, OUT>
+    {
+        private final AsyncProcessor<IN, OUT> processor;
+
+        private BlockingProcessor(final AsyncProcessor<IN, OUT> processor)
+        {
+            this.processor = processor;
+        }
+
+        @Override
+        public OUT process(final ProcessingReport report, final IN input)
+            throws ProcessingException
+        {
+            return getResult(processor.process(report, input));
+        }
+
+        @Override
+        public String toString()
+        {
+            return processor.toString();
+        }
+    }
+}
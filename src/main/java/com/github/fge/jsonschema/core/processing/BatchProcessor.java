@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ReportProvider;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * A processor running a processor over a batch of inputs
+ *
+ * <p>Each input of the batch is processed as a separate task submitted to the
+ * executor supplied at construction time, with its own report obtained from a
+ * {@link ReportProvider}. One {@link ProcessingResult} is returned for each
+ * input, in the order of the input collection; a {@link ProcessingException}
+ * thrown when processing one input is captured in the matching result (see
+ * {@link ProcessingResult#uncheckedResult(Processor, ProcessingReport,
+ * MessageProvider)}) and does not affect the processing of other inputs.
+ * The same goes for unchecked exceptions, which are wrapped into a {@link
+ * ProcessingException} first.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final ExecutorService executor = Executors.newFixedThreadPool(8);
+ *     final BatchProcessor&lt;X, Y&gt; batch = new BatchProcessor&lt;X, Y&gt;(
+ *         chain.getProcessor(), reportProvider, executor);
+ *
+ *     final List&lt;ProcessingResult&lt;Y&gt;&gt; results
+ *         = batch.processAll(inputs);
+ * </pre>
+ *
+ * <p>The {@link ProcessingDeadline} attached to the thread calling {@link
+ * #processAllAsync(Collection)}, if any, applies to all inputs; an input whose
+ * processing exceeds it yields a failed result.</p>
+ *
+ * <p>The processor used <b>must</b> be thread safe. The executor is never shut
+ * down by this class.</p>
+ *
+ * @param <IN> input type of the processor
+ * @param <OUT> output type of the processor
+ */
+@ThreadSafe
+public final class BatchProcessor<IN extends MessageProvider, OUT extends MessageProvider>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final Processor<IN, OUT> processor;
+    private final ReportProvider reportProvider;
+    private final Executor executor;
+
+    /**
+     * Constructor
+     *
+     * @param processor the processor to run
+     * @param reportProvider the provider for per-input reports
+     * @param executor the executor to run tasks on
+     * @throws NullPointerException one argument is null
+     */
+    public BatchProcessor(final Processor<IN, OUT> processor,
+        final ReportProvider reportProvider, final Executor executor)
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        BUNDLE.checkNotNull(reportProvider, "processing.nullReportProvider");
+        BUNDLE.checkNotNull(executor, "processing.nullExecutor");
+        this.processor = processor;
+        this.reportProvider = reportProvider;
+        this.executor = executor;
+    }
+
+    /**
+     * Process a batch of inputs asynchronously
+     *
+     * @param inputs the inputs
+     * @return a future completing with the list of results, in input order
+     * @throws NullPointerException input collection is null
+     */
+    public ListenableFuture<List<ProcessingResult<OUT>>> processAllAsync(
+        final Collection<? extends IN> inputs)
+    {
+        BUNDLE.checkNotNull(inputs, "processing.nullInputs");
+
+        final List<ListenableFuture<ProcessingResult<OUT>>> futures
+            = Lists.newArrayListWithCapacity(inputs.size());
+
+        ListenableFutureTask<ProcessingResult<OUT>> task;
+
+        for (final IN input: inputs) {
+            task = ListenableFutureTask.create(newTask(input));
+            executor.execute(task);
+            futures.add(task);
+        }
+
+        return Futures.allAsList(futures);
+    }
+
+    /**
+     * Process a batch of inputs, waiting for all of them to complete
+     *
+     * @param inputs the inputs
+     * @return the list of results, in input order
+     * @throws ProcessingException the calling thread was interrupted
+     * @throws NullPointerException input collection is null
+     */
+    public List<ProcessingResult<OUT>> processAll(
+        final Collection<? extends IN> inputs)
+        throws ProcessingException
+    {
+        return AsyncProcessors.getResult(processAllAsync(inputs));
+    }
+
+    private Callable<ProcessingResult<OUT>> newTask(final IN input)
+    {
+        final Callable<ProcessingResult<OUT>> task
+            = new Callable<ProcessingResult<OUT>>()
+        {
+            @Override
+            public ProcessingResult<OUT> call()
+            {
+                final ProcessingReport report = reportProvider.newReport();
+                try {
+                    return ProcessingResult.uncheckedResult(processor, report,
+                        input);
+                } catch (RuntimeException e) {
+                    return ProcessingResult.completed(report, null,
+                        new ProcessingException(BUNDLE.getMessage(
+                            "processing.uncheckedException"), e));
+                }
+            }
+        };
+        return ProcessingDeadline.propagate(task);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BATCH[" + processor + ']';
+    }
+}
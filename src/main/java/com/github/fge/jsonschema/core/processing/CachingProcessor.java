@@ -19,19 +19,26 @@
 
 package com.github.fge.jsonschema.core.processing;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
 import com.github.fge.jsonschema.core.report.ListProcessingReport;
 import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.MessageProvider;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.tree.SimpleTree;
+import com.github.fge.jsonschema.core.util.CacheConfiguration;
+import com.github.fge.jsonschema.core.util.JsonNodeWeigher;
+import com.github.fge.jsonschema.core.util.ValueHolder;
 import com.github.fge.jsonschema.core.util.equivalence.Equivalences;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.base.Equivalence;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Iterables;
 
 import java.util.concurrent.ExecutionException;
 
@@ -44,6 +51,20 @@ import java.util.concurrent.ExecutionException;
  * <p>You can optionally pass an {@link Equivalence} as an argument for cache
  * keys. By default, {@link Equivalences#equals()} will be used.</p>
  *
+ * <p>You can also pass a {@link CacheConfiguration} in order to bound the
+ * cache. If a maximum weight is configured, the weight of an entry is the
+ * number of messages in its report, plus the number of JSON nodes of the input
+ * and output, if these are (or hold) a {@link SimpleTree} or a {@link
+ * JsonNode}. By default, the cache is unbounded.</p>
+ *
+ * <p>By default, the full report of each computation is cached and merged
+ * into the caller's report on each cache hit. You can instead choose to only
+ * keep messages above a given level (see {@link
+ * #CachingProcessor(Processor, Equivalence, CacheConfiguration, LogLevel)}).
+ * </p>
+ *
+ * <p>Cache statistics can be obtained using {@link #getStats()}.</p>
+ *
  * @param <IN> input type for that processor
  * @param <OUT> output type for that processor
  */
@@ -63,10 +84,16 @@ public final class CachingProcessor<IN extends MessageProvider, OUT extends Mess
      */
     private final Equivalence<IN> equivalence;
 
+    /**
+     * The minimum level of messages kept in cached reports (null if all
+     * reports are kept in full)
+     */
+    private final LogLevel captureLevel;
+
     /**
      * The cache
      */
-    private final LoadingCache<Equivalence.Wrapper<IN>, ProcessingResult<OUT>>
+    private final LoadingCache<Equivalence.Wrapper<IN>, CachedResult<OUT>>
         cache;
 
     /**
@@ -84,7 +111,11 @@ public final class CachingProcessor<IN extends MessageProvider, OUT extends Mess
     }
 
     /**
-     * Main constructor
+     * Constructor
+     *
+     * <p>This is equivalent to calling {@link #CachingProcessor(Processor,
+     * Equivalence, CacheConfiguration)} with {@link
+     * CacheConfiguration#byDefault()} as the third argument.</p>
      *
      * @param processor the processor
      * @param equivalence an equivalence to use for cache keys
@@ -92,47 +123,168 @@ public final class CachingProcessor<IN extends MessageProvider, OUT extends Mess
      */
     public CachingProcessor(final Processor<IN, OUT> processor,
         final Equivalence<IN> equivalence)
+    {
+        this(processor, equivalence, CacheConfiguration.byDefault());
+    }
+
+    /**
+     * Constructor
+     *
+     * <p>Reports are cached in full, with all messages of level {@link
+     * LogLevel#DEBUG} and above.</p>
+     *
+     * @param processor the processor
+     * @param equivalence an equivalence to use for cache keys
+     * @param cfg the cache configuration
+     * @throws NullPointerException processor, equivalence or cache
+     * configuration are null
+     */
+    public CachingProcessor(final Processor<IN, OUT> processor,
+        final Equivalence<IN> equivalence, final CacheConfiguration cfg)
+    {
+        this(processor, equivalence, cfg, null);
+    }
+
+    /**
+     * Main constructor
+     *
+     * <p>If {@code captureLevel} is not null, only messages with this level or
+     * greater are kept in cached reports. When such a cached report is
+     * successful and has no messages, a cache hit does not touch the caller's
+     * report at all.</p>
+     *
+     * <p>Note that the success status of the cached report is always retained,
+     * even if no error messages were captured.</p>
+     *
+     * @param processor the processor
+     * @param equivalence an equivalence to use for cache keys
+     * @param cfg the cache configuration
+     * @param captureLevel the minimum level of messages kept in cached
+     * reports; if null, reports are kept in full
+     * @throws NullPointerException processor, equivalence or cache
+     * configuration are null
+     */
+    public CachingProcessor(final Processor<IN, OUT> processor,
+        final Equivalence<IN> equivalence, final CacheConfiguration cfg,
+        final LogLevel captureLevel)
     {
         BUNDLE.checkNotNull(processor, "processing.nullProcessor");
         BUNDLE.checkNotNull(equivalence, "processing.nullEquivalence");
+        BUNDLE.checkNotNull(cfg, "cacheCfg.nullConfiguration");
         this.processor = processor;
         this.equivalence = equivalence;
-        cache = CacheBuilder.newBuilder().build(loader());
+        this.captureLevel = captureLevel;
+        cache = cfg.newCacheBuilder(CachingProcessor.<IN, OUT>weigher())
+            .build(loader());
     }
 
     @Override
     public OUT process(final ProcessingReport report, final IN input)
         throws ProcessingException
     {
-        final ProcessingResult<OUT> result;
+        final CachedResult<OUT> result;
         try {
             result = cache.get(equivalence.wrap(input));
         } catch (ExecutionException e) {
             throw (ProcessingException) e.getCause();
         }
-        report.mergeWith(result.getReport());
-        return result.getResult();
+        /*
+         * A null report means a compacted, clean report: nothing to merge
+         */
+        if (result.report != null)
+            report.mergeWith(result.report);
+        return result.result;
     }
 
-    private CacheLoader<Equivalence.Wrapper<IN>, ProcessingResult<OUT>> loader()
+    /**
+     * Return the statistics of the underlying cache
+     *
+     * <p>Note that if the cache configuration does not record statistics, all
+     * values will be zero.</p>
+     *
+     * @return the cache statistics
+     * @see CacheConfiguration#getRecordStats()
+     */
+    public CacheStats getStats()
     {
-        return new CacheLoader<Equivalence.Wrapper<IN>, ProcessingResult<OUT>>()
+        return cache.stats();
+    }
+
+    private CacheLoader<Equivalence.Wrapper<IN>, CachedResult<OUT>> loader()
+    {
+        return new CacheLoader<Equivalence.Wrapper<IN>, CachedResult<OUT>>()
         {
             @Override
-            public ProcessingResult<OUT> load(final Equivalence.Wrapper<IN> key)
+            public CachedResult<OUT> load(final Equivalence.Wrapper<IN> key)
                 throws ProcessingException
             {
                 final IN input = key.get();
+                final LogLevel level = captureLevel == null ? LogLevel.DEBUG
+                    : captureLevel;
                 final ListProcessingReport report
-                    = new ListProcessingReport(LogLevel.DEBUG, LogLevel.NONE);
-                return ProcessingResult.of(processor, report, input);
+                    = new ListProcessingReport(level, LogLevel.NONE);
+                final OUT out = processor.process(report, input);
+
+                if (captureLevel != null && report.isSuccess()
+                    && !report.iterator().hasNext())
+                    return new CachedResult<OUT>(null, out);
+                return new CachedResult<OUT>(report, out);
+            }
+        };
+    }
+
+    private static <X, Y> Weigher<Equivalence.Wrapper<X>, CachedResult<Y>>
+        weigher()
+    {
+        return new Weigher<Equivalence.Wrapper<X>, CachedResult<Y>>()
+        {
+            @Override
+            public int weigh(final Equivalence.Wrapper<X> key,
+                final CachedResult<Y> value)
+            {
+                final long messages = value.report == null ? 0L
+                    : Iterables.size(value.report);
+                final long weight = 1L + messages + nodeCount(key.get())
+                    + nodeCount(value.result);
+                return (int) Math.min(weight, Integer.MAX_VALUE);
             }
         };
     }
 
+    private static int nodeCount(final Object o)
+    {
+        if (o instanceof JsonNode)
+            return JsonNodeWeigher.nodeCount((JsonNode) o);
+        if (o instanceof SimpleTree)
+            return JsonNodeWeigher.nodeCount(((SimpleTree) o).getNode());
+        if (o instanceof ValueHolder)
+            return nodeCount(((ValueHolder<?>) o).getValue());
+        return 0;
+    }
+
     @Override
     public String toString()
     {
         return "CACHED[" + processor + ']';
     }
+
+    /**
+     * A cached processing output along with its report
+     *
+     * <p>The report is never modified once cached: merging it into a {@link
+     * ListProcessingReport} shares its messages rather than copying them. It
+     * is null if messages were captured above a given level and the report
+     * was clean.</p>
+     */
+    private static final class CachedResult<R>
+    {
+        private final ProcessingReport report;
+        private final R result;
+
+        private CachedResult(final ProcessingReport report, final R result)
+        {
+            this.report = report;
+            this.result = result;
+        }
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A predicate testing the equality of a key extracted from its input
+ *
+ * <p>Such a predicate is the equivalent of {@code
+ * key.equals(keyFunction.apply(input))}. The interest of this class over an
+ * opaque {@link Predicate} is that {@link ProcessorSelector} can index it:
+ * consecutive key predicates sharing the same key function are resolved with a
+ * single call to this function and a hash lookup, instead of being evaluated
+ * one by one.</p>
+ *
+ * <p>For this to work, key functions should be shared (or implement {@link
+ * Object#equals(Object)}), must be deterministic and must not have side
+ * effects.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final Processor&lt;X, Y&gt; processor
+ *         = new ProcessorSelector&lt;X, Y&gt;()
+ *             .when(KeyPredicate.keyEquals(f, "draftv4")).then(processor1)
+ *             .when(KeyPredicate.keyEquals(f, "draftv3")).then(processor2)
+ *             .otherwise(byDefault)
+ *             .getProcessor();
+ * </pre>
+ *
+ * @param <IN> the input type
+ * @param <K> the key type
+ *
+ * @see ProcessorMap
+ */
+@Immutable
+public final class KeyPredicate<IN, K>
+    implements Predicate<IN>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final Function<IN, K> keyFunction;
+    private final K key;
+
+    /**
+     * Build a predicate testing the equality of the key of an input
+     *
+     * @param keyFunction function to extract a key from an input
+     * @param key the key to test against
+     * @param <IN> the input type
+     * @param <K> the key type
+     * @return a new predicate
+     * @throws NullPointerException key function or key is null
+     */
+    public static <IN, K> KeyPredicate<IN, K> keyEquals(
+        final Function<IN, K> keyFunction, final K key)
+    {
+        BUNDLE.checkNotNull(keyFunction, "processing.nullFunction");
+        BUNDLE.checkNotNull(key, "processing.nullKey");
+        return new KeyPredicate<IN, K>(keyFunction, key);
+    }
+
+    private KeyPredicate(final Function<IN, K> keyFunction, final K key)
+    {
+        this.keyFunction = keyFunction;
+        this.key = key;
+    }
+
+    public Function<IN, K> getKeyFunction()
+    {
+        return keyFunction;
+    }
+
+    public K getKey()
+    {
+        return key;
+    }
+
+    @Override
+    public boolean apply(final IN input)
+    {
+        return key.equals(keyFunction.apply(input));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * keyFunction.hashCode() + key.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (obj == null)
+            return false;
+        if (this == obj)
+            return true;
+        if (getClass() != obj.getClass())
+            return false;
+        final KeyPredicate<?, ?> other = (KeyPredicate<?, ?>) obj;
+        return keyFunction.equals(other.keyFunction) && key.equals(other.key);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "key == " + key;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.DeadlineExceededException;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A deadline and cancellation context for processing runs
+ *
+ * <p>As the {@link Processor} interface has no room for such a context, a
+ * deadline is attached to the current thread for the duration of a processing
+ * run, using {@link #process(Processor, ProcessingReport, MessageProvider)}.
+ * The deadline is then checked:</p>
+ *
+ * <ul>
+ *     <li>before each stage of a {@link ProcessorChain} or {@link
+ *     AsyncProcessorChain};</li>
+ *     <li>before each recursion step of syntax validation;</li>
+ *     <li>when downloading content (connect and read timeouts are also bounded
+ *     by the remaining time).</li>
+ * </ul>
+ *
+ * <p>When the deadline is exceeded, or when the run is {@link #cancel()
+ * cancelled} (possibly from another thread), processing fails with a {@link
+ * DeadlineExceededException}.</p>
+ *
+ * <p>The deadline is propagated to tasks run by {@link AsyncProcessors},
+ * {@link BatchProcessor} and asynchronous chains; other code submitting tasks
+ * to executors can use {@link #propagate(Callable)}.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final ProcessingDeadline deadline
+ *         = ProcessingDeadline.after(500L, TimeUnit.MILLISECONDS);
+ *     final Y ret = deadline.process(processor, report, input);
+ * </pre>
+ */
+@ThreadSafe
+public final class ProcessingDeadline
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    private static final ThreadLocal<ProcessingDeadline> CURRENT
+        = new ThreadLocal<ProcessingDeadline>();
+
+    private final boolean bounded;
+    private final long expiresAt;
+    private final long budget;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Create a deadline expiring after a given delay
+     *
+     * @param duration the delay
+     * @param unit the time unit of the delay
+     * @return a new deadline
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException delay is negative
+     */
+    public static ProcessingDeadline after(final long duration,
+        final TimeUnit unit)
+    {
+        BUNDLE.checkNotNull(unit, "processing.nullTimeUnit");
+        BUNDLE.checkArgument(duration >= 0L, "processing.negativeDuration");
+        return new ProcessingDeadline(unit.toNanos(duration));
+    }
+
+    /**
+     * Create a context which never expires, but can be cancelled
+     *
+     * @return a new context
+     */
+    public static ProcessingDeadline unbounded()
+    {
+        return new ProcessingDeadline(Long.MAX_VALUE);
+    }
+
+    /**
+     * Return the deadline attached to the current thread, if any
+     *
+     * @return the deadline, or null
+     */
+    public static ProcessingDeadline current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Check the deadline attached to the current thread, if any
+     *
+     * @throws DeadlineExceededException the deadline is exceeded, or the run
+     * was cancelled
+     */
+    public static void checkCurrent()
+        throws DeadlineExceededException
+    {
+        final ProcessingDeadline deadline = CURRENT.get();
+        if (deadline != null)
+            deadline.check();
+    }
+
+    /**
+     * Make a task run with the deadline of the current thread
+     *
+     * <p>If the current thread has no deadline attached, the task is returned
+     * as is.</p>
+     *
+     * @param task the task
+     * @param <T> the return type of the task
+     * @return a task attaching the deadline of the current thread
+     */
+    public static <T> Callable<T> propagate(final Callable<T> task)
+    {
+        final ProcessingDeadline deadline = CURRENT.get();
+        if (deadline == null)
+            return task;
+        return new Callable<T>()
+        {
+            @Override
+            public T call()
+                throws Exception
+            {
+                final ProcessingDeadline previous = install(deadline);
+                try {
+                    return task.call();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    private ProcessingDeadline(final long nanos)
+    {
+        budget = nanos;
+        /*
+         * TimeUnit.toNanos() saturates: Long.MAX_VALUE means "no budget". Note
+         * that expiresAt may overflow; this is fine since it is only ever
+         * compared with System.nanoTime() using a difference.
+         */
+        bounded = nanos != Long.MAX_VALUE;
+        expiresAt = bounded ? System.nanoTime() + nanos : 0L;
+    }
+
+    /**
+     * Run a processor with this deadline attached to the current thread
+     *
+     * <p>The deadline is checked before the processor is run; any deadline
+     * previously attached to the current thread is restored afterwards.</p>
+     *
+     * @param processor the processor
+     * @param report the report
+     * @param input the input
+     * @param <IN> input type of the processor
+     * @param <OUT> output type of the processor
+     * @return the output of the processor
+     * @throws DeadlineExceededException deadline exceeded, or run cancelled
+     * @throws ProcessingException processing failed
+     */
+    public <IN extends MessageProvider, OUT extends MessageProvider> OUT
+        process(final Processor<IN, OUT> processor,
+        final ProcessingReport report, final IN input)
+        throws ProcessingException
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        final ProcessingDeadline previous = install(this);
+        try {
+            check();
+            return processor.process(report, input);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Cancel the processing run(s) using this deadline
+     *
+     * <p>Cancellation is cooperative: it will be noticed at the next check.
+     * </p>
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * Tell whether this deadline was cancelled
+     *
+     * @return true if {@link #cancel()} was called
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * Tell whether this deadline is exceeded, or was cancelled
+     *
+     * @return true if this is the case
+     */
+    public boolean isExpired()
+    {
+        return cancelled || bounded && System.nanoTime() - expiresAt >= 0L;
+    }
+
+    /**
+     * Return the time remaining before this deadline expires
+     *
+     * @param unit the time unit to return the remaining time in
+     * @return the remaining time, 0 if expired, or {@link Long#MAX_VALUE} if
+     * this deadline is unbounded
+     */
+    public long getRemaining(final TimeUnit unit)
+    {
+        if (cancelled)
+            return 0L;
+        if (!bounded)
+            return Long.MAX_VALUE;
+        final long remaining = expiresAt - System.nanoTime();
+        return remaining <= 0L ? 0L
+            : unit.convert(remaining, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Check this deadline
+     *
+     * @throws DeadlineExceededException the deadline is exceeded, or the run
+     * was cancelled
+     */
+    public void check()
+        throws DeadlineExceededException
+    {
+        if (cancelled)
+            throw new DeadlineExceededException(new ProcessingMessage()
+                .setMessage(BUNDLE.getMessage("processing.cancelled")));
+        if (bounded && System.nanoTime() - expiresAt >= 0L)
+            throw new DeadlineExceededException(new ProcessingMessage()
+                .setMessage(BUNDLE.getMessage("processing.deadlineExceeded"))
+                .put("budgetMillis", FACTORY.numberNode(
+                    TimeUnit.NANOSECONDS.toMillis(budget))));
+    }
+
+    /**
+     * Attach a deadline to the current thread
+     *
+     * @param deadline the deadline (may be null)
+     * @return the previously attached deadline, to be passed to {@link
+     * #restore(ProcessingDeadline)}
+     */
+    static ProcessingDeadline install(final ProcessingDeadline deadline)
+    {
+        final ProcessingDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return previous;
+    }
+
+    /**
+     * Restore a previously attached deadline
+     *
+     * @param previous the deadline returned by {@link
+     * #install(ProcessingDeadline)}
+     */
+    static void restore(final ProcessingDeadline previous)
+    {
+        if (previous == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(previous);
+    }
+}
@@ -103,6 +103,24 @@ public final class ProcessingResult<R extends MessageProvider>
         }
     }
 
+    /**
+     * Build a result out of an already computed output or failure
+     *
+     * @param report the report used for processing
+     * @param result the output (ignored if processing failed)
+     * @param failure the exception which made processing fail, or null
+     * @param <OUT> type of the output
+     * @return a processing result
+     * @see #uncheckedResult(Processor, ProcessingReport, MessageProvider)
+     */
+    static <OUT extends MessageProvider> ProcessingResult<OUT> completed(
+        final ProcessingReport report, final OUT result,
+        final ProcessingException failure)
+    {
+        return failure == null ? new ProcessingResult<OUT>(report, result)
+            : new ProcessingResult<OUT>(buildReport(report, failure), null);
+    }
+
     /**
      * Get the report out of this result
      *
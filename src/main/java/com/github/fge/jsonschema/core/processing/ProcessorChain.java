@@ -22,6 +22,7 @@ package com.github.fge.jsonschema.core.processing;
 import com.github.fge.jsonschema.core.exceptions.ExceptionProvider;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.instrumentation.ProcessorInstrumentation;
 import com.github.fge.jsonschema.core.report.MessageProvider;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
@@ -29,6 +30,7 @@ import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 
 import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
 
 /**
  * A processor chain
@@ -59,6 +61,15 @@ import javax.annotation.concurrent.Immutable;
  *     chain.getProcessor(); // Will return p1, not p1 with a stop condition
  * </pre>
  *
+ * <p>The processor returned by {@link #getProcessor()} does not nest
+ * processors into one another: all stages of the chain are stored in a flat
+ * array and run in a single loop, and {@link #failOnError()} only flags the
+ * preceding stage. Chains inserted into other chains are inlined as well.</p>
+ *
+ * <p>If a {@link ProcessingDeadline} is attached to the current thread, it is
+ * checked before each stage, including when the chain has a single stage.
+ * </p>
+ *
  * @param <IN> the input type for that chain
  * @param <OUT> the output type for that chain
  */
@@ -68,6 +79,17 @@ public final class ProcessorChain<IN extends MessageProvider, OUT extends Messag
     private static final MessageBundle BUNDLE
         = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
 
+    /**
+     * The stages of this chain
+     */
+    private final Processor<?, ?>[] processors;
+
+    /**
+     * Message to fail with after each stage if the report is not a success;
+     * {@code null} if processing should not stop after that stage
+     */
+    private final ProcessingMessage[] failMessages;
+
     /**
      * The resulting processor
      */
@@ -86,17 +108,27 @@ public final class ProcessorChain<IN extends MessageProvider, OUT extends Messag
         ProcessorChain<X, Y> startWith(final Processor<X, Y> p)
     {
         BUNDLE.checkNotNull(p, "processing.nullProcessor");
-        return new ProcessorChain<X, Y>(p);
+        if (p instanceof FlatProcessor) {
+            final FlatProcessor<X, Y> flat = (FlatProcessor<X, Y>) p;
+            return new ProcessorChain<X, Y>(flat.processors,
+                flat.failMessages);
+        }
+        return new ProcessorChain<X, Y>(new Processor<?, ?>[] { p },
+            new ProcessingMessage[1]);
     }
 
     /**
      * Private constructor
      *
-     * @param processor the processor
+     * @param processors the stages
+     * @param failMessages the failure messages
      */
-    private ProcessorChain(final Processor<IN, OUT> processor)
+    private ProcessorChain(final Processor<?, ?>[] processors,
+        final ProcessingMessage[] failMessages)
     {
-        this.processor = processor;
+        this.processors = processors;
+        this.failMessages = failMessages;
+        processor = new FlatProcessor<IN, OUT>(processors, failMessages);
     }
 
     /**
@@ -121,6 +153,10 @@ public final class ProcessorChain<IN extends MessageProvider, OUT extends Messag
      * previous processor ended up with an error (ie, {@link
      * ProcessingReport#isSuccess()} returns {@code false}).</p>
      *
+     * <p>If the previous stage is already followed by a stop condition, the
+     * chain is returned unchanged: the first stop condition would always
+     * trigger first.</p>
+     *
      * @param message the processing message to use
      * @return a new chain
      * @see ProcessingMessage#asException()
@@ -128,21 +164,13 @@ public final class ProcessorChain<IN extends MessageProvider, OUT extends Messag
      */
     public ProcessorChain<IN, OUT> failOnError(final ProcessingMessage message)
     {
-        final Processor<OUT, OUT> fail = new Processor<OUT, OUT>()
-        {
-            @Override
-            public OUT process(final ProcessingReport report, final OUT input)
-                throws ProcessingException
-            {
-                if (!report.isSuccess())
-                    throw message.asException();
-                return input;
-            }
-        };
-
-        final ProcessorMerger<IN, OUT, OUT> merger
-            = new ProcessorMerger<IN, OUT, OUT>(processor, fail);
-        return new ProcessorChain<IN, OUT>(merger);
+        final int last = failMessages.length - 1;
+        if (failMessages[last] != null)
+            return this;
+        final ProcessingMessage[] newMessages
+            = Arrays.copyOf(failMessages, failMessages.length);
+        newMessages[last] = message;
+        return new ProcessorChain<IN, OUT>(processors, newMessages);
     }
 
     /**
@@ -158,9 +186,34 @@ public final class ProcessorChain<IN extends MessageProvider, OUT extends Messag
         chainWith(final Processor<OUT, NEWOUT> p)
     {
         BUNDLE.checkNotNull(p, "processing.nullProcessor");
-        final Processor<IN, NEWOUT> merger
-            = new ProcessorMerger<IN, OUT, NEWOUT>(processor, p);
-        return new ProcessorChain<IN, NEWOUT>(merger);
+
+        final Processor<?, ?>[] otherProcessors;
+        final ProcessingMessage[] otherMessages;
+
+        if (p instanceof FlatProcessor) {
+            final FlatProcessor<OUT, NEWOUT> flat
+                = (FlatProcessor<OUT, NEWOUT>) p;
+            otherProcessors = flat.processors;
+            otherMessages = flat.failMessages;
+        } else {
+            otherProcessors = new Processor<?, ?>[] { p };
+            otherMessages = new ProcessingMessage[1];
+        }
+
+        final int size = processors.length;
+        final int newSize = size + otherProcessors.length;
+
+        final Processor<?, ?>[] newProcessors
+            = Arrays.copyOf(processors, newSize);
+        final ProcessingMessage[] newMessages
+            = Arrays.copyOf(failMessages, newSize);
+
+        System.arraycopy(otherProcessors, 0, newProcessors, size,
+            otherProcessors.length);
+        System.arraycopy(otherMessages, 0, newMessages, size,
+            otherMessages.length);
+
+        return new ProcessorChain<IN, NEWOUT>(newProcessors, newMessages);
     }
 
     public Processor<IN, OUT> getProcessor()
@@ -168,33 +221,111 @@ public final class ProcessorChain<IN extends MessageProvider, OUT extends Messag
         return processor;
     }
 
-    private static final class ProcessorMerger<X extends MessageProvider,
-        Y extends MessageProvider, Z extends MessageProvider>
-        implements Processor<X, Z>
+    /**
+     * Build an instrumented processor out of this chain
+     *
+     * <p>Each stage of the chain is instrumented separately.</p>
+     *
+     * @param instrumentation the instrumentation to use
+     * @return an instrumented processor
+     * @throws NullPointerException instrumentation is null
+     * @see ProcessorInstrumentation#instrument(Processor)
+     */
+    public Processor<IN, OUT> getProcessor(
+        final ProcessorInstrumentation instrumentation)
     {
-        private final Processor<X, Y> p1;
-        private final Processor<Y, Z> p2;
+        BUNDLE.checkNotNull(instrumentation,
+            "processing.nullInstrumentation");
+        final int size = processors.length;
+        final Processor<?, ?>[] instrumented = new Processor<?, ?>[size];
+        for (int i = 0; i < size; i++)
+            instrumented[i] = instrumentation.instrument(processors[i]);
+        return new FlatProcessor<IN, OUT>(instrumented, failMessages);
+    }
 
-        private ProcessorMerger(final Processor<X, Y> p1,
-            final Processor<Y, Z> p2)
+    /**
+     * Return the stages of this chain
+     *
+     * @return the processors of each stage; <b>do not modify</b>
+     * @see ProcessorPipeline
+     */
+    Processor<?, ?>[] getStages()
+    {
+        return processors;
+    }
+
+    /**
+     * Return the failure messages of the stages of this chain
+     *
+     * @return the failure messages; <b>do not modify</b>
+     * @see ProcessorPipeline
+     */
+    ProcessingMessage[] getFailMessages()
+    {
+        return failMessages;
+    }
+
+    /**
+     * Turn this chain into an asynchronous chain
+     *
+     * <p>The current chain is run in the calling thread; asynchronous stages
+     * can then be appended to the returned chain.</p>
+     *
+     * @return an asynchronous chain
+     * @see AsyncProcessorChain#chainWith(AsyncProcessor)
+     */
+    public AsyncProcessorChain<IN, OUT> toAsync()
+    {
+        return AsyncProcessorChain.startWith(processor);
+    }
+
+    private static final class FlatProcessor<X extends MessageProvider, Y extends MessageProvider>
+        implements Processor<X, Y>
+    {
+        private final Processor<?, ?>[] processors;
+        private final ProcessingMessage[] failMessages;
+
+        private FlatProcessor(final Processor<?, ?>[] processors,
+            final ProcessingMessage[] failMessages)
         {
-            this.p1 = p1;
-            this.p2 = p2;
+            this.processors = processors;
+            this.failMessages = failMessages;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
-        public Z process(final ProcessingReport report, final X input)
+        public Y process(final ProcessingReport report, final X input)
             throws ProcessingException
         {
-            final Y intermediate = p1.process(report, input);
-            return p2.process(report, intermediate);
+            final ProcessingDeadline deadline = ProcessingDeadline.current();
+            final int size = processors.length;
+            MessageProvider current = input;
+            ProcessingMessage message;
+
+            for (int i = 0; i < size; i++) {
+                if (deadline != null)
+                    deadline.check();
+                current = ((Processor<MessageProvider, MessageProvider>)
+                    processors[i]).process(report, current);
+                message = failMessages[i];
+                if (message != null && !report.isSuccess())
+                    throw message.asException();
+            }
+
+            return (Y) current;
         }
 
         @Override
         public String toString()
         {
-            return p1 + " -> " + p2;
+            final StringBuilder sb = new StringBuilder();
+            final int size = processors.length;
+            for (int i = 0; i < size; i++) {
+                if (i > 0)
+                    sb.append(" -> ");
+                sb.append(processors[i]);
+            }
+            return sb.toString();
         }
     }
 }
-
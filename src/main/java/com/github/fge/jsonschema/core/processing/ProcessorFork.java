@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * A processor running several processors on the same input concurrently
+ *
+ * <p>The processor produced by this class works as follows:</p>
+ *
+ * <ul>
+ *     <li>each branch is run with the same input, and with its own report (a
+ *     {@link ListProcessingReport} with the same log level and exception
+ *     threshold as the main report); the first branch is run in the calling
+ *     thread, other branches are run on the executor;</li>
+ *     <li>when all branches have completed, their reports are merged into the
+ *     main report in the order in which branches were added, whatever the
+ *     order in which they completed;</li>
+ *     <li>if one or more branches failed, the exception of the first failed
+ *     branch (again, in the order of branches) is thrown;</li>
+ *     <li>if a branch throws an unchecked exception, or if the calling thread
+ *     is interrupted, branches still running are cancelled and their reports
+ *     are not merged, and the exception is thrown;</li>
+ *     <li>otherwise, the list of outputs, in branch order, is passed to the
+ *     merge function, whose result is the output of the processor.</li>
+ * </ul>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final Processor&lt;SchemaTree, Z&gt; processor
+ *         = new ProcessorFork&lt;SchemaTree, Y, Z&gt;(executor, mergeFunction)
+ *             .addBranch(p1).addBranch(p2).addBranch(p3)
+ *             .getProcessor();
+ * </pre>
+ *
+ * <p>Branches <b>must</b> be independent of one another, and must not modify
+ * their input. The {@link ProcessingDeadline} attached to the calling thread,
+ * if any, is attached to all branches.</p>
+ *
+ * @param <IN> the input type of branches
+ * @param <X> the output type of branches
+ * @param <OUT> the output type of the resulting processor
+ */
+public final class ProcessorFork<IN extends MessageProvider, X extends MessageProvider, OUT extends MessageProvider>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final Executor executor;
+    private final Function<List<X>, OUT> mergeFunction;
+    private final List<Processor<IN, ? extends X>> branches
+        = Lists.newArrayList();
+
+    /**
+     * Constructor
+     *
+     * @param executor the executor to run branches on
+     * @param mergeFunction function to merge outputs of branches
+     * @throws NullPointerException executor or merge function is null
+     */
+    public ProcessorFork(final Executor executor,
+        final Function<List<X>, OUT> mergeFunction)
+    {
+        BUNDLE.checkNotNull(executor, "processing.nullExecutor");
+        BUNDLE.checkNotNull(mergeFunction, "processing.nullMergeFunction");
+        this.executor = executor;
+        this.mergeFunction = mergeFunction;
+    }
+
+    /**
+     * Add a branch to this fork
+     *
+     * @param processor the processor for this branch
+     * @return this
+     * @throws NullPointerException processor is null
+     */
+    public ProcessorFork<IN, X, OUT> addBranch(
+        final Processor<IN, ? extends X> processor)
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        branches.add(processor);
+        return this;
+    }
+
+    /**
+     * Build the resulting processor from this fork
+     *
+     * <p>The resulting processor is immutable: adding branches to this fork
+     * after getting the processor will not alter it.</p>
+     *
+     * @return the processor for this fork
+     */
+    public Processor<IN, OUT> getProcessor()
+    {
+        return new Forker<IN, X, OUT>(branches, executor, mergeFunction);
+    }
+
+    private static final class Forker<IN extends MessageProvider, X extends MessageProvider, OUT extends MessageProvider>
+        implements Processor<IN, OUT>
+    {
+        private final List<Processor<IN, ? extends X>> branches;
+        private final Executor executor;
+        private final Function<List<X>, OUT> mergeFunction;
+
+        private Forker(final List<Processor<IN, ? extends X>> branches,
+            final Executor executor,
+            final Function<List<X>, OUT> mergeFunction)
+        {
+            this.branches = ImmutableList.copyOf(branches);
+            this.executor = executor;
+            this.mergeFunction = mergeFunction;
+        }
+
+        @Override
+        public OUT process(final ProcessingReport report, final IN input)
+            throws ProcessingException
+        {
+            final int size = branches.size();
+
+            if (size == 0)
+                return mergeFunction.apply(Collections.<X>emptyList());
+
+            final List<ProcessingReport> reports
+                = Lists.newArrayListWithCapacity(size);
+            final List<ListenableFuture<? extends X>> futures
+                = Lists.newArrayListWithCapacity(size);
+
+            ProcessingReport branchReport;
+            ListenableFutureTask<? extends X> task;
+
+            for (int i = 1; i < size; i++) {
+                branchReport = new ListProcessingReport(report);
+                reports.add(branchReport);
+                task = ListenableFutureTask.create(ProcessingDeadline
+                    .propagate(newTask(branches.get(i), branchReport, input)));
+                executor.execute(task);
+                futures.add(task);
+            }
+
+            final List<X> outputs = Lists.newArrayListWithCapacity(size);
+            ProcessingException failure = null;
+
+            /*
+             * Run the first branch in the calling thread
+             */
+            branchReport = new ListProcessingReport(report);
+            reports.add(0, branchReport);
+            try {
+                try {
+                    outputs.add(branches.get(0).process(branchReport, input));
+                } catch (ProcessingException e) {
+                    failure = e;
+                }
+
+                for (final ListenableFuture<? extends X> future: futures)
+                    try {
+                        outputs.add(AsyncProcessors.getResult(future));
+                    } catch (ProcessingException e) {
+                        if (failure == null)
+                            failure = e;
+                    }
+            } finally {
+                mergeReports(report, reports, futures);
+            }
+
+            if (failure != null)
+                throw failure;
+
+            return mergeFunction.apply(outputs);
+        }
+
+        /*
+         * Normally, all branches have completed when this method is called;
+         * but on an unchecked exception or an interrupt, some may still be
+         * running and writing to their reports. These are cancelled and their
+         * reports are skipped.
+         *
+         * The report of branch 0, run in the calling thread, is always merged;
+         * the report of branch n is that of future n - 1.
+         */
+        private static void mergeReports(final ProcessingReport report,
+            final List<ProcessingReport> reports,
+            final List<? extends ListenableFuture<?>> futures)
+            throws ProcessingException
+        {
+            ListenableFuture<?> future;
+
+            report.mergeWith(reports.get(0));
+            for (int i = 0; i < futures.size(); i++) {
+                future = futures.get(i);
+                future.cancel(true);
+                if (!future.isCancelled())
+                    report.mergeWith(reports.get(i + 1));
+            }
+        }
+
+        private static <IN extends MessageProvider, X extends MessageProvider>
+            Callable<X> newTask(final Processor<IN, X> processor,
+            final ProcessingReport report, final IN input)
+        {
+            return new Callable<X>()
+            {
+                @Override
+                public X call()
+                    throws ProcessingException
+                {
+                    return processor.process(report, input);
+                }
+            };
+        }
+
+        @Override
+        public String toString()
+        {
+            return "FORK[" + branches.size() + " branches]";
+        }
+    }
+}
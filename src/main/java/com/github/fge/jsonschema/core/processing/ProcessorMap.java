@@ -21,6 +21,7 @@ package com.github.fge.jsonschema.core.processing;
 
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.instrumentation.ProcessorInstrumentation;
 import com.github.fge.jsonschema.core.report.MessageProvider;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
@@ -133,6 +134,32 @@ public final class ProcessorMap<K, IN extends MessageProvider, OUT extends Messa
             defaultProcessor);
     }
 
+    /**
+     * Build an instrumented processor from this map selector
+     *
+     * <p>Each processor of the map, and the default processor if any, is
+     * instrumented separately.</p>
+     *
+     * @param instrumentation the instrumentation to use
+     * @return the instrumented processor for this map selector
+     * @throws NullPointerException instrumentation is null
+     * @see ProcessorInstrumentation#instrument(Processor)
+     */
+    public Processor<IN, OUT> getProcessor(
+        final ProcessorInstrumentation instrumentation)
+    {
+        BUNDLE.checkNotNull(instrumentation,
+            "processing.nullInstrumentation");
+        final Map<K, Processor<IN, OUT>> map = Maps.newHashMap();
+        for (final Map.Entry<K, Processor<IN, OUT>> entry:
+            processors.entrySet())
+            map.put(entry.getKey(),
+                instrumentation.instrument(entry.getValue()));
+        final Processor<IN, OUT> byDefault = defaultProcessor == null ? null
+            : instrumentation.instrument(defaultProcessor);
+        return new Mapper<K, IN, OUT>(map, keyFunction, byDefault);
+    }
+
     private static final class Mapper<K, IN extends MessageProvider, OUT extends MessageProvider>
         implements Processor<IN, OUT>
     {
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ReportProvider;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pipelined, multithreaded execution of a {@link ProcessorChain}
+ *
+ * <p>Each stage of the chain is run by its own worker thread(s); stages are
+ * connected by bounded queues. Inputs are {@link #submit(MessageProvider)
+ * submitted} to the pipeline and results are {@link #take() taken} from it,
+ * <b>in submission order</b>. This allows I/O bound stages (for instance, ref
+ * resolution) to work on one input while CPU bound stages (for instance,
+ * syntax validation) work on another.</p>
+ *
+ * <p>The number of inputs in flight (submitted but not taken yet) is bounded;
+ * when this bound is reached, {@link #submit(MessageProvider)} blocks until a
+ * result is taken. Memory usage is therefore bounded, even though some stages
+ * may run with several workers and complete out of order.</p>
+ *
+ * <p>Each input is processed with its own report, obtained from a {@link
+ * ReportProvider}; the stop conditions of the chain ({@link
+ * ProcessorChain#failOnError()}) are honored, and a failed input yields a
+ * failed {@link ProcessingResult} without affecting other inputs; this is also
+ * the case if a stage throws an unchecked exception. If a stage throws an
+ * {@link Error}, however, its input fails and the pipeline is closed. The
+ * {@link
+ * ProcessingDeadline} attached to the submitting thread, if any, applies to
+ * the submitted input.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final ProcessorPipeline&lt;X, Y&gt; pipeline
+ *         = new ProcessorPipeline&lt;X, Y&gt;(chain, reportProvider, 64, 2);
+ *
+ *     // in a producer thread
+ *     pipeline.submit(x);
+ *     // in a consumer thread
+ *     final ProcessingResult&lt;Y&gt; result = pipeline.take();
+ *     // when done
+ *     pipeline.close();
+ * </pre>
+ *
+ * <p>Processors of the chain <b>must</b> be thread safe if more than one worker
+ * per stage is used. Worker threads are daemon threads; they are stopped by
+ * {@link #close()}, at which point inputs still in flight are dropped, and
+ * threads waiting in {@link #submit(MessageProvider)} or {@link #take()} fail.
+ * </p>
+ *
+ * @param <IN> the input type of the chain
+ * @param <OUT> the output type of the chain
+ */
+@ThreadSafe
+public final class ProcessorPipeline<IN extends MessageProvider, OUT extends MessageProvider>
+    implements Closeable
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final ReportProvider reportProvider;
+    private final Semaphore inFlight;
+    private final BlockingQueue<Item> input;
+    private final List<Thread> workers = Lists.newArrayList();
+
+    private final Object lock = new Object();
+
+    @GuardedBy("lock")
+    private final Map<Long, Item> completed = Maps.newHashMap();
+
+    @GuardedBy("lock")
+    private long nextSubmitted = 0L;
+
+    @GuardedBy("lock")
+    private long nextTaken = 0L;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * <p>Worker threads are started immediately.</p>
+     *
+     * @param chain the processor chain
+     * @param reportProvider the provider for per-input reports
+     * @param capacity maximum number of inputs in flight
+     * @param workersPerStage number of worker threads per stage
+     * @throws NullPointerException chain or report provider is null
+     * @throws IllegalArgumentException capacity or number of workers is not
+     * strictly positive
+     */
+    public ProcessorPipeline(final ProcessorChain<IN, OUT> chain,
+        final ReportProvider reportProvider, final int capacity,
+        final int workersPerStage)
+    {
+        BUNDLE.checkNotNull(chain, "processing.nullProcessor");
+        BUNDLE.checkNotNull(reportProvider, "processing.nullReportProvider");
+        BUNDLE.checkArgument(capacity > 0, "processing.illegalCapacity");
+        BUNDLE.checkArgument(workersPerStage > 0,
+            "processing.illegalWorkers");
+
+        this.reportProvider = reportProvider;
+        inFlight = new Semaphore(capacity);
+        input = new ArrayBlockingQueue<Item>(capacity);
+
+        final Processor<?, ?>[] stages = chain.getStages();
+        final ProcessingMessage[] failMessages = chain.getFailMessages();
+        final String prefix = "processor-pipeline-"
+            + POOL_NUMBER.incrementAndGet() + "-stage-";
+
+        BlockingQueue<Item> in = input;
+        BlockingQueue<Item> out;
+        Thread thread;
+
+        for (int i = 0; i < stages.length; i++) {
+            out = i == stages.length - 1 ? null
+                : new ArrayBlockingQueue<Item>(capacity);
+            for (int j = 0; j < workersPerStage; j++) {
+                thread = new Thread(new Worker(stages[i], failMessages[i], in,
+                    out), prefix + i + '-' + j);
+                thread.setDaemon(true);
+                workers.add(thread);
+            }
+            in = out;
+        }
+
+        for (final Thread worker: workers)
+            worker.start();
+    }
+
+    /**
+     * Submit an input to this pipeline
+     *
+     * <p>This method blocks if the maximum number of inputs in flight is
+     * reached.</p>
+     *
+     * @param value the input
+     * @throws InterruptedException interrupted while waiting
+     * @throws IllegalStateException this pipeline is closed
+     */
+    public void submit(final IN value)
+        throws InterruptedException
+    {
+        checkNotClosed();
+        inFlight.acquire();
+
+        /*
+         * close() releases a permit to wake up blocked submitters; pass it on
+         * to the next one
+         */
+        if (closed) {
+            inFlight.release();
+            checkNotClosed();
+        }
+
+        final Item item = new Item(value, reportProvider.newReport(),
+            ProcessingDeadline.current());
+
+        /*
+         * Sequence numbers must be given in queue order
+         */
+        synchronized (lock) {
+            item.sequence = nextSubmitted++;
+            input.put(item);
+        }
+    }
+
+    /**
+     * Take the next result from this pipeline
+     *
+     * <p>Results are returned in the order in which inputs were submitted;
+     * this method blocks until the result for the next input is available.
+     * </p>
+     *
+     * @return the result
+     * @throws InterruptedException interrupted while waiting
+     * @throws IllegalStateException this pipeline is closed
+     */
+    @SuppressWarnings("unchecked")
+    public ProcessingResult<OUT> take()
+        throws InterruptedException
+    {
+        final Item item;
+
+        /*
+         * The sequence number is only consumed once its item is removed, so
+         * that an interrupted or failed wait does not skip a result
+         */
+        synchronized (lock) {
+            while (!completed.containsKey(nextTaken)) {
+                checkNotClosed();
+                lock.wait();
+            }
+            item = completed.remove(nextTaken++);
+        }
+
+        inFlight.release();
+        return ProcessingResult.completed(item.report, (OUT) item.value,
+            item.failure);
+    }
+
+    /**
+     * Stop all workers of this pipeline
+     *
+     * <p>Inputs which are still in flight are dropped; threads waiting in
+     * {@link #submit(MessageProvider)} or {@link #take()} fail with an {@link
+     * IllegalStateException}.</p>
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        for (final Thread worker: workers)
+            worker.interrupt();
+        inFlight.release();
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    private void checkNotClosed()
+    {
+        if (closed)
+            throw new IllegalStateException(
+                BUNDLE.getMessage("processing.pipelineClosed"));
+    }
+
+    private void complete(final Item item)
+    {
+        synchronized (lock) {
+            completed.put(item.sequence, item);
+            lock.notifyAll();
+        }
+    }
+
+    private static final class Item
+    {
+        private long sequence;
+        private MessageProvider value;
+        private final ProcessingReport report;
+        private final ProcessingDeadline deadline;
+        private ProcessingException failure = null;
+
+        private Item(final MessageProvider value, final ProcessingReport report,
+            final ProcessingDeadline deadline)
+        {
+            this.value = value;
+            this.report = report;
+            this.deadline = deadline;
+        }
+    }
+
+    private final class Worker
+        implements Runnable
+    {
+        private final Processor<MessageProvider, MessageProvider> processor;
+        private final ProcessingMessage failMessage;
+        private final BlockingQueue<Item> in;
+        private final BlockingQueue<Item> out;
+
+        @SuppressWarnings("unchecked")
+        private Worker(final Processor<?, ?> processor,
+            final ProcessingMessage failMessage, final BlockingQueue<Item> in,
+            final BlockingQueue<Item> out)
+        {
+            this.processor = (Processor<MessageProvider, MessageProvider>)
+                processor;
+            this.failMessage = failMessage;
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public void run()
+        {
+            Item item = null;
+            try {
+                while (!closed) {
+                    item = in.take();
+                    if (item.failure == null)
+                        process(item);
+                    if (out == null)
+                        complete(item);
+                    else
+                        out.put(item);
+                    item = null;
+                }
+            } catch (InterruptedException ignored) {
+                // closed
+            } catch (Error e) {
+                /*
+                 * This worker dies: fail its input, then close the pipeline
+                 * so that no thread waits for inputs this stage would never
+                 * process
+                 */
+                if (item != null) {
+                    item.failure = new ProcessingException(
+                        BUNDLE.getMessage("processing.pipelineError"), e);
+                    complete(item);
+                }
+                close();
+                throw e;
+            }
+        }
+
+        private void process(final Item item)
+        {
+            final ProcessingDeadline previous
+                = ProcessingDeadline.install(item.deadline);
+            try {
+                if (item.deadline != null)
+                    item.deadline.check();
+                item.value = processor.process(item.report, item.value);
+                if (failMessage != null && !item.report.isSuccess())
+                    throw failMessage.asException();
+            } catch (ProcessingException e) {
+                item.failure = e;
+            } catch (RuntimeException e) {
+                item.failure = new ProcessingException(
+                    BUNDLE.getMessage("processing.uncheckedException"), e);
+            } finally {
+                ProcessingDeadline.restore(previous);
+            }
+        }
+    }
+}
@@ -21,16 +21,21 @@ package com.github.fge.jsonschema.core.processing;
 
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.instrumentation.ProcessorInstrumentation;
 import com.github.fge.jsonschema.core.report.MessageProvider;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import javax.annotation.concurrent.Immutable;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -61,6 +66,13 @@ import java.util.Map;
  *
  * <p>The returned processor is immutable.</p>
  *
+ * <p>Predicates which are really key tests should be written using {@link
+ * KeyPredicate}: when the returned processor is built, consecutive key
+ * predicates sharing the same key function are grouped into a hash table, and
+ * are resolved in constant time with a single call to the key function. Other
+ * predicates are evaluated in order, as usual; the first matching predicate
+ * still wins.</p>
+ *
  * @param <IN> the input type of processors
  * @param <OUT> the output type of processors
  *
@@ -157,16 +169,45 @@ public final class ProcessorSelector<IN extends MessageProvider, OUT extends Mes
         return new Chooser<IN, OUT>(choices, byDefault);
     }
 
+    /**
+     * Build an instrumented processor from this selector
+     *
+     * <p>Each processor of the selector, and the default processor if any, is
+     * instrumented separately.</p>
+     *
+     * @param instrumentation the instrumentation to use
+     * @return the instrumented selector
+     * @throws NullPointerException instrumentation is null
+     * @see ProcessorInstrumentation#instrument(Processor)
+     */
+    public Processor<IN, OUT> getProcessor(
+        final ProcessorInstrumentation instrumentation)
+    {
+        BUNDLE.checkNotNull(instrumentation,
+            "processing.nullInstrumentation");
+        final Map<Predicate<IN>, Processor<IN, OUT>> map
+            = Maps.newLinkedHashMap();
+        for (final Map.Entry<Predicate<IN>, Processor<IN, OUT>> entry:
+            choices.entrySet())
+            map.put(entry.getKey(),
+                instrumentation.instrument(entry.getValue()));
+        final Processor<IN, OUT> processor = byDefault == null ? null
+            : instrumentation.instrument(byDefault);
+        return new Chooser<IN, OUT>(map, processor);
+    }
+
     private static final class Chooser<X extends MessageProvider, Y extends MessageProvider>
         implements Processor<X, Y>
     {
         private final Map<Predicate<X>, Processor<X, Y>> map;
+        private final List<Segment<X, Y>> segments;
         private final Processor<X, Y> byDefault;
 
         private Chooser(final Map<Predicate<X>, Processor<X, Y>> map,
             final Processor<X, Y> byDefault)
         {
             this.map = ImmutableMap.copyOf(map);
+            segments = compile(this.map);
             this.byDefault = byDefault;
         }
 
@@ -174,13 +215,10 @@ public final class ProcessorSelector<IN extends MessageProvider, OUT extends Mes
         public Y process(final ProcessingReport report, final X input)
             throws ProcessingException
         {
-            Predicate<X> predicate;
             Processor<X, Y> processor;
-            for (final Map.Entry<Predicate<X>, Processor<X, Y>> entry:
-                map.entrySet()) {
-                predicate = entry.getKey();
-                processor = entry.getValue();
-                if (predicate.apply(input))
+            for (final Segment<X, Y> segment: segments) {
+                processor = segment.select(input);
+                if (processor != null)
                     return processor.process(report, input);
             }
 
@@ -200,5 +238,103 @@ public final class ProcessorSelector<IN extends MessageProvider, OUT extends Mes
                 sb.append("no ");
             return sb.append("default]").toString();
         }
+
+        /*
+         * Group consecutive key predicates sharing the same key function into
+         * indexed segments; since a key function yields only one key for a
+         * given input, at most one predicate of such a group can match, and
+         * evaluation order is preserved.
+         */
+        private static <X extends MessageProvider, Y extends MessageProvider>
+            List<Segment<X, Y>> compile(
+            final Map<Predicate<X>, Processor<X, Y>> map)
+        {
+            final List<Segment<X, Y>> list = Lists.newArrayList();
+
+            Function<X, ?> function = null;
+            Map<Object, Processor<X, Y>> index = null;
+            Predicate<X> predicate;
+            KeyPredicate<X, ?> keyPredicate;
+
+            for (final Map.Entry<Predicate<X>, Processor<X, Y>> entry:
+                map.entrySet()) {
+                predicate = entry.getKey();
+                if (!(predicate instanceof KeyPredicate)) {
+                    if (index != null)
+                        list.add(new IndexedSegment<X, Y>(function, index));
+                    function = null;
+                    index = null;
+                    list.add(new PredicateSegment<X, Y>(predicate,
+                        entry.getValue()));
+                    continue;
+                }
+                keyPredicate = (KeyPredicate<X, ?>) predicate;
+                if (index == null
+                    || !function.equals(keyPredicate.getKeyFunction())) {
+                    if (index != null)
+                        list.add(new IndexedSegment<X, Y>(function, index));
+                    function = keyPredicate.getKeyFunction();
+                    index = Maps.newHashMap();
+                }
+                index.put(keyPredicate.getKey(), entry.getValue());
+            }
+
+            if (index != null)
+                list.add(new IndexedSegment<X, Y>(function, index));
+
+            return ImmutableList.copyOf(list);
+        }
+    }
+
+    private interface Segment<X extends MessageProvider, Y extends MessageProvider>
+    {
+        /**
+         * Select a processor for an input
+         *
+         * @param input the input
+         * @return the processor, or null if none matches
+         */
+        Processor<X, Y> select(final X input);
+    }
+
+    private static final class PredicateSegment<X extends MessageProvider, Y extends MessageProvider>
+        implements Segment<X, Y>
+    {
+        private final Predicate<X> predicate;
+        private final Processor<X, Y> processor;
+
+        private PredicateSegment(final Predicate<X> predicate,
+            final Processor<X, Y> processor)
+        {
+            this.predicate = predicate;
+            this.processor = processor;
+        }
+
+        @Override
+        public Processor<X, Y> select(final X input)
+        {
+            return predicate.apply(input) ? processor : null;
+        }
+    }
+
+    private static final class IndexedSegment<X extends MessageProvider, Y extends MessageProvider>
+        implements Segment<X, Y>
+    {
+        private final Function<X, ?> function;
+        private final Map<Object, Processor<X, Y>> index;
+
+        private IndexedSegment(final Function<X, ?> function,
+            final Map<Object, Processor<X, Y>> index)
+        {
+            this.function = function;
+            this.index = ImmutableMap.copyOf(index);
+        }
+
+        @Override
+        public Processor<X, Y> select(final X input)
+        {
+            final Object key = function.apply(input);
+            return key == null ? null : index.get(key);
+        }
     }
 }
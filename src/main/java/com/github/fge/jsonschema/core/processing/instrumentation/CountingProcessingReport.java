@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing.instrumentation;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.CooperativeProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ProcessingReports;
+import com.google.common.base.Supplier;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Iterator;
+
+/**
+ * A report delegating to another report, counting messages along the way
+ *
+ * <p>Messages are counted whether or not the delegate report retains them,
+ * except for supplied messages, which are only counted if the delegate report
+ * would not discard them. Merged reports count for the number of messages they
+ * contain; if a merged report is itself a counting report, its count is used,
+ * otherwise the count is obtained from
+ * {@link ProcessingReports#size(ProcessingReport)}, which is done in constant
+ * time for list reports.</p>
+ */
+@NotThreadSafe
+final class CountingProcessingReport
+    implements CooperativeProcessingReport
+{
+    private final ProcessingReport delegate;
+    private long count = 0L;
+
+    CountingProcessingReport(final ProcessingReport delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    long getCount()
+    {
+        return count;
+    }
+
+    @Override
+    public LogLevel getLogLevel()
+    {
+        return delegate.getLogLevel();
+    }
+
+    @Override
+    public LogLevel getExceptionThreshold()
+    {
+        return delegate.getExceptionThreshold();
+    }
+
+    @Override
+    public boolean isEnabled(final LogLevel level)
+    {
+        return ProcessingReports.isEnabled(delegate, level);
+    }
+
+    @Override
+    public void debug(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        count++;
+        delegate.debug(message);
+    }
+
+    @Override
+    public void debug(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.DEBUG))
+            debug(supplier.get());
+    }
+
+    @Override
+    public void info(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        count++;
+        delegate.info(message);
+    }
+
+    @Override
+    public void info(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.INFO))
+            info(supplier.get());
+    }
+
+    @Override
+    public void warn(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        count++;
+        delegate.warn(message);
+    }
+
+    @Override
+    public void warn(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.WARNING))
+            warn(supplier.get());
+    }
+
+    @Override
+    public void error(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        count++;
+        delegate.error(message);
+    }
+
+    @Override
+    public void error(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.ERROR))
+            error(supplier.get());
+    }
+
+    @Override
+    public void fatal(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        count++;
+        delegate.fatal(message);
+    }
+
+    @Override
+    public void fatal(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.FATAL))
+            fatal(supplier.get());
+    }
+
+    @Override
+    public boolean isSuccess()
+    {
+        return delegate.isSuccess();
+    }
+
+    @Override
+    public boolean isSaturated()
+    {
+        return ProcessingReports.isSaturated(delegate);
+    }
+
+    @Override
+    public void mergeWith(final ProcessingReport other)
+        throws ProcessingException
+    {
+        count += other instanceof CountingProcessingReport
+            ? ((CountingProcessingReport) other).count
+            : ProcessingReports.size(other);
+        delegate.mergeWith(other);
+    }
+
+    @Override
+    public Iterator<ProcessingMessage> iterator()
+    {
+        return delegate.iterator();
+    }
+}
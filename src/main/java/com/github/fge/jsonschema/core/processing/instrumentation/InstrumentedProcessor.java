@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing.instrumentation;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.processing.Processor;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+
+/**
+ * A processor recording metrics about another processor
+ *
+ * @param <IN> input type of the processor
+ * @param <OUT> output type of the processor
+ *
+ * @see ProcessorInstrumentation#instrument(String, Processor)
+ */
+final class InstrumentedProcessor<IN extends MessageProvider, OUT extends MessageProvider>
+    implements Processor<IN, OUT>
+{
+    private final Processor<IN, OUT> processor;
+    private final ProcessorMetrics metrics;
+
+    InstrumentedProcessor(final Processor<IN, OUT> processor,
+        final ProcessorMetrics metrics)
+    {
+        this.processor = processor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public OUT process(final ProcessingReport report, final IN input)
+        throws ProcessingException
+    {
+        final CountingProcessingReport counting
+            = new CountingProcessingReport(report);
+        final long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            final OUT ret = processor.process(counting, input);
+            success = true;
+            return ret;
+        } finally {
+            metrics.record(System.nanoTime() - start, success);
+            metrics.addMessages(counting.getCount());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return processor.toString();
+    }
+}
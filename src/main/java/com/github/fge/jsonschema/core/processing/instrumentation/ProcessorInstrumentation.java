@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing.instrumentation;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.Processor;
+import com.github.fge.jsonschema.core.processing.ProcessorChain;
+import com.github.fge.jsonschema.core.processing.ProcessorMap;
+import com.github.fge.jsonschema.core.processing.ProcessorSelector;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry of processor metrics
+ *
+ * <p>Processors are instrumented under a name; all processors instrumented
+ * under the same name share the same {@link ProcessorMetrics}. When stages of
+ * a {@link ProcessorChain}, {@link ProcessorMap} or {@link ProcessorSelector}
+ * are instrumented, their name is the result of their {@code toString()}.</p>
+ *
+ * <p>Sample usage:</p>
+ *
+ * <pre>
+ *     final ProcessorInstrumentation instrumentation
+ *         = new ProcessorInstrumentation();
+ *     final Processor&lt;X, Y&gt; processor = ProcessorChain.startWith(p1)
+ *         .chainWith(p2).getProcessor(instrumentation);
+ *
+ *     // pull API
+ *     final ProcessorMetrics metrics = instrumentation.getMetrics("p1");
+ *     // or JMX
+ *     instrumentation.registerMBeans(
+ *         ManagementFactory.getPlatformMBeanServer(), "com.example");
+ * </pre>
+ *
+ * <p>Instrumentation is entirely opt-in: processors built without an instance
+ * of this class are not affected in any way.</p>
+ */
+@ThreadSafe
+public final class ProcessorInstrumentation
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final ConcurrentMap<String, ProcessorMetrics> metrics
+        = Maps.newConcurrentMap();
+
+    /**
+     * Instrument a processor
+     *
+     * <p>If the processor is already instrumented, it is returned as is.</p>
+     *
+     * @param name the name to record metrics under
+     * @param processor the processor
+     * @param <IN> input type of the processor
+     * @param <OUT> output type of the processor
+     * @return an instrumented processor
+     * @throws NullPointerException name or processor is null
+     */
+    public <IN extends MessageProvider, OUT extends MessageProvider>
+        Processor<IN, OUT> instrument(final String name,
+        final Processor<IN, OUT> processor)
+    {
+        BUNDLE.checkNotNull(name, "instrumentation.nullName");
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        if (processor instanceof InstrumentedProcessor)
+            return processor;
+        return new InstrumentedProcessor<IN, OUT>(processor,
+            metricsFor(name));
+    }
+
+    /**
+     * Instrument a processor, using its {@code toString()} as a name
+     *
+     * @param processor the processor
+     * @param <IN> input type of the processor
+     * @param <OUT> output type of the processor
+     * @return an instrumented processor
+     * @throws NullPointerException processor is null
+     * @see #instrument(String, Processor)
+     */
+    public <IN extends MessageProvider, OUT extends MessageProvider>
+        Processor<IN, OUT> instrument(final Processor<IN, OUT> processor)
+    {
+        BUNDLE.checkNotNull(processor, "processing.nullProcessor");
+        return instrument(processor.toString(), processor);
+    }
+
+    /**
+     * Return the metrics recorded under a given name
+     *
+     * @param name the name
+     * @return the metrics, or null if no processor was instrumented under this
+     * name
+     */
+    public ProcessorMetrics getMetrics(final String name)
+    {
+        return metrics.get(name);
+    }
+
+    /**
+     * Return all metrics of this registry
+     *
+     * @return an immutable map of metrics, indexed by processor name
+     */
+    public Map<String, ProcessorMetrics> getAllMetrics()
+    {
+        return ImmutableMap.copyOf(metrics);
+    }
+
+    /**
+     * Register all current metrics as MXBeans
+     *
+     * <p>Each {@link ProcessorMetrics} is registered with object name {@code
+     * domain:type=Processor,name="processorName"}. Processors instrumented
+     * after this method is called are not registered; call this method again
+     * to register them.</p>
+     *
+     * @param server the MBean server
+     * @param domain the JMX domain to use
+     * @throws JMException failed to register a bean
+     */
+    public void registerMBeans(final MBeanServer server, final String domain)
+        throws JMException
+    {
+        ObjectName objectName;
+        for (final ProcessorMetrics m: metrics.values()) {
+            objectName = objectName(domain, m.getName());
+            if (!server.isRegistered(objectName))
+                server.registerMBean(m, objectName);
+        }
+    }
+
+    /**
+     * Unregister all metrics of this registry from an MBean server
+     *
+     * @param server the MBean server
+     * @param domain the JMX domain used at registration time
+     * @throws JMException failed to unregister a bean
+     */
+    public void unregisterMBeans(final MBeanServer server, final String domain)
+        throws JMException
+    {
+        ObjectName objectName;
+        for (final String name: metrics.keySet()) {
+            objectName = objectName(domain, name);
+            if (server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+        }
+    }
+
+    private ProcessorMetrics metricsFor(final String name)
+    {
+        final ProcessorMetrics m = new ProcessorMetrics(name);
+        final ProcessorMetrics old = metrics.putIfAbsent(name, m);
+        return old == null ? m : old;
+    }
+
+    private static ObjectName objectName(final String domain,
+        final String name)
+        throws JMException
+    {
+        return new ObjectName(domain + ":type=Processor,name="
+            + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing.instrumentation;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of an instrumented processor
+ *
+ * <p>This class records, for one processor:</p>
+ *
+ * <ul>
+ *     <li>the number of invocations;</li>
+ *     <li>the number of failed invocations (ie, invocations which threw an
+ *     exception);</li>
+ *     <li>the number of messages emitted to the report;</li>
+ *     <li>the latency of invocations, as a total, a maximum and a histogram.
+ *     </li>
+ * </ul>
+ *
+ * <p>The histogram has 64 buckets; bucket {@code n} counts invocations whose
+ * latency in nanoseconds {@code t} is such that {@code 2^n <= t < 2^(n+1)}
+ * (bucket 0 also counts latencies of 0).</p>
+ *
+ * <p>Updates are lock free; reads are not atomic with regards to one another,
+ * which means a snapshot taken while invocations are in progress may be
+ * slightly inconsistent.</p>
+ *
+ * @see ProcessorInstrumentation
+ */
+@ThreadSafe
+public final class ProcessorMetrics
+    implements ProcessorMetricsMXBean
+{
+    private static final int BUCKETS = 64;
+
+    private final String name;
+
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    ProcessorMetrics(final String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Record one invocation
+     *
+     * @param nanos the latency of the invocation
+     * @param success true if the invocation did not throw an exception
+     */
+    void record(final long nanos, final boolean success)
+    {
+        final long latency = Math.max(nanos, 0L);
+
+        invocations.incrementAndGet();
+        if (!success)
+            failures.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        histogram.incrementAndGet(bucketOf(latency));
+
+        long max;
+        do {
+            max = maxLatency.get();
+        } while (latency > max && !maxLatency.compareAndSet(max, latency));
+    }
+
+    void addMessages(final long count)
+    {
+        messages.addAndGet(count);
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public long getInvocationCount()
+    {
+        return invocations.get();
+    }
+
+    @Override
+    public long getFailureCount()
+    {
+        return failures.get();
+    }
+
+    @Override
+    public long getMessageCount()
+    {
+        return messages.get();
+    }
+
+    @Override
+    public long getTotalLatencyNanos()
+    {
+        return totalLatency.get();
+    }
+
+    @Override
+    public long getMeanLatencyNanos()
+    {
+        final long count = invocations.get();
+        return count == 0L ? 0L : totalLatency.get() / count;
+    }
+
+    @Override
+    public long getMaxLatencyNanos()
+    {
+        return maxLatency.get();
+    }
+
+    @Override
+    public long getMedianLatencyNanos()
+    {
+        return getLatencyPercentileNanos(50.0);
+    }
+
+    @Override
+    public long get99thPercentileLatencyNanos()
+    {
+        return getLatencyPercentileNanos(99.0);
+    }
+
+    /**
+     * Return an approximation of a latency percentile
+     *
+     * <p>The returned value is the upper bound of the histogram bucket
+     * containing the percentile, capped by the maximum recorded latency.</p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in nanoseconds (0 if no invocation was recorded)
+     */
+    public long getLatencyPercentileNanos(final double percentile)
+    {
+        final long[] counts = getLatencyHistogram();
+        long total = 0L;
+        for (final long count: counts)
+            total += count;
+        if (total == 0L)
+            return 0L;
+
+        final long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), maxLatency.get());
+        }
+        return maxLatency.get();
+    }
+
+    @Override
+    public long[] getLatencyHistogram()
+    {
+        final long[] ret = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            ret[i] = histogram.get(i);
+        return ret;
+    }
+
+    @Override
+    public void reset()
+    {
+        invocations.set(0L);
+        failures.set(0L);
+        messages.set(0L);
+        totalLatency.set(0L);
+        maxLatency.set(0L);
+        for (int i = 0; i < BUCKETS; i++)
+            histogram.set(i, 0L);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + ": " + invocations.get() + " invocations, "
+            + failures.get() + " failures, " + messages.get() + " messages, "
+            + "mean " + getMeanLatencyNanos() + " ns, p99 "
+            + get99thPercentileLatencyNanos() + " ns";
+    }
+
+    private static int bucketOf(final long nanos)
+    {
+        return nanos == 0L ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long upperBound(final int bucket)
+    {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE
+            : (1L << (bucket + 1)) - 1L;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing.instrumentation;
+
+/**
+ * JMX view of {@link ProcessorMetrics}
+ *
+ * <p>All durations are expressed in nanoseconds. Percentiles are computed from
+ * a histogram with power-of-two buckets, and are therefore approximations by
+ * excess (at most by a factor of two).</p>
+ */
+public interface ProcessorMetricsMXBean
+{
+    String getName();
+
+    long getInvocationCount();
+
+    long getFailureCount();
+
+    long getMessageCount();
+
+    long getTotalLatencyNanos();
+
+    long getMeanLatencyNanos();
+
+    long getMaxLatencyNanos();
+
+    long getMedianLatencyNanos();
+
+    long get99thPercentileLatencyNanos();
+
+    long[] getLatencyHistogram();
+
+    void reset();
+}
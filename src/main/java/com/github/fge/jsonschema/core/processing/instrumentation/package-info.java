@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+/**
+ * Opt-in instrumentation of processors
+ *
+ * <p>The central class of this package is {@link
+ * com.github.fge.jsonschema.core.processing.instrumentation.ProcessorInstrumentation}:
+ * it wraps processors so that their invocation count, failure count, number of
+ * emitted messages and latency distribution are recorded. Processor chains,
+ * maps and selectors can instrument all their stages at once.</p>
+ *
+ * <p>Metrics can be read directly, or exposed as JMX MXBeans.</p>
+ */
+package com.github.fge.jsonschema.core.processing.instrumentation;
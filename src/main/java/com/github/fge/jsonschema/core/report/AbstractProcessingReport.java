@@ -20,11 +20,13 @@
 package com.github.fge.jsonschema.core.report;
 
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base implementation of a processing report
@@ -34,14 +36,20 @@ import java.util.List;
  * ProcessingMessage)}, which will implement the actual logging of the message.
  * When entering this method, the message's log level will already have been set
  * correctly.</p>
+ *
+ * <p>The status of the report (see {@link #isSuccess()}) is tracked
+ * atomically, so that it remains accurate if messages are logged by several
+ * threads; whether the report as a whole is thread safe depends on the
+ * implementation of {@link #log(LogLevel, ProcessingMessage)}.</p>
  */
 public abstract class AbstractProcessingReport
-    implements ProcessingReport
+    implements CooperativeProcessingReport
 {
     /**
      * The highest log level seen so far
      */
-    private LogLevel currentLevel = LogLevel.DEBUG;
+    private final AtomicReference<LogLevel> currentLevel
+        = new AtomicReference<LogLevel>(LogLevel.DEBUG);
 
     /**
      * The log threshold
@@ -103,6 +111,14 @@ public abstract class AbstractProcessingReport
         return exceptionThreshold;
     }
 
+    @Override
+    public final boolean isEnabled(final LogLevel level)
+    {
+        return level.compareTo(LogLevel.ERROR) >= 0
+            || level.compareTo(logLevel) >= 0
+            || level.compareTo(exceptionThreshold) >= 0;
+    }
+
     @Override
     public final void debug(final ProcessingMessage message)
         throws ProcessingException
@@ -110,6 +126,14 @@ public abstract class AbstractProcessingReport
         dispatch(message.setLogLevel(LogLevel.DEBUG));
     }
 
+    @Override
+    public final void debug(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.DEBUG))
+            debug(supplier.get());
+    }
+
     @Override
     public final void info(final ProcessingMessage message)
         throws ProcessingException
@@ -117,6 +141,14 @@ public abstract class AbstractProcessingReport
         dispatch(message.setLogLevel(LogLevel.INFO));
     }
 
+    @Override
+    public final void info(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.INFO))
+            info(supplier.get());
+    }
+
     @Override
     public final void warn(final ProcessingMessage message)
         throws ProcessingException
@@ -124,6 +156,14 @@ public abstract class AbstractProcessingReport
         dispatch(message.setLogLevel(LogLevel.WARNING));
     }
 
+    @Override
+    public final void warn(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.WARNING))
+            warn(supplier.get());
+    }
+
     @Override
     public final void error(final ProcessingMessage message)
         throws ProcessingException
@@ -131,6 +171,14 @@ public abstract class AbstractProcessingReport
         dispatch(message.setLogLevel(LogLevel.ERROR));
     }
 
+    @Override
+    public final void error(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.ERROR))
+            error(supplier.get());
+    }
+
     @Override
     public final void fatal(final ProcessingMessage message)
         throws ProcessingException
@@ -138,10 +186,32 @@ public abstract class AbstractProcessingReport
         dispatch(message.setLogLevel(LogLevel.FATAL));
     }
 
+    @Override
+    public final void fatal(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.FATAL))
+            fatal(supplier.get());
+    }
+
     @Override
     public final boolean isSuccess()
     {
-        return currentLevel.compareTo(LogLevel.ERROR) < 0;
+        return currentLevel.get().compareTo(LogLevel.ERROR) < 0;
+    }
+
+    /**
+     * Tell whether this report has collected enough errors
+     *
+     * <p>This implementation always returns {@code false}; override it if
+     * needed.</p>
+     *
+     * @return false
+     */
+    @Override
+    public boolean isSaturated()
+    {
+        return false;
     }
 
     /**
@@ -174,12 +244,42 @@ public abstract class AbstractProcessingReport
 
         if (level.compareTo(exceptionThreshold) >= 0)
             throw message.asException();
-        if (level.compareTo(currentLevel) > 0)
-            currentLevel = level;
+        raiseLevel(level);
         if (level.compareTo(logLevel) >= 0)
             log(level, message);
     }
 
+    /**
+     * Raise the highest level seen so far, if needed
+     *
+     * @param level the level of a message
+     */
+    final void raiseLevel(final LogLevel level)
+    {
+        LogLevel current;
+        do {
+            current = currentLevel.get();
+            if (level.compareTo(current) <= 0)
+                return;
+        } while (!currentLevel.compareAndSet(current, level));
+    }
+
+    /**
+     * Append all messages of a list report at once
+     *
+     * <p>This is called when merging a {@link ListProcessingReport} into this
+     * report. If this method returns {@code true}, the status of this report
+     * must have been updated according to the appended messages; if it
+     * returns {@code false}, messages are dispatched one by one instead.</p>
+     *
+     * @param other the other report
+     * @return true if messages were appended
+     */
+    boolean appendMessages(final ListProcessingReport other)
+    {
+        return false;
+    }
+
     @Override
     public Iterator<ProcessingMessage> iterator()
     {
@@ -194,8 +294,11 @@ public abstract class AbstractProcessingReport
          * The other report may have no messages, and as such the successful
          * status won't be overriden: we have to do that instead
          */
-        if (!other.isSuccess() && currentLevel.compareTo(LogLevel.ERROR) < 0)
-            currentLevel = LogLevel.ERROR;
+        if (!other.isSuccess())
+            raiseLevel(LogLevel.ERROR);
+        if (other instanceof ListProcessingReport
+            && appendMessages((ListProcessingReport) other))
+            return;
         for (final ProcessingMessage message: other)
             dispatch(message);
     }
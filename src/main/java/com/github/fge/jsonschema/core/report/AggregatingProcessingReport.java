@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.util.AsJson;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Objects;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A processing report grouping identical messages together
+ *
+ * <p>Messages are grouped by log level, domain, keyword and message text; for
+ * each group, this report only retains the number of messages, and the first
+ * messages of the group up to a given sample size. Its memory usage therefore
+ * depends on the number of distinct problems rather than on the number of
+ * messages.</p>
+ *
+ * <p>The message text used for grouping is the message as it was set, before
+ * arguments are formatted into it; logging a lazy message to this report
+ * therefore does not build it. As such, {@code "found %s"} with arguments
+ * {@code 1} and {@code 2} are part of the same group.</p>
+ *
+ * <p>Iterating over this report yields the retained sample messages, group
+ * by group, in the order groups were first seen. The JSON representation of
+ * this report (see {@link #asJson()}) is an array with one object per group,
+ * with members {@code level}, {@code domain}, {@code keyword}, {@code
+ * message}, {@code count} and {@code samples}; members {@code domain} and
+ * {@code keyword} are absent if messages of the group have no such key.</p>
+ */
+@NotThreadSafe
+public final class AggregatingProcessingReport
+    extends AbstractProcessingReport
+    implements AsJson
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    /**
+     * Default number of sample messages retained per group
+     */
+    private static final int DEFAULT_SAMPLE_SIZE = 5;
+
+    private final int sampleSize;
+
+    private final Map<GroupKey, Group> groups = Maps.newLinkedHashMap();
+
+    /**
+     * Main constructor
+     *
+     * @param logLevel the log threshold
+     * @param exceptionThreshold the exception threshold
+     * @param sampleSize the number of messages to retain per group
+     * @throws IllegalArgumentException sample size is negative
+     */
+    public AggregatingProcessingReport(final LogLevel logLevel,
+        final LogLevel exceptionThreshold, final int sampleSize)
+    {
+        super(logLevel, exceptionThreshold);
+        BUNDLE.checkArgument(sampleSize >= 0, "report.negativeSampleSize");
+        this.sampleSize = sampleSize;
+    }
+
+    public AggregatingProcessingReport(final LogLevel logLevel,
+        final LogLevel exceptionThreshold)
+    {
+        this(logLevel, exceptionThreshold, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public AggregatingProcessingReport(final LogLevel logLevel)
+    {
+        this(logLevel, LogLevel.FATAL, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public AggregatingProcessingReport()
+    {
+        this(LogLevel.INFO, LogLevel.FATAL, DEFAULT_SAMPLE_SIZE);
+    }
+
+    @Override
+    public void log(final LogLevel level, final ProcessingMessage message)
+    {
+        final GroupKey key = new GroupKey(level, message.getText("domain"),
+            message.getText("keyword"), message.getTemplate());
+        Group group = groups.get(key);
+        if (group == null) {
+            group = new Group();
+            groups.put(key, group);
+        }
+        group.count++;
+        if (group.samples.size() < sampleSize)
+            group.samples.add(message);
+    }
+
+    /**
+     * Return the number of distinct groups of messages
+     *
+     * @return the number of groups
+     */
+    public int getGroupCount()
+    {
+        return groups.size();
+    }
+
+    @Override
+    public JsonNode asJson()
+    {
+        final ArrayNode ret = FACTORY.arrayNode();
+        GroupKey key;
+        Group group;
+        ObjectNode node;
+        ArrayNode samples;
+
+        for (final Map.Entry<GroupKey, Group> entry: groups.entrySet()) {
+            key = entry.getKey();
+            group = entry.getValue();
+            node = FACTORY.objectNode();
+            node.put("level", key.level.toString());
+            if (key.domain != null)
+                node.put("domain", key.domain);
+            if (key.keyword != null)
+                node.put("keyword", key.keyword);
+            node.put("message", key.message);
+            node.put("count", group.count);
+            samples = FACTORY.arrayNode();
+            for (final ProcessingMessage message: group.samples)
+                samples.add(message.asJson());
+            node.put("samples", samples);
+            ret.add(node);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public Iterator<ProcessingMessage> iterator()
+    {
+        final List<Iterator<ProcessingMessage>> list = Lists.newArrayList();
+        for (final Group group: groups.values())
+            list.add(group.samples.iterator());
+        return Iterators.unmodifiableIterator(
+            Iterators.concat(list.iterator()));
+    }
+
+    private static final class GroupKey
+    {
+        private final LogLevel level;
+        private final String domain;
+        private final String keyword;
+        private final String message;
+
+        private GroupKey(final LogLevel level, final String domain,
+            final String keyword, final String message)
+        {
+            this.level = level;
+            this.domain = domain;
+            this.keyword = keyword;
+            this.message = message;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(level, domain, keyword, message);
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (obj == null)
+                return false;
+            if (this == obj)
+                return true;
+            if (getClass() != obj.getClass())
+                return false;
+            final GroupKey other = (GroupKey) obj;
+            return level == other.level
+                && Objects.equal(domain, other.domain)
+                && Objects.equal(keyword, other.keyword)
+                && Objects.equal(message, other.message);
+        }
+    }
+
+    private static final class Group
+    {
+        private long count = 0L;
+        private final List<ProcessingMessage> samples = Lists.newArrayList();
+    }
+}
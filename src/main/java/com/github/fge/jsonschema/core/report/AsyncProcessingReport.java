@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A processing report handing its messages over to a background thread
+ *
+ * <p>Logged messages are put into a bounded ring buffer, without locking; a
+ * background thread drains this buffer and writes messages to a {@link
+ * MessageSink}. Logging threads therefore never wait for I/O, unless the
+ * buffer is full: what happens then depends on the {@link OverflowPolicy}.
+ * </p>
+ *
+ * <p>The background thread parks while the buffer is empty, and is woken up
+ * by the next logged message; threads waiting for room in the buffer, or for
+ * messages to be flushed, park until the background thread makes progress.
+ * </p>
+ *
+ * <p>The sink is flushed each time the buffer is found empty; {@link #flush()}
+ * waits until all messages logged before the call are written and flushed.
+ * {@link #close()} writes all pending messages, stops the background thread
+ * and closes the sink. Messages logged after the report is closed are
+ * dropped.</p>
+ *
+ * <p>If the sink throws an {@link IOException}, all further messages are
+ * dropped, and this exception is thrown by the next call to {@link #flush()}
+ * or {@link #close()}.</p>
+ *
+ * <p>As the sink is the only destination of messages, iterating over this
+ * report yields no messages.</p>
+ */
+@ThreadSafe
+public final class AsyncProcessingReport
+    extends AbstractProcessingReport
+    implements Closeable, Flushable
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Out of how many overflowing messages one is kept with {@link
+     * OverflowPolicy#SAMPLE}
+     */
+    private static final int SAMPLE_RATE = 64;
+
+    /**
+     * Value of the tail once the background thread has stopped draining
+     *
+     * <p>No message can be put into the buffer from then on, since the buffer
+     * always looks full.</p>
+     */
+    private static final long CLOSED_TAIL = Long.MAX_VALUE;
+
+    /**
+     * Policy to apply when a message is logged while the buffer is full
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Wait until the background thread makes room for the message
+         */
+        BLOCK,
+        /**
+         * Drop the message
+         */
+        DROP,
+        /**
+         * Drop overflowing messages, except one out of every 64, for which
+         * the logging thread waits until there is room
+         */
+        SAMPLE,
+    }
+
+    private final MessageSink sink;
+    private final OverflowPolicy policy;
+
+    private final AtomicReferenceArray<ProcessingMessage> buffer;
+    private final int mask;
+
+    /**
+     * Sequence number of the next message to be logged
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Sequence number of the next message to be drained
+     */
+    private volatile long head = 0L;
+
+    /**
+     * Number of messages written and flushed to the sink
+     */
+    private volatile long flushed = 0L;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Whether the background thread may park; logging threads unpark it
+     */
+    private volatile boolean idle = false;
+
+    /**
+     * Whether the background thread has stopped
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Threads parked until the background thread makes progress
+     */
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+    private volatile IOException ioException = null;
+
+    private final Thread drainer;
+
+    /**
+     * Main constructor
+     *
+     * @param sink the message sink
+     * @param capacity the capacity of the buffer (rounded up to a power of
+     * two)
+     * @param policy the overflow policy
+     * @param logLevel the log threshold
+     * @param exceptionThreshold the exception threshold
+     * @throws NullPointerException sink or policy is null
+     * @throws IllegalArgumentException capacity is not strictly positive
+     */
+    public AsyncProcessingReport(final MessageSink sink, final int capacity,
+        final OverflowPolicy policy, final LogLevel logLevel,
+        final LogLevel exceptionThreshold)
+    {
+        super(logLevel, exceptionThreshold);
+        BUNDLE.checkNotNull(sink, "report.nullSink");
+        BUNDLE.checkNotNull(policy, "report.nullOverflowPolicy");
+        BUNDLE.checkArgument(capacity > 0, "processing.illegalCapacity");
+        this.sink = sink;
+        this.policy = policy;
+        final int size = Integer.highestOneBit(capacity) == capacity
+            ? capacity : Integer.highestOneBit(capacity) << 1;
+        buffer = new AtomicReferenceArray<ProcessingMessage>(size);
+        mask = size - 1;
+        drainer = new Thread(new Drainer(), "processing-report-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    public AsyncProcessingReport(final MessageSink sink, final int capacity,
+        final OverflowPolicy policy, final LogLevel logLevel)
+    {
+        this(sink, capacity, policy, logLevel, LogLevel.FATAL);
+    }
+
+    public AsyncProcessingReport(final MessageSink sink)
+    {
+        this(sink, DEFAULT_CAPACITY, OverflowPolicy.BLOCK, LogLevel.INFO,
+            LogLevel.FATAL);
+    }
+
+    @Override
+    public void log(final LogLevel level, final ProcessingMessage message)
+    {
+        if (closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        if (!offer(message) && !handleOverflow(message))
+            dropped.incrementAndGet();
+
+        if (idle)
+            LockSupport.unpark(drainer);
+    }
+
+    /**
+     * Return the number of messages dropped so far
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedCount()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Wait until all messages logged so far are written and flushed
+     *
+     * @throws IOException the sink failed to write or flush messages
+     * @throws InterruptedIOException interrupted while waiting
+     */
+    @Override
+    public void flush()
+        throws IOException
+    {
+        final long target = tail.get();
+        final Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            while (flushed < target && !stopped) {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new InterruptedIOException();
+            }
+        } finally {
+            waiters.remove(current);
+        }
+        checkIOException();
+    }
+
+    /**
+     * Write all pending messages, stop the background thread and close the
+     * sink
+     *
+     * @throws IOException the sink failed to write, flush or close
+     * @throws InterruptedIOException interrupted while waiting
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if (closed)
+            return;
+        closed = true;
+        LockSupport.unpark(drainer);
+        unparkWaiters();
+        try {
+            drainer.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        try {
+            checkIOException();
+        } finally {
+            sink.close();
+        }
+    }
+
+    private boolean offer(final ProcessingMessage message)
+    {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head > mask)
+                return false;
+        } while (!tail.compareAndSet(t, t + 1));
+        buffer.lazySet((int) t & mask, message);
+        return true;
+    }
+
+    private boolean handleOverflow(final ProcessingMessage message)
+    {
+        switch (policy) {
+            case DROP:
+                return false;
+            case SAMPLE:
+                return overflows.getAndIncrement() % SAMPLE_RATE == 0
+                    && awaitOffer(message);
+            default:
+                return awaitOffer(message);
+        }
+    }
+
+    /**
+     * Park until a message can be put into the buffer
+     *
+     * <p>The interrupt status of the current thread is cleared while waiting,
+     * so as not to spin, and restored afterwards.</p>
+     *
+     * @param message the message
+     * @return false if the report was closed or the background thread stopped
+     * while waiting
+     */
+    private boolean awaitOffer(final ProcessingMessage message)
+    {
+        final Thread current = Thread.currentThread();
+        boolean interrupted = false;
+        waiters.add(current);
+        try {
+            while (!offer(message)) {
+                if (closed || stopped)
+                    return false;
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    interrupted = true;
+            }
+            return true;
+        } finally {
+            waiters.remove(current);
+            if (interrupted)
+                current.interrupt();
+        }
+    }
+
+    private void unparkWaiters()
+    {
+        for (final Thread thread: waiters)
+            LockSupport.unpark(thread);
+    }
+
+    private void checkIOException()
+        throws IOException
+    {
+        final IOException e = ioException;
+        if (e != null)
+            throw e;
+    }
+
+    private final class Drainer
+        implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            try {
+                drain();
+            } finally {
+                stopped = true;
+                unparkWaiters();
+            }
+        }
+
+        private void drain()
+        {
+            ProcessingMessage message;
+            int index;
+            long h;
+
+            while (true) {
+                h = head;
+                index = (int) h & mask;
+                message = buffer.get(index);
+                if (message != null) {
+                    buffer.lazySet(index, null);
+                    head = h + 1;
+                    if (!waiters.isEmpty())
+                        unparkWaiters();
+                    write(message);
+                    continue;
+                }
+                /*
+                 * A logging thread has claimed a slot without filling it yet
+                 */
+                if (h != tail.get()) {
+                    Thread.yield();
+                    continue;
+                }
+                doFlush(h);
+                /*
+                 * A logging thread may have seen the report open, and be about
+                 * to put a message into the buffer: closing the tail makes
+                 * sure that the message is either drained, if the tail has
+                 * moved, or counted as dropped
+                 */
+                if (closed && tail.compareAndSet(h, CLOSED_TAIL))
+                    return;
+                /*
+                 * Logging threads increment the tail before reading the idle
+                 * flag: either the tail is seen to have moved below, or the
+                 * logging thread sees the flag and unparks this thread
+                 */
+                idle = true;
+                if (head == tail.get() && !closed)
+                    LockSupport.park(this);
+                idle = false;
+            }
+        }
+
+        private void write(final ProcessingMessage message)
+        {
+            if (ioException != null)
+                return;
+            try {
+                sink.write(message.getLogLevel(), message);
+            } catch (IOException e) {
+                ioException = e;
+            }
+        }
+
+        private void doFlush(final long count)
+        {
+            if (flushed == count)
+                return;
+            if (ioException == null)
+                try {
+                    sink.flush();
+                } catch (IOException e) {
+                    ioException = e;
+                }
+            flushed = count;
+            unparkWaiters();
+        }
+    }
+}
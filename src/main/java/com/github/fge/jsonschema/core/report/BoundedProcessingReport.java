@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Supplier;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A report which becomes saturated after a given number of errors
+ *
+ * <p>This report delegates all operations to another report, counting the
+ * messages with level {@link LogLevel#ERROR} or higher along the way. Once
+ * the maximum number of errors is reached, {@link #isSaturated()} returns
+ * {@code true}, which tells producers of messages (for instance, the {@link
+ * com.github.fge.jsonschema.core.keyword.syntax.SyntaxProcessor syntax
+ * processor}) that they can stop processing.</p>
+ *
+ * <p>Sample usage, to stop at the first error:</p>
+ *
+ * <pre>
+ *     final ProcessingReport report
+ *         = new BoundedProcessingReport(new ListProcessingReport(), 1);
+ * </pre>
+ *
+ * <p>This class is thread safe if the underlying report is.</p>
+ */
+public final class BoundedProcessingReport
+    implements CooperativeProcessingReport
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final ProcessingReport delegate;
+    private final int maxErrors;
+    private final AtomicInteger errors = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param delegate the underlying report
+     * @param maxErrors the number of errors after which the report is
+     * saturated
+     * @throws NullPointerException report is null
+     * @throws IllegalArgumentException maximum number of errors is not
+     * strictly positive
+     */
+    public BoundedProcessingReport(final ProcessingReport delegate,
+        final int maxErrors)
+    {
+        BUNDLE.checkNotNull(delegate, "processing.nullReport");
+        BUNDLE.checkArgument(maxErrors > 0, "report.illegalMaxErrors");
+        this.delegate = delegate;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Return the number of errors seen so far
+     *
+     * @return the number of errors
+     */
+    public int getErrorCount()
+    {
+        return errors.get();
+    }
+
+    @Override
+    public LogLevel getLogLevel()
+    {
+        return delegate.getLogLevel();
+    }
+
+    @Override
+    public LogLevel getExceptionThreshold()
+    {
+        return delegate.getExceptionThreshold();
+    }
+
+    @Override
+    public boolean isEnabled(final LogLevel level)
+    {
+        return ProcessingReports.isEnabled(delegate, level);
+    }
+
+    @Override
+    public void debug(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        delegate.debug(message);
+    }
+
+    @Override
+    public void debug(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.DEBUG))
+            debug(supplier.get());
+    }
+
+    @Override
+    public void info(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        delegate.info(message);
+    }
+
+    @Override
+    public void info(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.INFO))
+            info(supplier.get());
+    }
+
+    @Override
+    public void warn(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        delegate.warn(message);
+    }
+
+    @Override
+    public void warn(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.WARNING))
+            warn(supplier.get());
+    }
+
+    @Override
+    public void error(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        errors.incrementAndGet();
+        delegate.error(message);
+    }
+
+    @Override
+    public void error(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.ERROR))
+            error(supplier.get());
+    }
+
+    @Override
+    public void fatal(final ProcessingMessage message)
+        throws ProcessingException
+    {
+        errors.incrementAndGet();
+        delegate.fatal(message);
+    }
+
+    @Override
+    public void fatal(final Supplier<ProcessingMessage> supplier)
+        throws ProcessingException
+    {
+        if (isEnabled(LogLevel.FATAL))
+            fatal(supplier.get());
+    }
+
+    @Override
+    public boolean isSuccess()
+    {
+        return delegate.isSuccess();
+    }
+
+    @Override
+    public boolean isSaturated()
+    {
+        return errors.get() >= maxErrors
+            || ProcessingReports.isSaturated(delegate);
+    }
+
+    /**
+     * Merge another report into this report
+     *
+     * <p>Errors of the other report count towards the maximum number of
+     * errors; an unsuccessful report with no error messages counts as one
+     * error.</p>
+     *
+     * @param other the other report
+     * @throws ProcessingException see {@link ProcessingReport#mergeWith(
+     * ProcessingReport)}
+     */
+    @Override
+    public void mergeWith(final ProcessingReport other)
+        throws ProcessingException
+    {
+        int count = 0;
+        for (final ProcessingMessage message: other)
+            if (message.getLogLevel().compareTo(LogLevel.ERROR) >= 0)
+                count++;
+        if (count == 0 && !other.isSuccess())
+            count = 1;
+        errors.addAndGet(count);
+        delegate.mergeWith(other);
+    }
+
+    @Override
+    public Iterator<ProcessingMessage> iterator()
+    {
+        return delegate.iterator();
+    }
+
+    @Override
+    public String toString()
+    {
+        return delegate.toString();
+    }
+}
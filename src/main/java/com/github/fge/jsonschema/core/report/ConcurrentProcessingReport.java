@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.util.AsJson;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A processing report which can be shared by several threads
+ *
+ * <p>Each thread logging to this report appends its messages to a segment of
+ * its own, without locking; iterating over the report yields the messages of
+ * all segments, one segment after the other. As such, the messages of a given
+ * thread appear in the order they were logged, but messages logged by
+ * different threads may appear in any order relatively to one another.</p>
+ *
+ * <p>Iterators reflect the messages logged at the time they are created.</p>
+ *
+ * <p>Note that {@link ProcessingMessage} itself is not thread safe: a message
+ * must not be modified once logged, and must not be read by several threads
+ * at the same time.</p>
+ */
+@ThreadSafe
+public final class ConcurrentProcessingReport
+    extends AbstractProcessingReport
+    implements AsJson
+{
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * All segments of this report, in order of creation
+     */
+    private final Queue<Segment> segments
+        = new ConcurrentLinkedQueue<Segment>();
+
+    /**
+     * Segments of this report, by the id of their writing thread
+     *
+     * <p>This map is owned by the report, unlike a {@link ThreadLocal}, so
+     * that segments do not outlive the report in pooled threads. A segment
+     * is only ever created, and written, by the thread with this id.</p>
+     */
+    private final ConcurrentMap<Long, Segment> segmentsByThread
+        = new ConcurrentHashMap<Long, Segment>();
+
+    public ConcurrentProcessingReport(final LogLevel logLevel,
+        final LogLevel exceptionThreshold)
+    {
+        super(logLevel, exceptionThreshold);
+    }
+
+    public ConcurrentProcessingReport(final LogLevel logLevel)
+    {
+        super(logLevel);
+    }
+
+    public ConcurrentProcessingReport()
+    {
+    }
+
+    public ConcurrentProcessingReport(final ProcessingReport other)
+    {
+        this(other.getLogLevel(), other.getExceptionThreshold());
+    }
+
+    @Override
+    public void log(final LogLevel level, final ProcessingMessage message)
+    {
+        final Long id = Thread.currentThread().getId();
+        Segment segment = segmentsByThread.get(id);
+        if (segment == null) {
+            segment = new Segment();
+            segmentsByThread.put(id, segment);
+            segments.add(segment);
+        }
+        segment.add(message);
+    }
+
+    @Override
+    public JsonNode asJson()
+    {
+        final ArrayNode ret = FACTORY.arrayNode();
+        for (final ProcessingMessage message: this)
+            ret.add(message.asJson());
+        return ret;
+    }
+
+    @Override
+    public Iterator<ProcessingMessage> iterator()
+    {
+        final List<Iterator<ProcessingMessage>> list = Lists.newArrayList();
+        for (final Segment s: segments)
+            list.add(s.snapshot());
+        return Iterators.concat(list.iterator());
+    }
+
+    /**
+     * An append only list of messages, with a single writer
+     *
+     * <p>The writer publishes new messages by writing the volatile size after
+     * the element (and, when growing, after the new array); a reader which has
+     * read the size and then the array is therefore guaranteed to see all
+     * elements up to that size.</p>
+     */
+    private static final class Segment
+    {
+        private volatile ProcessingMessage[] messages
+            = new ProcessingMessage[INITIAL_CAPACITY];
+        private volatile int size = 0;
+
+        /**
+         * Append a message; only called by the thread owning the segment
+         *
+         * @param message the message
+         */
+        private void add(final ProcessingMessage message)
+        {
+            final int index = size;
+            ProcessingMessage[] array = messages;
+            if (index == array.length) {
+                array = Arrays.copyOf(array, index * 2);
+                messages = array;
+            }
+            array[index] = message;
+            size = index + 1;
+        }
+
+        private Iterator<ProcessingMessage> snapshot()
+        {
+            final int n = size;
+            final ProcessingMessage[] array = messages;
+            return Iterators.limit(Iterators.forArray(array), n);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.base.Supplier;
+
+/**
+ * A processing report cooperating with producers of messages
+ *
+ * <p>In addition to the methods of {@link ProcessingReport}, such a report can
+ * tell producers of messages whether a message of a given level is worth
+ * building at all, accepts messages supplied on demand, and can tell
+ * producers that they may stop processing altogether.</p>
+ *
+ * <p>These methods are kept out of {@link ProcessingReport} so that existing
+ * implementations of that interface still compile. {@link
+ * AbstractProcessingReport} implements this interface; code which only has a
+ * {@link ProcessingReport} at hand should use the static methods of {@link
+ * ProcessingReports}.</p>
+ */
+public interface CooperativeProcessingReport
+    extends ProcessingReport
+{
+    /**
+     * Tell whether a message with a given log level has any effect on this
+     * report
+     *
+     * <p>A message has an effect if it is logged, if it raises an exception,
+     * or if it alters the successful status of the report; in practice, this
+     * means that this method always returns {@code true} for levels {@link
+     * LogLevel#ERROR} and higher.</p>
+     *
+     * @param level the log level
+     * @return true if a message with this level would not be discarded
+     * @see #getLogLevel()
+     * @see #getExceptionThreshold()
+     */
+    boolean isEnabled(LogLevel level);
+
+    /**
+     * Log a message supplied on demand with a level of {@link LogLevel#DEBUG}
+     *
+     * <p>The supplier is not called if {@link #isEnabled(LogLevel)} returns
+     * {@code false} for this level.</p>
+     *
+     * @param supplier the message supplier
+     * @throws ProcessingException the level of this message grants that an
+     * exception is thrown instead
+     * @see #debug(ProcessingMessage)
+     */
+    void debug(Supplier<ProcessingMessage> supplier)
+        throws ProcessingException;
+
+    /**
+     * Log a message supplied on demand with a level of {@link LogLevel#INFO}
+     *
+     * <p>The supplier is not called if {@link #isEnabled(LogLevel)} returns
+     * {@code false} for this level.</p>
+     *
+     * @param supplier the message supplier
+     * @throws ProcessingException the level of this message grants that an
+     * exception is thrown instead
+     * @see #info(ProcessingMessage)
+     */
+    void info(Supplier<ProcessingMessage> supplier)
+        throws ProcessingException;
+
+    /**
+     * Log a message supplied on demand with a level of {@link LogLevel#WARNING}
+     *
+     * <p>The supplier is not called if {@link #isEnabled(LogLevel)} returns
+     * {@code false} for this level.</p>
+     *
+     * @param supplier the message supplier
+     * @throws ProcessingException the level of this message grants that an
+     * exception is thrown instead
+     * @see #warn(ProcessingMessage)
+     */
+    void warn(Supplier<ProcessingMessage> supplier)
+        throws ProcessingException;
+
+    /**
+     * Log a message supplied on demand with a level of {@link LogLevel#ERROR}
+     *
+     * <p>The supplier is not called if {@link #isEnabled(LogLevel)} returns
+     * {@code false} for this level.</p>
+     *
+     * @param supplier the message supplier
+     * @throws ProcessingException the level of this message grants that an
+     * exception is thrown instead
+     * @see #error(ProcessingMessage)
+     */
+    void error(Supplier<ProcessingMessage> supplier)
+        throws ProcessingException;
+
+    /**
+     * Log a message supplied on demand with a level of {@link LogLevel#FATAL}
+     *
+     * <p>The supplier is not called if {@link #isEnabled(LogLevel)} returns
+     * {@code false} for this level.</p>
+     *
+     * @param supplier the message supplier
+     * @throws ProcessingException the level of this message grants that an
+     * exception is thrown instead
+     * @see #fatal(ProcessingMessage)
+     */
+    void fatal(Supplier<ProcessingMessage> supplier)
+        throws ProcessingException;
+
+    /**
+     * Tell whether this report has collected enough errors
+     *
+     * <p>This is a cooperative signal: producers of messages may check it in
+     * order to stop processing early, since any further error would be of no
+     * use to the caller. It does not prevent further messages from being
+     * logged.</p>
+     *
+     * @return true if producers may stop processing
+     * @see BoundedProcessingReport
+     */
+    boolean isSaturated();
+}
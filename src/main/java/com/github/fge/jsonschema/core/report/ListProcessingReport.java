@@ -25,13 +25,18 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.github.fge.jackson.JacksonUtils;
 import com.github.fge.jsonschema.core.util.AsJson;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Lists;
 
 import java.util.Iterator;
-import java.util.List;
 
 /**
- * {@link List}-based implementation of a {@link ProcessingReport}
+ * List-based implementation of a {@link ProcessingReport}
+ *
+ * <p>Messages are stored in an immutable, persistent sequence: merging another
+ * list report into this one appends a reference to the messages of the other
+ * report, without copying them, unless one of these messages reaches the
+ * exception threshold of this report. Messages of the other report with a
+ * level lower than the log threshold of either report are filtered out when
+ * iterating.</p>
  */
 public final class ListProcessingReport
     extends AbstractProcessingReport
@@ -39,7 +44,32 @@ public final class ListProcessingReport
 {
     private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
 
-    private final List<ProcessingMessage> messages = Lists.newArrayList();
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final ProcessingMessage[] NO_MESSAGES
+        = new ProcessingMessage[0];
+
+    /**
+     * Messages up to the last merge; null if none
+     */
+    private MessageSequence head = null;
+
+    /**
+     * Array of messages logged since the last merge
+     *
+     * <p>Elements before {@link #tailStart} may be shared with other sequences
+     * and must not be modified.</p>
+     */
+    private ProcessingMessage[] tail = NO_MESSAGES;
+
+    private int tailStart = 0;
+
+    private int tailSize = 0;
+
+    /**
+     * Number of messages logged since the last merge, for each level
+     */
+    private int[] tailCounts = MessageSequence.newCounts();
 
     public ListProcessingReport(final LogLevel logLevel,
         final LogLevel exceptionThreshold)
@@ -64,14 +94,75 @@ public final class ListProcessingReport
     @Override
     public void log(final LogLevel level, final ProcessingMessage message)
     {
-        messages.add(message);
+        if (tailSize == tail.length) {
+            final int size = tailSize - tailStart;
+            final ProcessingMessage[] array
+                = new ProcessingMessage[Math.max(INITIAL_CAPACITY, size * 2)];
+            System.arraycopy(tail, tailStart, array, 0, size);
+            tail = array;
+            tailStart = 0;
+            tailSize = size;
+        }
+        tail[tailSize++] = message;
+        tailCounts[level.ordinal()]++;
+    }
+
+    /*
+     * Note: the messages of the other report may include messages it hides
+     * since they are below its log level (they come from reports it has itself
+     * merged); these must be hidden here as well
+     */
+    @Override
+    boolean appendMessages(final ListProcessingReport other)
+    {
+        final MessageSequence sequence
+            = MessageSequence.filter(other.snapshot(), other.getLogLevel());
+        if (sequence == null)
+            return true;
+        if (sequence.maxLevel.compareTo(getExceptionThreshold()) >= 0)
+            return false;
+        raiseLevel(sequence.maxLevel);
+        head = MessageSequence.concat(snapshot(), sequence);
+        tailStart = tailSize;
+        tailCounts = MessageSequence.newCounts();
+        return true;
+    }
+
+    /**
+     * Return the number of messages of this report
+     *
+     * <p>This is the number of messages yielded when iterating over this
+     * report, computed in constant time.</p>
+     *
+     * @return the number of messages
+     */
+    int size()
+    {
+        final MessageSequence sequence = snapshot();
+        return sequence == null ? 0 : sequence.size(getLogLevel());
+    }
+
+    /**
+     * Return all messages of this report as a sequence
+     *
+     * <p>This method does not modify this report.</p>
+     *
+     * @return a sequence, or null if this report has no messages
+     */
+    private MessageSequence snapshot()
+    {
+        if (tailSize == tailStart)
+            return head;
+        return MessageSequence.concat(head,
+            MessageSequence.slice(tail, tailStart, tailSize,
+                tailCounts.clone()));
     }
 
     @Override
     public JsonNode asJson()
     {
         final ArrayNode ret = FACTORY.arrayNode();
-        for (final ProcessingMessage message: messages)
+        for (final ProcessingMessage message: this)
             ret.add(message.asJson());
         return ret;
     }
@@ -79,7 +170,10 @@ public final class ListProcessingReport
     @Override
     public Iterator<ProcessingMessage> iterator()
     {
-        return Iterators.unmodifiableIterator(messages.iterator());
+        final MessageSequence sequence = snapshot();
+        return sequence == null
+            ? Iterators.<ProcessingMessage>emptyIterator()
+            : sequence.iterator(getLogLevel());
     }
 
 }
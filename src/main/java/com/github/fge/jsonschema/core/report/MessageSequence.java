@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.google.common.collect.AbstractIterator;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * An immutable, persistent sequence of processing messages
+ *
+ * <p>A sequence is either a slice of an array of messages which is never
+ * modified afterwards, the concatenation of two sequences, or a sequence
+ * whose messages below a given level are hidden. Concatenation and filtering
+ * are therefore done in constant time, and sequences can be shared between
+ * reports: this is what {@link ListProcessingReport} relies on to merge
+ * reports without copying their messages.</p>
+ *
+ * <p>Each sequence records the number of its messages for each log level,
+ * and from there the lowest and highest log level of its messages. A sequence
+ * is never empty.</p>
+ */
+@Immutable
+abstract class MessageSequence
+{
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    /**
+     * Number of messages for each level, indexed by the level's ordinal
+     */
+    private final int[] counts;
+
+    final LogLevel minLevel;
+    final LogLevel maxLevel;
+
+    private MessageSequence(final int[] counts)
+    {
+        this.counts = counts;
+        int index = 0;
+        while (counts[index] == 0)
+            index++;
+        minLevel = LEVELS[index];
+        index = counts.length - 1;
+        while (counts[index] == 0)
+            index--;
+        maxLevel = LEVELS[index];
+    }
+
+    /**
+     * Create a new, empty array of counts per level
+     *
+     * @return an array
+     */
+    static int[] newCounts()
+    {
+        return new int[LEVELS.length];
+    }
+
+    /**
+     * Create a sequence out of a slice of an array
+     *
+     * <p>The slice must never be modified afterwards.</p>
+     *
+     * @param messages the array
+     * @param from the start index of the slice (inclusive)
+     * @param to the end index of the slice (exclusive)
+     * @param counts the number of messages in the slice for each level (see
+     * {@link #newCounts()}); must not be modified afterwards
+     * @return a new sequence
+     */
+    static MessageSequence slice(final ProcessingMessage[] messages,
+        final int from, final int to, final int[] counts)
+    {
+        return new Slice(messages, from, to, counts);
+    }
+
+    /**
+     * Concatenate two sequences
+     *
+     * @param first the first sequence (may be null)
+     * @param second the second sequence (may be null)
+     * @return the concatenation of both sequences, or null if both are null
+     */
+    static MessageSequence concat(final MessageSequence first,
+        final MessageSequence second)
+    {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+        return new Concat(first, second);
+    }
+
+    /**
+     * Hide the messages of a sequence below a given level
+     *
+     * <p>The highest level of the returned sequence is that of the original
+     * sequence, since messages at this level are not hidden.</p>
+     *
+     * @param sequence the sequence (may be null)
+     * @param minLevel the level
+     * @return the filtered sequence, or null if no message is left
+     */
+    static MessageSequence filter(final MessageSequence sequence,
+        final LogLevel minLevel)
+    {
+        if (sequence == null || sequence.maxLevel.compareTo(minLevel) < 0)
+            return null;
+        if (sequence.minLevel.compareTo(minLevel) >= 0)
+            return sequence;
+        return new Filter(sequence, minLevel);
+    }
+
+    /**
+     * Return the number of messages of this sequence with a minimum level
+     *
+     * @param minLevel the minimum level
+     * @return the number of messages
+     */
+    final int size(final LogLevel minLevel)
+    {
+        int ret = 0;
+        for (int i = minLevel.ordinal(); i < counts.length; i++)
+            ret += counts[i];
+        return ret;
+    }
+
+    /**
+     * Iterate over the messages of this sequence with a minimum level
+     *
+     * <p>Sequences whose highest level is lower than the minimum level are
+     * skipped altogether.</p>
+     *
+     * @param minLevel the minimum level
+     * @return an iterator
+     */
+    final Iterator<ProcessingMessage> iterator(final LogLevel minLevel)
+    {
+        final Deque<MessageSequence> stack = new ArrayDeque<MessageSequence>();
+        final Deque<LogLevel> levels = new ArrayDeque<LogLevel>();
+        stack.push(this);
+        levels.push(minLevel);
+
+        return new AbstractIterator<ProcessingMessage>()
+        {
+            private Slice slice = null;
+            private LogLevel level;
+            private int index;
+
+            @Override
+            protected ProcessingMessage computeNext()
+            {
+                ProcessingMessage message;
+
+                while (true) {
+                    while (slice != null && index < slice.to) {
+                        message = slice.messages[index++];
+                        if (message.getLogLevel().compareTo(level) >= 0)
+                            return message;
+                    }
+                    slice = nextSlice(stack, levels);
+                    if (slice == null)
+                        return endOfData();
+                    level = levels.pop();
+                    index = slice.from;
+                }
+            }
+        };
+    }
+
+    /*
+     * Note: levels holds the minimum level of each sequence in the stack; when
+     * a slice is returned, its minimum level is left on top of levels
+     */
+    private static Slice nextSlice(final Deque<MessageSequence> stack,
+        final Deque<LogLevel> levels)
+    {
+        MessageSequence sequence;
+        LogLevel level;
+        Concat concat;
+        Filter filter;
+
+        while (!stack.isEmpty()) {
+            sequence = stack.pop();
+            level = levels.pop();
+            if (sequence.maxLevel.compareTo(level) < 0)
+                continue;
+            if (sequence instanceof Slice) {
+                levels.push(level);
+                return (Slice) sequence;
+            }
+            if (sequence instanceof Filter) {
+                filter = (Filter) sequence;
+                stack.push(filter.sequence);
+                levels.push(filter.minLevel.compareTo(level) >= 0
+                    ? filter.minLevel : level);
+                continue;
+            }
+            concat = (Concat) sequence;
+            stack.push(concat.second);
+            levels.push(level);
+            stack.push(concat.first);
+            levels.push(level);
+        }
+
+        return null;
+    }
+
+    private static final class Slice
+        extends MessageSequence
+    {
+        private final ProcessingMessage[] messages;
+        private final int from;
+        private final int to;
+
+        private Slice(final ProcessingMessage[] messages, final int from,
+            final int to, final int[] counts)
+        {
+            super(counts);
+            this.messages = messages;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class Concat
+        extends MessageSequence
+    {
+        private final MessageSequence first;
+        private final MessageSequence second;
+
+        private Concat(final MessageSequence first,
+            final MessageSequence second)
+        {
+            super(sum(first.counts, second.counts));
+            this.first = first;
+            this.second = second;
+        }
+
+        private static int[] sum(final int[] first, final int[] second)
+        {
+            final int[] ret = newCounts();
+            for (int i = 0; i < ret.length; i++)
+                ret[i] = first[i] + second[i];
+            return ret;
+        }
+    }
+
+    private static final class Filter
+        extends MessageSequence
+    {
+        private final MessageSequence sequence;
+
+        private Filter(final MessageSequence sequence, final LogLevel minLevel)
+        {
+            super(above(sequence.counts, minLevel));
+            this.sequence = sequence;
+        }
+
+        private static int[] above(final int[] counts, final LogLevel minLevel)
+        {
+            final int[] ret = newCounts();
+            final int from = minLevel.ordinal();
+            System.arraycopy(counts, from, ret, from, ret.length - from);
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * A destination for processing messages
+ *
+ * <p>Implementations need not be thread safe: an {@link AsyncProcessingReport}
+ * only ever calls its sink from its background thread.</p>
+ *
+ * @see MessageSinks
+ */
+public interface MessageSink
+    extends Closeable, Flushable
+{
+    /**
+     * Write a message
+     *
+     * @param level the log level of the message
+     * @param message the message
+     * @throws IOException failed to write the message
+     */
+    void write(LogLevel level, ProcessingMessage message)
+        throws IOException;
+}
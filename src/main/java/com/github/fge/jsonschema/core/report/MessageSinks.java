@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Factory methods for {@link MessageSink}s
+ */
+public final class MessageSinks
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private MessageSinks()
+    {
+    }
+
+    /**
+     * A sink printing messages to a stream, as {@link ConsoleProcessingReport}
+     * does
+     *
+     * <p>Closing the sink does not close the stream.</p>
+     *
+     * @param out the stream
+     * @return a sink
+     * @throws NullPointerException stream is null
+     */
+    public static MessageSink printStream(final PrintStream out)
+    {
+        BUNDLE.checkNotNull(out, "report.nullOutputStream");
+        return new MessageSink()
+        {
+            @Override
+            public void write(final LogLevel level,
+                final ProcessingMessage message)
+            {
+                out.println(message);
+            }
+
+            @Override
+            public void flush()
+            {
+                out.flush();
+            }
+
+            @Override
+            public void close()
+            {
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * A sink writing messages as JSON lines to a writer
+     *
+     * <p>Closing the sink closes the writer.</p>
+     *
+     * @param writer the writer
+     * @return a sink
+     * @throws NullPointerException writer is null
+     * @see StreamingProcessingReport
+     */
+    public static MessageSink jsonLines(final Writer writer)
+    {
+        final StreamingProcessingReport report
+            = new StreamingProcessingReport(writer, LogLevel.DEBUG,
+                LogLevel.NONE);
+        return new MessageSink()
+        {
+            @Override
+            public void write(final LogLevel level,
+                final ProcessingMessage message)
+                throws IOException
+            {
+                report.log(level, message);
+            }
+
+            @Override
+            public void flush()
+                throws IOException
+            {
+                report.flush();
+            }
+
+            @Override
+            public void close()
+                throws IOException
+            {
+                report.close();
+            }
+        };
+    }
+
+    /**
+     * A sink logging messages to a {@link Logger}
+     *
+     * <p>Levels {@link LogLevel#DEBUG}, {@link LogLevel#INFO} and {@link
+     * LogLevel#WARNING} map to {@link Level#FINE}, {@link Level#INFO} and
+     * {@link Level#WARNING} respectively; higher levels map to {@link
+     * Level#SEVERE}.</p>
+     *
+     * @param logger the logger
+     * @return a sink
+     * @throws NullPointerException logger is null
+     */
+    public static MessageSink logger(final Logger logger)
+    {
+        BUNDLE.checkNotNull(logger, "report.nullLogger");
+        return new MessageSink()
+        {
+            @Override
+            public void write(final LogLevel level,
+                final ProcessingMessage message)
+            {
+                final Level julLevel = toJulLevel(level);
+                if (logger.isLoggable(julLevel))
+                    logger.log(julLevel, message.toString());
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    private static Level toJulLevel(final LogLevel level)
+    {
+        switch (level) {
+            case DEBUG:
+                return Level.FINE;
+            case INFO:
+                return Level.INFO;
+            case WARNING:
+                return Level.WARNING;
+            default:
+                return Level.SEVERE;
+        }
+    }
+}
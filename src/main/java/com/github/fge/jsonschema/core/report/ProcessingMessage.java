@@ -19,6 +19,7 @@
 
 package com.github.fge.jsonschema.core.report;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -31,19 +32,22 @@ import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
 import com.github.fge.jsonschema.core.util.AsJson;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
 import java.util.Formatter;
 import java.util.IllegalFormatException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 /**
  * One processing message
  *
- * <p>Internally, a processing message has a {@link Map} whose keys are strings
+ * <p>A processing message is a set of key/value pairs whose keys are strings
  * and values are {@link JsonNode}s. Note that all methods altering the message
  * contents accept {@code null}: in this case, the value for that key will be a
  * {@link NullNode}. If you submit null <i>keys</i>, the whole value will be
@@ -71,6 +75,25 @@ import java.util.Map;
  * level and its {@link ExceptionProvider} (used in {@link #asException()}.</p>
  *
  * <p>All mutation methods of a message return {@code this}.</p>
+ *
+ * <p>Messages can also be created in <i>lazy</i> mode, using {@link
+ * #newLazyMessage()}. In this mode, the expensive parts of building a message
+ * are deferred until the contents of the message are actually read (using
+ * {@link #getMessage()}, {@link #asJson()} or {@link #toString()}): deep
+ * copies of {@link JsonNode} values, {@link AsJson#asJson()} conversions,
+ * {@link Object#toString()} conversions and message formatting. If a message
+ * is never read (for instance, because its log level is lower than the one of
+ * the report it is submitted to), this work is never done. The price to pay is
+ * that values put into a lazy message <b>must not be modified</b> afterwards.
+ * </p>
+ *
+ * <p>Since reports may retain a great number of messages, their memory
+ * footprint is kept small: the keys which nearly all messages have ({@code
+ * level}, {@code domain}, {@code schema}, {@code keyword} and {@code message})
+ * have dedicated slots, string values are only turned into JSON when the
+ * message is read, and other keys go into an overflow map which is only
+ * created when needed. Keys always appear in the order they were first
+ * inserted, {@code level} coming first.</p>
  */
 @NotThreadSafe
 public final class ProcessingMessage
@@ -82,14 +105,75 @@ public final class ProcessingMessage
     private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
 
     /**
-     * This is where all key/value pairs go
+     * Text nodes for log levels, shared by all messages
+     */
+    private static final Map<LogLevel, JsonNode> LEVEL_NODES;
+
+    /*
+     * Codes recording the insertion order of keys; the level always comes
+     * first and has no code
+     */
+    private static final int DOMAIN = 1;
+    private static final int SCHEMA = 2;
+    private static final int KEYWORD = 3;
+    private static final int MESSAGE = 4;
+    private static final int OTHER = 5;
+
+    private static final int CODE_BITS = 4;
+    private static final int MAX_CODES = Long.SIZE / CODE_BITS;
+
+    static {
+        LEVEL_NODES = Maps.newEnumMap(LogLevel.class);
+        for (final LogLevel level: LogLevel.values())
+            LEVEL_NODES.put(level, FACTORY.textNode(level.toString()));
+    }
+
+    /*
+     * Values of the dedicated slots; null if not set. Values of slots and of
+     * the overflow map are {@link JsonNode}s, {@link String}s (turned into text
+     * nodes when the message is read), or {@link Deferred} values for lazy
+     * messages.
+     */
+    private Object domain;
+    private Object schema;
+    private Object keyword;
+    private Object message;
+
+    /**
+     * Value last put for key {@code message}, before any formatting
      */
-    private final Map<String, JsonNode> map = Maps.newLinkedHashMap();
+    private Object template;
 
     /**
-     * Argument list for Formatter
+     * Value for key {@code level} if explicitly put; null if it reflects the
+     * log level
      */
-    private final List<Object> args = Lists.newArrayList();
+    private Object levelValue;
+
+    /**
+     * Other key/value pairs; null until first needed
+     */
+    private Map<String, Object> others;
+
+    /**
+     * Insertion order of keys, as a sequence of codes of {@link #CODE_BITS}
+     * bits each
+     *
+     * <p>{@link #OTHER} stands for the next entry of the overflow map. Once
+     * all {@link #MAX_CODES} codes are used, all new keys go into the overflow
+     * map, whose remaining entries come last.</p>
+     */
+    private long order = 0L;
+
+    /**
+     * Number of codes in {@link #order}
+     */
+    private int codes = 0;
+
+    /**
+     * Argument list for Formatter; null until first needed
+     */
+    private List<Object> args;
 
     /**
      * Exception provider
@@ -99,6 +183,26 @@ public final class ProcessingMessage
 
     private LogLevel level;
 
+    /**
+     * Whether this message defers building its contents
+     */
+    private final boolean lazy;
+
+    /**
+     * Whether this (lazy) message has contents left to build
+     */
+    private boolean pending = false;
+
+    /**
+     * Create a new lazy message
+     *
+     * @return a new message, with a log level of {@link LogLevel#INFO}
+     */
+    public static ProcessingMessage newLazyMessage()
+    {
+        return new ProcessingMessage(true);
+    }
+
     /**
      * Constructor
      *
@@ -107,9 +211,26 @@ public final class ProcessingMessage
      */
     public ProcessingMessage()
     {
+        this(false);
+    }
+
+    private ProcessingMessage(final boolean lazy)
+    {
+        this.lazy = lazy;
         setLogLevel(LogLevel.INFO);
     }
 
+    /**
+     * Tell whether this message is a lazy message
+     *
+     * @return true if this is the case
+     * @see #newLazyMessage()
+     */
+    public boolean isLazy()
+    {
+        return lazy;
+    }
+
     /**
      * Get the main message
      *
@@ -117,8 +238,46 @@ public final class ProcessingMessage
      */
     public String getMessage()
     {
-        return map.containsKey("message") ? map.get("message").textValue()
-            : "(no message)";
+        build();
+        final Object value = lookup("message");
+        return value == null ? "(no message)" : textOf(value);
+    }
+
+    /**
+     * Get the main message as it was set, before any formatting
+     *
+     * <p>Unlike {@link #getMessage()}, this does not build a lazy message,
+     * and does not format arguments into the message.</p>
+     *
+     * @return the unformatted message
+     * @see AggregatingProcessingReport
+     */
+    String getTemplate()
+    {
+        Object value = template;
+        if (value instanceof Deferred)
+            value = ((Deferred) value).build();
+        final String ret = value == null ? null : textOf(value);
+        return ret == null ? "(no message)" : ret;
+    }
+
+    /**
+     * Get the value of a key as a string, if it is a string
+     *
+     * <p>Unlike {@link #asJson()}, this does not build the other values of a
+     * lazy message.</p>
+     *
+     * @param key the key
+     * @return the text value, or null if there is no such key or the value is
+     * not textual
+     * @see AggregatingProcessingReport
+     */
+    String getText(final String key)
+    {
+        Object value = lookup(key);
+        if (value instanceof Deferred)
+            value = ((Deferred) value).build();
+        return value == null ? null : textOf(value);
     }
 
     /**
@@ -139,7 +298,7 @@ public final class ProcessingMessage
      */
     public ProcessingMessage setMessage(final String message)
     {
-        args.clear();
+        args = null;
         return put("message", message);
     }
 
@@ -154,7 +313,8 @@ public final class ProcessingMessage
     {
         BUNDLE.checkNotNull(level, "processing.nullLevel");
         this.level = level;
-        return put("level", level);
+        levelValue = null;
+        return this;
     }
 
     /**
@@ -191,8 +351,16 @@ public final class ProcessingMessage
             return this;
         if (value == null)
             return putNull(key);
-        map.put(key, value.deepCopy());
-        return this;
+        if (!lazy)
+            return putNode(key, value.deepCopy());
+        return putDeferred(key, new Deferred()
+        {
+            @Override
+            JsonNode build()
+            {
+                return value.deepCopy();
+            }
+        });
     }
 
     /**
@@ -217,7 +385,18 @@ public final class ProcessingMessage
      */
     public ProcessingMessage put(final String key, final AsJson asJson)
     {
-        return put(key, asJson.asJson());
+        if (!lazy)
+            return put(key, asJson.asJson());
+        if (asJson == null)
+            return putNull(key);
+        return putDeferred(key, new Deferred()
+        {
+            @Override
+            JsonNode build()
+            {
+                return asJson.asJson().deepCopy();
+            }
+        });
     }
 
     /**
@@ -229,7 +408,7 @@ public final class ProcessingMessage
      */
     public ProcessingMessage putArgument(final String key, final AsJson asJson)
     {
-        addArgument(key, asJson.asJson());
+        addArgument(key, lazy ? asJson : asJson.asJson());
         return put(key, asJson);
     }
 
@@ -242,7 +421,12 @@ public final class ProcessingMessage
      */
     public ProcessingMessage put(final String key, final String value)
     {
-        return value == null ? putNull(key) : put(key, FACTORY.textNode(value));
+        if (key == null)
+            return this;
+        if (value == null)
+            return putNull(key);
+        store(key, value);
+        return this;
     }
 
     /**
@@ -254,7 +438,7 @@ public final class ProcessingMessage
      */
     public ProcessingMessage put(final String key, final int value)
     {
-        return put(key, FACTORY.numberNode(value));
+        return putNode(key, FACTORY.numberNode(value));
     }
 
     /**
@@ -282,9 +466,18 @@ public final class ProcessingMessage
      */
     public <T> ProcessingMessage put(final String key, final T value)
     {
-        return value == null
-            ? putNull(key)
-            : put(key, FACTORY.textNode(value.toString()));
+        if (value == null)
+            return putNull(key);
+        if (!lazy)
+            return put(key, FACTORY.textNode(value.toString()));
+        return putDeferred(key, new Deferred()
+        {
+            @Override
+            JsonNode build()
+            {
+                return FACTORY.textNode(value.toString());
+            }
+        });
     }
 
     /**
@@ -317,12 +510,26 @@ public final class ProcessingMessage
     {
         if (values == null)
             return putNull(key);
+        if (!lazy)
+            return put(key, toArrayNode(values));
+        return putDeferred(key, new Deferred()
+        {
+            @Override
+            JsonNode build()
+            {
+                return toArrayNode(values);
+            }
+        });
+    }
+
+    private static <T> ArrayNode toArrayNode(final Iterable<T> values)
+    {
         final ArrayNode node = FACTORY.arrayNode();
         for (final T value: values)
             node.add(value == null
                 ? FACTORY.nullNode()
                 : FACTORY.textNode(value.toString()));
-        return put(key, node);
+        return node;
     }
 
     /**
@@ -345,15 +552,227 @@ public final class ProcessingMessage
 
     private void addArgument(final String key, final Object value)
     {
-        if (key != null)
+        if (key != null) {
+            if (args == null)
+                args = Lists.newArrayList();
             args.add(value);
-        if (!map.containsKey("message"))
+        }
+        if (lookup("message") == null)
+            return;
+        if (lazy) {
+            pending = true;
+            return;
+        }
+        format();
+    }
+
+    /**
+     * Put a freshly created node, which needs no copy
+     *
+     * @param key the key
+     * @param node the node
+     * @return this
+     * @see ProcessingReportCodec
+     */
+    ProcessingMessage putNode(final String key, final JsonNode node)
+    {
+        if (key == null)
+            return this;
+        store(key, node);
+        return this;
+    }
+
+    private ProcessingMessage putDeferred(final String key,
+        final Deferred deferred)
+    {
+        if (key == null)
+            return this;
+        store(key, deferred);
+        pending = true;
+        return this;
+    }
+
+    /**
+     * Return the code of the dedicated slot for a key
+     *
+     * @param key the key
+     * @return the code, or {@link #OTHER} if the key has no dedicated slot
+     */
+    private static int codeOf(final String key)
+    {
+        if ("domain".equals(key))
+            return DOMAIN;
+        if ("schema".equals(key))
+            return SCHEMA;
+        if ("keyword".equals(key))
+            return KEYWORD;
+        if ("message".equals(key))
+            return MESSAGE;
+        return OTHER;
+    }
+
+    private Object getSlot(final int code)
+    {
+        switch (code) {
+            case DOMAIN:
+                return domain;
+            case SCHEMA:
+                return schema;
+            case KEYWORD:
+                return keyword;
+            case MESSAGE:
+                return message;
+            default:
+                throw new IllegalStateException("unknown code " + code);
+        }
+    }
+
+    private void setSlot(final int code, final Object value)
+    {
+        switch (code) {
+            case DOMAIN:
+                domain = value;
+                break;
+            case SCHEMA:
+                schema = value;
+                break;
+            case KEYWORD:
+                keyword = value;
+                break;
+            case MESSAGE:
+                message = value;
+                break;
+            default:
+                throw new IllegalStateException("unknown code " + code);
+        }
+    }
+
+    private void appendCode(final int code)
+    {
+        if (codes == MAX_CODES)
+            return;
+        order |= (long) code << codes * CODE_BITS;
+        codes++;
+    }
+
+    /**
+     * Store a value for a key
+     *
+     * <p>A key with a dedicated slot only goes into the overflow map if it was
+     * not inserted before all codes were used up, so that insertion order is
+     * preserved.</p>
+     *
+     * @param key the key (not null)
+     * @param value the value (not null)
+     */
+    private void store(final String key, final Object value)
+    {
+        if ("level".equals(key)) {
+            levelValue = value;
+            return;
+        }
+
+        final int code = codeOf(key);
+
+        if (code == MESSAGE)
+            template = value;
+
+        if (code != OTHER) {
+            if (getSlot(code) != null) {
+                setSlot(code, value);
+                return;
+            }
+            if (codes < MAX_CODES) {
+                appendCode(code);
+                setSlot(code, value);
+                return;
+            }
+        }
+
+        if (others == null)
+            others = Maps.newLinkedHashMap();
+        if (others.put(key, value) == null && code == OTHER)
+            appendCode(OTHER);
+    }
+
+    /**
+     * Return the value for a key
+     *
+     * @param key the key
+     * @return the value, or null if there is no such key
+     */
+    private Object lookup(final String key)
+    {
+        final int code = codeOf(key);
+        if (code != OTHER) {
+            final Object value = getSlot(code);
+            if (value != null)
+                return value;
+        }
+        return others == null ? null : others.get(key);
+    }
+
+    private static JsonNode toNode(final Object value)
+    {
+        return value instanceof String ? FACTORY.textNode((String) value)
+            : (JsonNode) value;
+    }
+
+    private static String textOf(final Object value)
+    {
+        return value instanceof String ? (String) value
+            : ((JsonNode) value).textValue();
+    }
+
+    private static Object built(final Object value)
+    {
+        return value instanceof Deferred ? ((Deferred) value).build() : value;
+    }
+
+    /**
+     * Build the contents of a lazy message, if needed
+     */
+    private void build()
+    {
+        if (!pending)
+            return;
+        pending = false;
+        if (levelValue != null)
+            levelValue = built(levelValue);
+        domain = built(domain);
+        schema = built(schema);
+        keyword = built(keyword);
+        message = built(message);
+        if (others != null)
+            for (final Map.Entry<String, Object> entry: others.entrySet())
+                entry.setValue(built(entry.getValue()));
+        if (args == null || lookup("message") == null)
+            return;
+        /*
+         * Arguments of lazy messages which are AsJson instances are kept as
+         * is; convert them now
+         */
+        final int size = args.size();
+        Object arg;
+        for (int i = 0; i < size; i++) {
+            arg = args.get(i);
+            if (arg instanceof AsJson)
+                args.set(i, ((AsJson) arg).asJson());
+        }
+        format();
+    }
+
+    private void format()
+    {
+        final String fmt = textOf(lookup("message"));
+        if (fmt == null || args == null)
             return;
-        final String fmt = map.get("message").textValue();
         try {
             final String formatted = new Formatter()
                 .format(fmt, args.toArray()).toString();
-            map.put("message", FACTORY.textNode(formatted));
+            final Object raw = template;
+            store("message", formatted);
+            template = raw;
         } catch (IllegalFormatException ignored) {
         }
     }
@@ -370,7 +789,7 @@ public final class ProcessingMessage
     {
         if (key == null)
             return this;
-        map.put(key, FACTORY.nullNode());
+        store(key, FACTORY.nullNode());
         return this;
     }
 
@@ -378,10 +797,96 @@ public final class ProcessingMessage
     public JsonNode asJson()
     {
         final ObjectNode ret = FACTORY.objectNode();
-        ret.putAll(map);
+        try {
+            visit(new EntryVisitor()
+            {
+                @Override
+                void visit(final String key, final Object value)
+                {
+                    ret.put(key, toNode(value));
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("unexpected I/O exception", e);
+        }
         return ret;
     }
 
+    /**
+     * Write this message as a JSON object to a generator
+     *
+     * <p>Unlike {@link #asJson()}, this does not build a JSON object.</p>
+     *
+     * @param generator the generator
+     * @throws IOException failed to write to the generator
+     * @see StreamingProcessingReport
+     */
+    void writeTo(final JsonGenerator generator)
+        throws IOException
+    {
+        generator.writeStartObject();
+        visit(new EntryVisitor()
+        {
+            @Override
+            void visit(final String key, final Object value)
+                throws IOException
+            {
+                generator.writeFieldName(key);
+                if (value instanceof String)
+                    generator.writeString((String) value);
+                else
+                    generator.writeTree((JsonNode) value);
+            }
+        });
+        generator.writeEndObject();
+    }
+
+    /**
+     * Visit all key/value pairs of this message in insertion order
+     *
+     * @param visitor the visitor
+     * @throws IOException thrown by the visitor
+     */
+    private void visit(final EntryVisitor visitor)
+        throws IOException
+    {
+        build();
+        visitor.visit("level", levelValue == null ? LEVEL_NODES.get(level)
+            : levelValue);
+
+        final Iterator<Map.Entry<String, Object>> iterator = others == null
+            ? Iterators.<Map.Entry<String, Object>>emptyIterator()
+            : others.entrySet().iterator();
+        Map.Entry<String, Object> entry;
+        int code;
+
+        for (int i = 0; i < codes; i++) {
+            code = (int) (order >>> i * CODE_BITS) & 0xf;
+            switch (code) {
+                case DOMAIN:
+                    visitor.visit("domain", domain);
+                    break;
+                case SCHEMA:
+                    visitor.visit("schema", schema);
+                    break;
+                case KEYWORD:
+                    visitor.visit("keyword", keyword);
+                    break;
+                case MESSAGE:
+                    visitor.visit("message", message);
+                    break;
+                default:
+                    entry = iterator.next();
+                    visitor.visit(entry.getKey(), entry.getValue());
+            }
+        }
+
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            visitor.visit(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Build an exception out of this message
      *
@@ -400,14 +905,39 @@ public final class ProcessingMessage
     @Override
     public String toString()
     {
-        final Map<String, JsonNode> tmp = Maps.newLinkedHashMap(map);
-        final JsonNode node = tmp.remove("message");
-        final String message = node == null ? "(no message)": node.textValue();
+        final JsonNode node = asJson();
+        final JsonNode messageNode = node.get("message");
+        final String msg = messageNode == null ? "(no message)"
+            : messageNode.textValue();
         final StringBuilder sb = new StringBuilder().append(level).append(": ");
-        sb.append(message);
-        for (final Map.Entry<String, JsonNode> entry: tmp.entrySet())
-            sb.append("\n    ").append(entry.getKey()).append(": ")
-                .append(entry.getValue());
+        sb.append(msg);
+        final Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+        Map.Entry<String, JsonNode> entry;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            if (!"message".equals(entry.getKey()))
+                sb.append("\n    ").append(entry.getKey()).append(": ")
+                    .append(entry.getValue());
+        }
         return sb.append('\n').toString();
     }
+
+    /**
+     * A value of a lazy message, built on demand
+     */
+    private abstract static class Deferred
+    {
+        abstract JsonNode build();
+    }
+
+    /**
+     * A visitor of the key/value pairs of a message
+     *
+     * <p>Values are either {@link JsonNode}s or {@link String}s.</p>
+     */
+    private abstract static class EntryVisitor
+    {
+        abstract void visit(final String key, final Object value)
+            throws IOException;
+    }
 }
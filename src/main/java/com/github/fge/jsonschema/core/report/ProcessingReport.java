@@ -26,6 +26,9 @@ import com.github.fge.jsonschema.core.exceptions.ProcessingException;
  *
  * <p>While you can implement this interface yourself, it is recommended that
  * you extend {@link AbstractProcessingReport} instead.</p>
+ *
+ * @see CooperativeProcessingReport
+ * @see ProcessingReports
  */
 public interface ProcessingReport
     extends Iterable<ProcessingMessage>
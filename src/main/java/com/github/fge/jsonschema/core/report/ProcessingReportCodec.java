@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encoder and decoder of processing reports and messages
+ *
+ * <p>This class is meant to transport reports across processes. The default
+ * codec, obtained with {@link #smile()}, uses the binary <a
+ * href="http://wiki.fasterxml.com/SmileFormat">Smile</a> format, with shared
+ * property names and shared string values enabled: keys and message texts
+ * which repeat across messages are only written once, then referred to. A
+ * JSON codec, with the same structure, is available using {@link #json()}.
+ * </p>
+ *
+ * <p>Note that the Smile data format ({@code jackson-dataformat-smile}) is an
+ * optional dependency: it is only loaded when the Smile codec is first
+ * requested, and the JSON codec works without it.</p>
+ *
+ * <p>An encoded report is an object with the following members, in this order:
+ * </p>
+ *
+ * <ul>
+ *     <li>{@code logLevel}: the log level of the report;</li>
+ *     <li>{@code exceptionThreshold}: the exception threshold of the report;
+ *     </li>
+ *     <li>{@code success}: whether the report is a success;</li>
+ *     <li>{@code messages}: the messages of the report, in iteration order.
+ *     </li>
+ * </ul>
+ *
+ * <p>A message is encoded as the object returned by {@link
+ * ProcessingMessage#asJson()}, written without building that object.</p>
+ *
+ * <p>Decoding a report yields a {@link ListProcessingReport} with the same log
+ * level, exception threshold and success status, and the same messages in the
+ * same order; decoded messages have the same log level and the same JSON
+ * representation as the encoded ones. Exception providers are not encoded.
+ * </p>
+ */
+@ThreadSafe
+public final class ProcessingReportCodec
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final ProcessingReportCodec JSON
+        = new ProcessingReportCodec(new JsonFactory());
+
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    /**
+     * Return a codec using the Smile format
+     *
+     * @return a codec
+     * @throws IllegalStateException the Smile data format is not available
+     */
+    public static ProcessingReportCodec smile()
+    {
+        try {
+            return SmileCodec.INSTANCE;
+        } catch (NoClassDefFoundError e) {
+            throw new IllegalStateException(
+                BUNDLE.getMessage("report.smileUnavailable"), e);
+        }
+    }
+
+    /**
+     * Return a codec using the JSON format
+     *
+     * @return a codec
+     */
+    public static ProcessingReportCodec json()
+    {
+        return JSON;
+    }
+
+    private ProcessingReportCodec(final JsonFactory factory)
+    {
+        mapper = new ObjectMapper(factory)
+            .setNodeFactory(JacksonUtils.nodeFactory())
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.factory = mapper.getFactory();
+    }
+
+    /**
+     * Encode a report to an output stream
+     *
+     * <p>The output stream is neither flushed nor closed.</p>
+     *
+     * @param report the report
+     * @param out the output stream
+     * @throws IOException failed to write to the output stream
+     * @throws NullPointerException report or output stream is null
+     */
+    public void encode(final ProcessingReport report, final OutputStream out)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(report, "processing.nullReport");
+        BUNDLE.checkNotNull(out, "report.nullOutputStream");
+        final JsonGenerator generator = newGenerator(out);
+        generator.writeStartObject();
+        generator.writeStringField("logLevel", report.getLogLevel().toString());
+        generator.writeStringField("exceptionThreshold",
+            report.getExceptionThreshold().toString());
+        generator.writeBooleanField("success", report.isSuccess());
+        generator.writeArrayFieldStart("messages");
+        for (final ProcessingMessage message: report)
+            message.writeTo(generator);
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Encode a report
+     *
+     * @param report the report
+     * @return the encoded report
+     * @throws NullPointerException report is null
+     */
+    public byte[] encode(final ProcessingReport report)
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            encode(report, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("unexpected I/O exception", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a message to an output stream
+     *
+     * <p>The output stream is neither flushed nor closed.</p>
+     *
+     * @param message the message
+     * @param out the output stream
+     * @throws IOException failed to write to the output stream
+     * @throws NullPointerException message or output stream is null
+     */
+    public void encode(final ProcessingMessage message, final OutputStream out)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(message, "report.nullMessage");
+        BUNDLE.checkNotNull(out, "report.nullOutputStream");
+        final JsonGenerator generator = newGenerator(out);
+        message.writeTo(generator);
+        generator.close();
+    }
+
+    /**
+     * Encode a message
+     *
+     * @param message the message
+     * @return the encoded message
+     * @throws NullPointerException message is null
+     */
+    public byte[] encode(final ProcessingMessage message)
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            encode(message, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("unexpected I/O exception", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a report from an input stream
+     *
+     * <p>The input stream is not closed.</p>
+     *
+     * @param in the input stream
+     * @return the decoded report
+     * @throws IOException failed to read from the input stream, or the input
+     * is not a valid encoded report
+     * @throws NullPointerException input stream is null
+     */
+    public ListProcessingReport decodeReport(final InputStream in)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(in, "report.nullInputStream");
+        final JsonParser parser = newParser(in);
+        try {
+            expect(parser, parser.nextToken() == JsonToken.START_OBJECT);
+            final LogLevel logLevel = levelOf(textField(parser, "logLevel"));
+            final LogLevel exceptionThreshold
+                = levelOf(textField(parser, "exceptionThreshold"));
+            expect(parser, logLevel != null && exceptionThreshold != null);
+            final ListProcessingReport report
+                = new ListProcessingReport(logLevel, exceptionThreshold);
+            expectField(parser, "success");
+            final JsonToken token = parser.nextToken();
+            expect(parser, token == JsonToken.VALUE_TRUE
+                || token == JsonToken.VALUE_FALSE);
+            final boolean success = parser.getBooleanValue();
+            expectField(parser, "messages");
+            expect(parser, parser.nextToken() == JsonToken.START_ARRAY);
+            ProcessingMessage message;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                message = readMessage(parser);
+                expect(parser, message.getLogLevel() != LogLevel.NONE);
+                report.dispatch(message);
+            }
+            expect(parser, parser.getCurrentToken() == JsonToken.END_ARRAY);
+            expect(parser, parser.nextToken() == JsonToken.END_OBJECT);
+            if (!success)
+                report.raiseLevel(LogLevel.ERROR);
+            return report;
+        } catch (ProcessingException ignored) {
+            /*
+             * A message reached the exception threshold: this cannot happen
+             * with an encoded report
+             */
+            throw invalid(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Decode a report
+     *
+     * @param bytes the encoded report
+     * @return the decoded report
+     * @throws IOException input is not a valid encoded report
+     */
+    public ListProcessingReport decodeReport(final byte[] bytes)
+        throws IOException
+    {
+        return decodeReport(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Decode a message from an input stream
+     *
+     * <p>The input stream is not closed.</p>
+     *
+     * @param in the input stream
+     * @return the decoded message
+     * @throws IOException failed to read from the input stream, or the input
+     * is not a valid encoded message
+     * @throws NullPointerException input stream is null
+     */
+    public ProcessingMessage decodeMessage(final InputStream in)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(in, "report.nullInputStream");
+        final JsonParser parser = newParser(in);
+        try {
+            expect(parser, parser.nextToken() == JsonToken.START_OBJECT);
+            return readMessage(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Decode a message
+     *
+     * @param bytes the encoded message
+     * @return the decoded message
+     * @throws IOException input is not a valid encoded message
+     */
+    public ProcessingMessage decodeMessage(final byte[] bytes)
+        throws IOException
+    {
+        return decodeMessage(new ByteArrayInputStream(bytes));
+    }
+
+    private JsonGenerator newGenerator(final OutputStream out)
+        throws IOException
+    {
+        return factory.createGenerator(out)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private JsonParser newParser(final InputStream in)
+        throws IOException
+    {
+        return factory.createParser(in)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    /**
+     * Read a message; the parser is positioned on the start of the object
+     *
+     * <p>Textual values are stored as is; other values are read as trees,
+     * which need not be copied.</p>
+     *
+     * @param parser the parser
+     * @return the message
+     * @throws IOException read failure, or invalid input
+     */
+    private ProcessingMessage readMessage(final JsonParser parser)
+        throws IOException
+    {
+        final ProcessingMessage message = new ProcessingMessage();
+        String key;
+        JsonToken token;
+        LogLevel level;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            key = parser.getCurrentName();
+            token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING) {
+                if ("level".equals(key)
+                    && (level = levelOf(parser.getText())) != null)
+                    message.setLogLevel(level);
+                else
+                    message.put(key, parser.getText());
+                continue;
+            }
+            message.putNode(key, mapper.<JsonNode>readTree(parser));
+        }
+
+        expect(parser, parser.getCurrentToken() == JsonToken.END_OBJECT);
+        return message;
+    }
+
+    private static String textField(final JsonParser parser, final String name)
+        throws IOException
+    {
+        expectField(parser, name);
+        expect(parser, parser.nextToken() == JsonToken.VALUE_STRING);
+        return parser.getText();
+    }
+
+    private static void expectField(final JsonParser parser, final String name)
+        throws IOException
+    {
+        expect(parser, parser.nextToken() == JsonToken.FIELD_NAME
+            && name.equals(parser.getCurrentName()));
+    }
+
+    private static void expect(final JsonParser parser, final boolean condition)
+        throws JsonParseException
+    {
+        if (!condition)
+            throw invalid(parser);
+    }
+
+    private static JsonParseException invalid(final JsonParser parser)
+    {
+        return new JsonParseException(BUNDLE.getMessage(
+            "report.invalidEncoding"), parser.getCurrentLocation());
+    }
+
+    /**
+     * Return the log level with a given name
+     *
+     * @param name the name
+     * @return the log level, or null if no level has this name
+     * @see LogLevel#toString()
+     */
+    private static LogLevel levelOf(final String name)
+    {
+        for (final LogLevel level: LogLevel.values())
+            if (level.toString().equals(name))
+                return level;
+        return null;
+    }
+
+    /**
+     * Holder of the Smile codec, so that Smile classes are only loaded when
+     * this codec is requested
+     */
+    private static final class SmileCodec
+    {
+        private static final ProcessingReportCodec INSTANCE
+            = new ProcessingReportCodec(new SmileFactory()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES));
+
+        private SmileCodec()
+        {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Iterables;
+
+/**
+ * Utility methods for {@link ProcessingReport}s
+ *
+ * <p>These methods give access to the features of {@link
+ * CooperativeProcessingReport} for any report, with a sensible fallback for
+ * reports which do not implement that interface, and to features specific to
+ * implementations of this package.</p>
+ */
+public final class ProcessingReports
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private ProcessingReports()
+    {
+    }
+
+    /**
+     * Tell whether a message with a given log level has any effect on a report
+     *
+     * <p>If the report is a {@link CooperativeProcessingReport}, it is asked
+     * directly. Otherwise, this is computed from the log level and exception
+     * threshold of the report, as {@link AbstractProcessingReport} does.</p>
+     *
+     * @param report the report
+     * @param level the log level
+     * @return true if a message with this level would not be discarded
+     * @throws NullPointerException report is null
+     * @see CooperativeProcessingReport#isEnabled(LogLevel)
+     */
+    public static boolean isEnabled(final ProcessingReport report,
+        final LogLevel level)
+    {
+        BUNDLE.checkNotNull(report, "processing.nullReport");
+        if (report instanceof CooperativeProcessingReport)
+            return ((CooperativeProcessingReport) report).isEnabled(level);
+        return level.compareTo(LogLevel.ERROR) >= 0
+            || level.compareTo(report.getLogLevel()) >= 0
+            || level.compareTo(report.getExceptionThreshold()) >= 0;
+    }
+
+    /**
+     * Return the number of messages of a report
+     *
+     * <p>This is the number of messages yielded when iterating over the
+     * report; it is computed in constant time for a {@link
+     * ListProcessingReport}, and by iterating over the report otherwise.</p>
+     *
+     * @param report the report
+     * @return the number of messages
+     * @throws NullPointerException report is null
+     */
+    public static int size(final ProcessingReport report)
+    {
+        BUNDLE.checkNotNull(report, "processing.nullReport");
+        return report instanceof ListProcessingReport
+            ? ((ListProcessingReport) report).size()
+            : Iterables.size(report);
+    }
+
+    /**
+     * Tell whether a report has collected enough errors
+     *
+     * @param report the report
+     * @return true if producers may stop processing; always false if the
+     * report is not a {@link CooperativeProcessingReport}
+     * @throws NullPointerException report is null
+     * @see CooperativeProcessingReport#isSaturated()
+     */
+    public static boolean isSaturated(final ProcessingReport report)
+    {
+        BUNDLE.checkNotNull(report, "processing.nullReport");
+        return report instanceof CooperativeProcessingReport
+            && ((CooperativeProcessingReport) report).isSaturated();
+    }
+}
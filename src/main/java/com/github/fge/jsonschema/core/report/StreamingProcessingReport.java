@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Charsets;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * A processing report writing its messages as JSON lines
+ *
+ * <p>Each logged message is written to the underlying {@link Writer} as a
+ * single line containing a JSON object, as soon as it is logged; the JSON
+ * object is written directly, without building an intermediate JSON value.
+ * Apart from the number of messages logged for each level, this report
+ * retains nothing in memory; as such, iterating over it yields no messages.
+ * </p>
+ *
+ * <p>The underlying writer is not flushed after each message: wrap it into a
+ * buffered writer if needed, and call {@link #flush()} or {@link #close()}
+ * when done.</p>
+ *
+ * <p>Since {@link #log(LogLevel, ProcessingMessage)} cannot throw an {@link
+ * IOException}, the first I/O error encountered is retained and thrown by
+ * the next call to {@link #flush()} or {@link #close()}; messages logged after
+ * such an error are counted, but not written.</p>
+ */
+@NotThreadSafe
+public final class StreamingProcessingReport
+    extends AbstractProcessingReport
+    implements Closeable, Flushable
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper()
+        .disable(SerializationFeature.INDENT_OUTPUT);
+
+    private final JsonGenerator generator;
+
+    private final long[] counts = new long[LogLevel.values().length];
+
+    private IOException ioException = null;
+
+    public StreamingProcessingReport(final Writer writer,
+        final LogLevel logLevel, final LogLevel exceptionThreshold)
+    {
+        super(logLevel, exceptionThreshold);
+        BUNDLE.checkNotNull(writer, "report.nullWriter");
+        try {
+            generator = MAPPER.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        } catch (IOException e) {
+            throw new IllegalStateException("unexpected I/O exception", e);
+        }
+    }
+
+    public StreamingProcessingReport(final Writer writer,
+        final LogLevel logLevel)
+    {
+        this(writer, logLevel, LogLevel.FATAL);
+    }
+
+    public StreamingProcessingReport(final Writer writer)
+    {
+        this(writer, LogLevel.INFO, LogLevel.FATAL);
+    }
+
+    /**
+     * Constructor writing to an output stream
+     *
+     * <p>Messages are encoded in UTF-8.</p>
+     *
+     * @param out the output stream
+     * @param logLevel the log threshold
+     * @param exceptionThreshold the exception threshold
+     * @throws NullPointerException output stream is null
+     */
+    public StreamingProcessingReport(final OutputStream out,
+        final LogLevel logLevel, final LogLevel exceptionThreshold)
+    {
+        this(newWriter(out), logLevel, exceptionThreshold);
+    }
+
+    public StreamingProcessingReport(final OutputStream out,
+        final LogLevel logLevel)
+    {
+        this(newWriter(out), logLevel, LogLevel.FATAL);
+    }
+
+    public StreamingProcessingReport(final OutputStream out)
+    {
+        this(newWriter(out), LogLevel.INFO, LogLevel.FATAL);
+    }
+
+    private static Writer newWriter(final OutputStream out)
+    {
+        BUNDLE.checkNotNull(out, "report.nullOutputStream");
+        return new OutputStreamWriter(out, Charsets.UTF_8);
+    }
+
+    @Override
+    public void log(final LogLevel level, final ProcessingMessage message)
+    {
+        counts[level.ordinal()]++;
+        if (ioException != null)
+            return;
+        try {
+            message.writeTo(generator);
+            generator.writeRaw('\n');
+            generator.flush();
+        } catch (IOException e) {
+            ioException = e;
+        }
+    }
+
+    /**
+     * Return the number of messages logged with a given level
+     *
+     * @param level the log level
+     * @return the number of messages
+     * @throws NullPointerException log level is null
+     */
+    public long getCount(final LogLevel level)
+    {
+        BUNDLE.checkNotNull(level, "processing.nullLevel");
+        return counts[level.ordinal()];
+    }
+
+    /**
+     * Flush the underlying writer
+     *
+     * @throws IOException failed to flush, or an I/O error occurred while
+     * writing a previous message
+     */
+    @Override
+    public void flush()
+        throws IOException
+    {
+        checkIOException();
+        generator.enable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        try {
+            generator.flush();
+        } finally {
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+    }
+
+    /**
+     * Close the underlying writer
+     *
+     * @throws IOException failed to close, or an I/O error occurred while
+     * writing a previous message
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        try {
+            checkIOException();
+        } finally {
+            generator.close();
+        }
+    }
+
+    private void checkIOException()
+        throws IOException
+    {
+        final IOException e = ioException;
+        if (e == null)
+            return;
+        ioException = null;
+        throw e;
+    }
+}
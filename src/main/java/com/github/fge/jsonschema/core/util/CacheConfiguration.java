@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.util;
+
+import com.github.fge.Frozen;
+import com.github.fge.jsonschema.core.processing.CachingProcessor;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache configuration (frozen instance)
+ *
+ * <p>This configuration is used by caching components of this library (for
+ * instance, {@link CachingProcessor}) in order to build their internal caches.
+ * It allows you to bound a cache, either by its number of entries or by the
+ * total weight of its entries, to expire entries which have not been accessed
+ * or written for some time, to refresh entries some time after they have been
+ * written, and to have values softly referenced.</p>
+ *
+ * <p>The default configuration (obtained using {@link #byDefault()}) has no
+ * bounds and records {@link CacheStats statistics}.</p>
+ *
+ * <p>How an entry is weighed depends on the component using the configuration;
+ * it is the component which supplies the {@link Weigher} to {@link
+ * #newCacheBuilder(Weigher)}.</p>
+ *
+ * @see CacheConfigurationBuilder
+ */
+@Immutable
+public final class CacheConfiguration
+    implements Frozen<CacheConfigurationBuilder>
+{
+    /**
+     * Value for unset bounds and durations
+     */
+    static final long UNSET = -1L;
+
+    final long maximumSize;
+    final long maximumWeight;
+    final long expireAfterAccess;
+    final long expireAfterWrite;
+    final long refreshAfterWrite;
+    final boolean softValues;
+    final boolean recordStats;
+
+    /**
+     * Create a new, default, mutable configuration instance
+     *
+     * @return a {@link CacheConfigurationBuilder}
+     */
+    public static CacheConfigurationBuilder newBuilder()
+    {
+        return new CacheConfigurationBuilder();
+    }
+
+    /**
+     * Create a default, immutable cache configuration
+     *
+     * @return a default configuration
+     */
+    public static CacheConfiguration byDefault()
+    {
+        return newBuilder().freeze();
+    }
+
+    /**
+     * Create a frozen cache configuration from a thawed one
+     *
+     * @param builder the thawed configuration
+     * @see CacheConfigurationBuilder#freeze()
+     */
+    CacheConfiguration(final CacheConfigurationBuilder builder)
+    {
+        maximumSize = builder.maximumSize;
+        maximumWeight = builder.maximumWeight;
+        expireAfterAccess = builder.expireAfterAccess;
+        expireAfterWrite = builder.expireAfterWrite;
+        refreshAfterWrite = builder.refreshAfterWrite;
+        softValues = builder.softValues;
+        recordStats = builder.recordStats;
+    }
+
+    /**
+     * Return the maximum number of entries of the cache
+     *
+     * @return the maximum size, or a negative value if unbounded
+     */
+    public long getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    /**
+     * Return the maximum total weight of the entries of the cache
+     *
+     * @return the maximum weight, or a negative value if unbounded
+     */
+    public long getMaximumWeight()
+    {
+        return maximumWeight;
+    }
+
+    /**
+     * Return the delay after which an entry is evicted if not accessed
+     *
+     * @param unit the time unit to express the delay in
+     * @return the delay, or a negative value if entries never expire
+     */
+    public long getExpireAfterAccess(final TimeUnit unit)
+    {
+        return expireAfterAccess == UNSET ? UNSET
+            : unit.convert(expireAfterAccess, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the delay after which an entry is evicted once written
+     *
+     * @param unit the time unit to express the delay in
+     * @return the delay, or a negative value if entries never expire
+     */
+    public long getExpireAfterWrite(final TimeUnit unit)
+    {
+        return expireAfterWrite == UNSET ? UNSET
+            : unit.convert(expireAfterWrite, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the delay after which an entry is refreshed once written
+     *
+     * @param unit the time unit to express the delay in
+     * @return the delay, or a negative value if entries are never refreshed
+     */
+    public long getRefreshAfterWrite(final TimeUnit unit)
+    {
+        return refreshAfterWrite == UNSET ? UNSET
+            : unit.convert(refreshAfterWrite, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tell whether cached values are softly referenced
+     *
+     * @return true if this is the case
+     */
+    public boolean getSoftValues()
+    {
+        return softValues;
+    }
+
+    /**
+     * Tell whether cache statistics are recorded
+     *
+     * @return true if this is the case
+     */
+    public boolean getRecordStats()
+    {
+        return recordStats;
+    }
+
+    /**
+     * Build a new {@link CacheBuilder} from this configuration
+     *
+     * <p>The weigher is only used if this configuration has a maximum weight;
+     * it may be null otherwise.</p>
+     *
+     * @param weigher the weigher to use for cache entries
+     * @param <K> the type of cache keys
+     * @param <V> the type of cache values
+     * @return a new cache builder
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> CacheBuilder<K, V> newCacheBuilder(
+        final Weigher<? super K, ? super V> weigher)
+    {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+
+        if (maximumSize != UNSET)
+            builder.maximumSize(maximumSize);
+        if (expireAfterAccess != UNSET)
+            builder.expireAfterAccess(expireAfterAccess, TimeUnit.NANOSECONDS);
+        if (expireAfterWrite != UNSET)
+            builder.expireAfterWrite(expireAfterWrite, TimeUnit.NANOSECONDS);
+        if (refreshAfterWrite != UNSET)
+            builder.refreshAfterWrite(refreshAfterWrite, TimeUnit.NANOSECONDS);
+        if (softValues)
+            builder.softValues();
+        if (recordStats)
+            builder.recordStats();
+
+        if (maximumWeight == UNSET)
+            return (CacheBuilder<K, V>) (CacheBuilder) builder;
+
+        return builder.maximumWeight(maximumWeight).weigher(weigher);
+    }
+
+    /**
+     * Return a thawed version of this cache configuration
+     *
+     * @return a thawed copy
+     * @see CacheConfigurationBuilder#CacheConfigurationBuilder(CacheConfiguration)
+     */
+    @Override
+    public CacheConfigurationBuilder thaw()
+    {
+        return new CacheConfigurationBuilder(this);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.util;
+
+import com.github.fge.Thawed;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache configuration (mutable instance)
+ *
+ * <p>Example:</p>
+ *
+ * <pre>
+ *     final CacheConfiguration cfg = CacheConfiguration.newBuilder()
+ *         .setMaximumWeight(500000L)
+ *         .setExpireAfterAccess(10L, TimeUnit.MINUTES)
+ *         .setRefreshAfterWrite(1L, TimeUnit.HOURS)
+ *         .setSoftValues(true)
+ *         .freeze();
+ * </pre>
+ *
+ * <p>Note that a cache can be bounded either by its size or by its weight, but
+ * not both.</p>
+ *
+ * @see CacheConfiguration
+ */
+@NotThreadSafe
+public final class CacheConfigurationBuilder
+    implements Thawed<CacheConfiguration>
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    long maximumSize = CacheConfiguration.UNSET;
+
+    long maximumWeight = CacheConfiguration.UNSET;
+
+    long expireAfterAccess = CacheConfiguration.UNSET;
+
+    long expireAfterWrite = CacheConfiguration.UNSET;
+
+    long refreshAfterWrite = CacheConfiguration.UNSET;
+
+    boolean softValues = false;
+
+    /**
+     * Statistics are recorded by default
+     */
+    boolean recordStats = true;
+
+    /**
+     * Return a new, default mutable cache configuration
+     *
+     * @see CacheConfiguration#newBuilder()
+     */
+    CacheConfigurationBuilder()
+    {
+    }
+
+    /**
+     * Build a mutable cache configuration out of a frozen one
+     *
+     * @param cfg the frozen configuration
+     * @see CacheConfiguration#thaw()
+     */
+    CacheConfigurationBuilder(final CacheConfiguration cfg)
+    {
+        maximumSize = cfg.maximumSize;
+        maximumWeight = cfg.maximumWeight;
+        expireAfterAccess = cfg.expireAfterAccess;
+        expireAfterWrite = cfg.expireAfterWrite;
+        refreshAfterWrite = cfg.refreshAfterWrite;
+        softValues = cfg.softValues;
+        recordStats = cfg.recordStats;
+    }
+
+    /**
+     * Set the maximum number of entries of the cache
+     *
+     * @param maximumSize the maximum size
+     * @return this
+     * @throws IllegalArgumentException size is negative, or a maximum weight
+     * has already been set
+     */
+    public CacheConfigurationBuilder setMaximumSize(final long maximumSize)
+    {
+        BUNDLE.checkArgument(maximumSize >= 0L, "cacheCfg.negativeSize");
+        BUNDLE.checkArgument(maximumWeight == CacheConfiguration.UNSET,
+            "cacheCfg.sizeAndWeight");
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Set the maximum total weight of the entries of the cache
+     *
+     * @param maximumWeight the maximum weight
+     * @return this
+     * @throws IllegalArgumentException weight is negative, or a maximum size
+     * has already been set
+     */
+    public CacheConfigurationBuilder setMaximumWeight(final long maximumWeight)
+    {
+        BUNDLE.checkArgument(maximumWeight >= 0L, "cacheCfg.negativeWeight");
+        BUNDLE.checkArgument(maximumSize == CacheConfiguration.UNSET,
+            "cacheCfg.sizeAndWeight");
+        this.maximumWeight = maximumWeight;
+        return this;
+    }
+
+    /**
+     * Evict entries which have not been accessed for a given delay
+     *
+     * @param duration the delay
+     * @param unit the time unit of the delay
+     * @return this
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException delay is negative
+     */
+    public CacheConfigurationBuilder setExpireAfterAccess(final long duration,
+        final TimeUnit unit)
+    {
+        BUNDLE.checkNotNull(unit, "cacheCfg.nullTimeUnit");
+        BUNDLE.checkArgument(duration >= 0L, "cacheCfg.negativeDuration");
+        expireAfterAccess = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Evict entries a given delay after they have been created or replaced
+     *
+     * @param duration the delay
+     * @param unit the time unit of the delay
+     * @return this
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException delay is negative
+     */
+    public CacheConfigurationBuilder setExpireAfterWrite(final long duration,
+        final TimeUnit unit)
+    {
+        BUNDLE.checkNotNull(unit, "cacheCfg.nullTimeUnit");
+        BUNDLE.checkArgument(duration >= 0L, "cacheCfg.negativeDuration");
+        expireAfterWrite = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Refresh entries a given delay after they have been created or replaced
+     *
+     * <p>An entry is only refreshed when it is next queried; until the new
+     * value is loaded, the old value is returned. How the new value is loaded
+     * depends on the component using this configuration.</p>
+     *
+     * @param duration the delay
+     * @param unit the time unit of the delay
+     * @return this
+     * @throws NullPointerException time unit is null
+     * @throws IllegalArgumentException delay is not strictly positive
+     */
+    public CacheConfigurationBuilder setRefreshAfterWrite(final long duration,
+        final TimeUnit unit)
+    {
+        BUNDLE.checkNotNull(unit, "cacheCfg.nullTimeUnit");
+        BUNDLE.checkArgument(duration > 0L, "cacheCfg.illegalRefreshDelay");
+        refreshAfterWrite = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Should cached values be softly referenced
+     *
+     * <p>Softly referenced values are reclaimed by the garbage collector when
+     * memory runs low.</p>
+     *
+     * @param softValues true if values should be softly referenced
+     * @return this
+     */
+    public CacheConfigurationBuilder setSoftValues(final boolean softValues)
+    {
+        this.softValues = softValues;
+        return this;
+    }
+
+    /**
+     * Should cache statistics be recorded
+     *
+     * @param recordStats true if statistics should be recorded
+     * @return this
+     */
+    public CacheConfigurationBuilder setRecordStats(final boolean recordStats)
+    {
+        this.recordStats = recordStats;
+        return this;
+    }
+
+    /**
+     * Freeze this configuration
+     *
+     * @return a frozen copy of this builder
+     */
+    @Override
+    public CacheConfiguration freeze()
+    {
+        return new CacheConfiguration(this);
+    }
+}
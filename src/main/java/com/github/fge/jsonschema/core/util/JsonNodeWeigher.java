@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * A {@link Weigher} for JSON values
+ *
+ * <p>The weight of a {@link JsonNode} is the number of nodes it is made of,
+ * including itself: a scalar value weighs 1, an array of two scalar values
+ * weighs 3, etc. A null node reference weighs 0.</p>
+ */
+public final class JsonNodeWeigher
+    implements Weigher<Object, JsonNode>
+{
+    private static final JsonNodeWeigher INSTANCE = new JsonNodeWeigher();
+
+    private JsonNodeWeigher()
+    {
+    }
+
+    public static JsonNodeWeigher getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Count the number of nodes in a JSON value
+     *
+     * <p>The count saturates at {@link Integer#MAX_VALUE}.</p>
+     *
+     * @param node the value (may be null)
+     * @return the number of nodes
+     */
+    public static int nodeCount(final JsonNode node)
+    {
+        if (node == null)
+            return 0;
+
+        /*
+         * Avoid recursion: schemas may be deeply nested
+         */
+        final List<JsonNode> stack = Lists.newArrayList();
+        stack.add(node);
+
+        long count = 0L;
+        JsonNode current;
+
+        while (!stack.isEmpty()) {
+            current = stack.remove(stack.size() - 1);
+            count++;
+            if (current.isContainerNode())
+                for (final JsonNode child: current)
+                    stack.add(child);
+        }
+
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int weigh(final Object key, final JsonNode value)
+    {
+        return nodeCount(value);
+    }
+}
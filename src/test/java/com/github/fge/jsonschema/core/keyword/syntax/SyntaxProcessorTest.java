@@ -33,6 +33,7 @@ import com.github.fge.jsonschema.core.util.Dictionary;
 import com.github.fge.jsonschema.core.util.DictionaryBuilder;
 import com.github.fge.jsonschema.core.messages.JsonSchemaSyntaxMessageBundle;
 import com.github.fge.jsonschema.core.report.AbstractProcessingReport;
+import com.github.fge.jsonschema.core.report.BoundedProcessingReport;
 import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
@@ -45,6 +46,8 @@ import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -56,6 +59,7 @@ import java.util.Iterator;
 import static com.github.fge.jsonschema.TestUtils.*;
 import static com.github.fge.jsonschema.matchers.ProcessingMessageAssert.*;
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
 
 public final class SyntaxProcessorTest
 {
@@ -205,6 +209,41 @@ public final class SyntaxProcessorTest
             any(MessageBundle.class), anyReport(), anySchema());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void processingStopsWhenReportIsSaturated()
+        throws ProcessingException
+    {
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(final InvocationOnMock invocation)
+            {
+                final Collection<JsonPointer> pointers
+                    = (Collection<JsonPointer>) invocation.getArguments()[0];
+                pointers.add(JsonPointer.of(K1));
+                return null;
+            }
+        }).when(checker).checkSyntax(anyCollectionOf(JsonPointer.class),
+            any(MessageBundle.class), anyReport(), anySchema());
+
+        final ObjectNode schema = FACTORY.objectNode();
+        schema.put(K1, FACTORY.objectNode());
+        schema.put(K2, "");
+        final SchemaTree tree
+            = new CanonicalSchemaTree(SchemaKey.anonymousKey(), schema);
+        final ValueHolder<SchemaTree> holder = ValueHolder.hold("schema", tree);
+
+        final BoundedProcessingReport bounded
+            = new BoundedProcessingReport(report, 1);
+        processor.process(bounded, holder);
+
+        assertTrue(bounded.isSaturated());
+        verify(checker, times(1))
+            .checkSyntax(anyCollectionOf(JsonPointer.class),
+                any(MessageBundle.class), anyReport(), anySchema());
+    }
+
     private static class TestProcessingReport
         extends AbstractProcessingReport
     {
@@ -34,6 +34,7 @@ import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.tree.key.SchemaKey;
 import com.github.fge.jsonschema.core.util.Dictionary;
 import com.github.fge.jsonschema.core.messages.JsonSchemaSyntaxMessageBundle;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
 import com.github.fge.jsonschema.core.tree.CanonicalSchemaTree;
@@ -135,6 +136,8 @@ public abstract class SyntaxCheckersTest
     {
         pointers = Lists.newArrayList();
         report = mock(ProcessingReport.class);
+        when(report.getLogLevel()).thenReturn(LogLevel.DEBUG);
+        when(report.getExceptionThreshold()).thenReturn(LogLevel.NONE);
     }
 
     /*
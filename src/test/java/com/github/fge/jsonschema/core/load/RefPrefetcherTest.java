@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.keyword.syntax.dictionaries.DraftV3SyntaxCheckerDictionary;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfiguration;
+import com.github.fge.jsonschema.core.load.download.URIDownloader;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.tree.CanonicalSchemaTree;
+import com.github.fge.jsonschema.core.tree.SchemaTree;
+import com.github.fge.jsonschema.core.tree.key.SchemaKey;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class RefPrefetcherTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    private final Map<URI, JsonNode> documents = Maps.newHashMap();
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void init()
+    {
+        documents.clear();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterMethod
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void transitiveClosureIsFetchedOnce()
+        throws ProcessingException, IOException
+    {
+        document("foo:/a", ref("foo:/b#"), ref("c#/definitions/x"));
+        document("foo:/b", ref("foo:/a#"));
+        document("foo:/c", ref("foo:/d#"));
+        document("foo:/d");
+
+        final URIDownloader downloader = spy(new Downloader());
+        final SchemaLoader loader = loader(downloader);
+        final SchemaTree tree = tree(ref("foo:/a#"));
+
+        final SchemaTree ret = new RefPrefetcher(loader, executor)
+            .rawProcess(new ListProcessingReport(), tree);
+
+        assertSame(ret, tree);
+        for (final URI uri: documents.keySet())
+            verify(downloader).fetch(uri);
+        verifyNoMoreInteractions(downloader);
+
+        for (final URI uri: documents.keySet())
+            loader.get(uri);
+        verifyNoMoreInteractions(downloader);
+    }
+
+    @Test
+    public void refsAreResolvedAgainstIdContexts()
+        throws ProcessingException, IOException
+    {
+        document("foo:/x/a");
+
+        final URIDownloader downloader = spy(new Downloader());
+        final ObjectNode schema = FACTORY.objectNode();
+        schema.putObject("items").put("id", "foo:/x/").put("$ref", "a#");
+
+        new RefPrefetcher(loader(downloader), executor)
+            .rawProcess(new ListProcessingReport(), tree(schema));
+
+        verify(downloader).fetch(URI.create("foo:/x/a#"));
+        verifyNoMoreInteractions(downloader);
+    }
+
+    @Test
+    public void onlySchemaPositionsAreScanned()
+        throws ProcessingException, IOException
+    {
+        document("foo:/a");
+
+        final URIDownloader downloader = spy(new Downloader());
+        final ObjectNode schema = FACTORY.objectNode();
+        schema.putArray("enum").add(ref("foo:/enum#"));
+        schema.put("default", ref("foo:/default#"));
+        schema.putObject("properties").put("enum", ref("foo:/a#"));
+        schema.putObject("unknown").put("foo", ref("foo:/unknown#"));
+
+        new RefPrefetcher(loader(downloader), executor)
+            .rawProcess(new ListProcessingReport(), tree(schema));
+
+        verify(downloader).fetch(URI.create("foo:/a#"));
+        verifyNoMoreInteractions(downloader);
+    }
+
+    @Test
+    public void subschemasAreFoundUsingTheGivenDictionary()
+        throws ProcessingException, IOException
+    {
+        document("foo:/a");
+
+        final URIDownloader downloader = spy(new Downloader());
+        final ObjectNode schema = FACTORY.objectNode();
+        schema.put("extends", ref("foo:/a#"));
+
+        new RefPrefetcher(loader(downloader), executor)
+            .rawProcess(new ListProcessingReport(), tree(schema));
+        verifyZeroInteractions(downloader);
+
+        new RefPrefetcher(loader(downloader), executor,
+            DraftV3SyntaxCheckerDictionary.get())
+            .rawProcess(new ListProcessingReport(), tree(schema));
+        verify(downloader).fetch(URI.create("foo:/a#"));
+        verifyNoMoreInteractions(downloader);
+    }
+
+    @Test
+    public void documentsAreFetchedConcurrently()
+        throws ProcessingException
+    {
+        document("foo:/a");
+        document("foo:/b");
+        document("foo:/c");
+
+        /*
+         * All fetches must be in flight at the same time for any of them to
+         * succeed
+         */
+        final CountDownLatch latch = new CountDownLatch(3);
+        final URIDownloader downloader = new Downloader()
+        {
+            @Override
+            public InputStream fetch(final URI source)
+                throws IOException
+            {
+                latch.countDown();
+                try {
+                    if (!latch.await(5L, TimeUnit.SECONDS))
+                        throw new IOException("not concurrent");
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.fetch(source);
+            }
+        };
+        final ProcessingReport report
+            = new ListProcessingReport(LogLevel.DEBUG);
+
+        new RefPrefetcher(loader(downloader), executor).rawProcess(report,
+            tree(ref("foo:/a#"), ref("foo:/b#"), ref("foo:/c#")));
+
+        assertTrue(report.isSuccess());
+        assertFalse(report.iterator().hasNext());
+    }
+
+    @Test
+    public void failedFetchesAreReportedAndDoNotStopPrefetching()
+        throws ProcessingException, IOException
+    {
+        document("foo:/a", ref("foo:/b#"));
+        document("foo:/b");
+
+        final URIDownloader downloader = spy(new Downloader());
+        final ProcessingReport report
+            = new ListProcessingReport(LogLevel.DEBUG);
+
+        new RefPrefetcher(loader(downloader), executor).rawProcess(report,
+            tree(ref("foo:/a#"), ref("foo:/missing#")));
+
+        verify(downloader).fetch(URI.create("foo:/b#"));
+
+        final List<ProcessingMessage> messages = Lists.newArrayList(report);
+        assertEquals(messages.size(), 1);
+        assertEquals(messages.get(0).getLogLevel(), LogLevel.DEBUG);
+        assertEquals(messages.get(0).getMessage(), BUNDLE.printf(
+            "refProcessing.prefetchFailed", "foo:/missing#"));
+        assertTrue(report.isSuccess());
+    }
+
+    private void document(final String uri, final JsonNode... refs)
+    {
+        documents.put(URI.create(uri + '#'), schema(refs));
+    }
+
+    private static JsonNode ref(final String ref)
+    {
+        return FACTORY.objectNode().put("$ref", ref);
+    }
+
+    private static ObjectNode schema(final JsonNode... refs)
+    {
+        final ObjectNode ret = FACTORY.objectNode();
+        ret.putArray("anyOf").addAll(Lists.newArrayList(refs));
+        ret.with("definitions").putObject("x");
+        return ret;
+    }
+
+    private static SchemaTree tree(final JsonNode... refs)
+    {
+        return tree(schema(refs));
+    }
+
+    private static SchemaTree tree(final JsonNode schema)
+    {
+        return new CanonicalSchemaTree(SchemaKey.anonymousKey(), schema);
+    }
+
+    private static SchemaLoader loader(final URIDownloader downloader)
+    {
+        return new SchemaLoader(LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).freeze());
+    }
+
+    private class Downloader
+        implements URIDownloader
+    {
+        @Override
+        public InputStream fetch(final URI source)
+            throws IOException
+        {
+            final JsonNode node = documents.get(source);
+            if (node == null)
+                throw new IOException("not found: " + source);
+            return new ByteArrayInputStream(node.toString().getBytes());
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
 import com.github.fge.jsonschema.core.ref.JsonRef;
 import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.tree.SchemaTree;
+import com.github.fge.jsonschema.core.util.CacheConfiguration;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import org.testng.annotations.Test;
@@ -37,6 +38,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.fge.jsonschema.matchers.ProcessingMessageAssert.*;
 import static org.mockito.Mockito.*;
@@ -194,5 +196,68 @@ public final class SchemaLoaderTest
         loader.get(uri);
         verify(downloader, times(2)).fetch(uri);
     }
-    
+
+    @Test
+    public void schemaCacheIsBoundedByWeight()
+        throws ProcessingException, IOException
+    {
+        final URI uri1 = URI.create("foo:/a#");
+        final URI uri2 = URI.create("foo:/b#");
+        final URIDownloader downloader = spy(new URIDownloader()
+        {
+            @Override
+            public InputStream fetch(final URI source)
+                throws IOException
+            {
+                return new ByteArrayInputStream(BYTES);
+            }
+        });
+
+        /*
+         * Each schema is an empty object, and as such weighs 1
+         */
+        final CacheConfiguration cacheCfg = CacheConfiguration.newBuilder()
+            .setMaximumWeight(1L).freeze();
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).setCacheConfiguration(cacheCfg)
+            .freeze();
+        final SchemaLoader loader = new SchemaLoader(cfg);
+
+        loader.get(uri1);
+        loader.get(uri2);
+        loader.get(uri1);
+        verify(downloader, times(2)).fetch(uri1);
+        verify(downloader, times(1)).fetch(uri2);
+        assertEquals(loader.getCacheStats().evictionCount(), 2L);
+        assertEquals(loader.getCacheStats().missCount(), 3L);
+    }
+
+    @Test
+    public void schemasAreRefreshedInTheBackground()
+        throws ProcessingException, IOException, InterruptedException
+    {
+        final URI uri = URI.create("foo:/baz#");
+        final URIDownloader downloader = spy(new URIDownloader()
+        {
+            @Override
+            public InputStream fetch(final URI source)
+                throws IOException
+            {
+                return new ByteArrayInputStream(BYTES);
+            }
+        });
+
+        final CacheConfiguration cacheCfg = CacheConfiguration.newBuilder()
+            .setRefreshAfterWrite(1L, TimeUnit.MILLISECONDS).freeze();
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).setCacheConfiguration(cacheCfg)
+            .freeze();
+        final SchemaLoader loader = new SchemaLoader(cfg);
+
+        loader.get(uri);
+        TimeUnit.MILLISECONDS.sleep(10L);
+        loader.get(uri);
+        verify(downloader, timeout(5000).times(2)).fetch(uri);
+        assertEquals(loader.getCacheStats().hitCount(), 1L);
+    }
 }
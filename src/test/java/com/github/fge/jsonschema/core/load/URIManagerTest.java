@@ -22,14 +22,24 @@ package com.github.fge.jsonschema.core.load;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jsonschema.core.exceptions.DeadlineExceededException;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.load.configuration.LoadingConfiguration;
+import com.github.fge.jsonschema.core.load.download.AsyncURIDownloader;
 import com.github.fge.jsonschema.core.load.download.URIDownloader;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.ProcessingDeadline;
+import com.github.fge.jsonschema.core.processing.RawProcessor;
 import com.github.fge.jsonschema.core.ref.JsonRef;
+import com.github.fge.jsonschema.core.report.DevNullProcessingReport;
 import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.util.ValueHolder;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -37,6 +47,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.ExecutionException;
 
 import static com.github.fge.jsonschema.matchers.ProcessingMessageAssert.*;
 import static org.mockito.Mockito.*;
@@ -146,4 +157,137 @@ public final class URIManagerTest
         // validate correctness of loaded equivalent sources
         assertTrue(JsonNumEquals.getInstance().equivalent(node1, node2));
     }
+
+    @Test
+    public void asyncDownloadersAreUsedAsynchronously()
+        throws ExecutionException, InterruptedException
+    {
+        final URI uri = URI.create("foo://bar");
+        final AsyncURIDownloader downloader = mock(AsyncURIDownloader.class);
+        final SettableFuture<byte[]> bytes = SettableFuture.create();
+        when(downloader.fetchAsync(uri)).thenReturn(bytes);
+
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).freeze();
+        final ListenableFuture<JsonNode> future
+            = new URIManager(cfg).getContentAsync(uri);
+
+        assertFalse(future.isDone());
+        bytes.set("[1]".getBytes());
+        assertEquals(future.get().get(0).intValue(), 1);
+    }
+
+    @Test
+    public void asyncDownloaderProblemsShouldBeReportedAsSuch()
+        throws InterruptedException
+    {
+        final URI uri = URI.create("foo://bar");
+        final AsyncURIDownloader downloader = mock(AsyncURIDownloader.class);
+        when(downloader.fetchAsync(uri)).thenReturn(
+            Futures.<byte[]>immediateFailedFuture(new IOException("foo")));
+
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).freeze();
+
+        try {
+            new URIManager(cfg).getContentAsync(uri).get();
+            fail("No exception thrown!");
+        } catch (ExecutionException e) {
+            final ProcessingException cause
+                = (ProcessingException) e.getCause();
+            assertMessage(cause.getProcessingMessage())
+                .hasMessage(BUNDLE.printf("uriManager.uriIOError", uri))
+                .hasField("uri", uri).hasField("exceptionMessage", "foo");
+        }
+    }
+
+    @Test
+    public void cancelledAsyncFetchesAreReportedAsIOErrors()
+        throws InterruptedException
+    {
+        final URI uri = URI.create("foo://bar");
+        final AsyncURIDownloader downloader = mock(AsyncURIDownloader.class);
+        final SettableFuture<byte[]> bytes = SettableFuture.create();
+        when(downloader.fetchAsync(uri)).thenReturn(bytes);
+
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).freeze();
+        final ListenableFuture<JsonNode> future
+            = new URIManager(cfg).getContentAsync(uri);
+        bytes.cancel(false);
+
+        try {
+            future.get();
+            fail("No exception thrown!");
+        } catch (ExecutionException e) {
+            final ProcessingException cause
+                = (ProcessingException) e.getCause();
+            assertMessage(cause.getProcessingMessage())
+                .hasMessage(BUNDLE.printf("uriManager.uriIOError", uri));
+        }
+    }
+
+    @Test
+    public void asyncFailuresAfterTheDeadlineAreReportedAsSuch()
+        throws ProcessingException, InterruptedException
+    {
+        final URI uri = URI.create("foo://bar");
+        final AsyncURIDownloader downloader = mock(AsyncURIDownloader.class);
+        final SettableFuture<byte[]> bytes = SettableFuture.create();
+        when(downloader.fetchAsync(uri)).thenReturn(bytes);
+
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", downloader).freeze();
+        final URIManager manager = new URIManager(cfg);
+        final ProcessingDeadline deadline = ProcessingDeadline.unbounded();
+        final ListenableFuture<JsonNode> future = deadline.process(
+            new RawProcessor<URI, ListenableFuture<JsonNode>>("uri", "content")
+            {
+                @Override
+                protected ListenableFuture<JsonNode> rawProcess(
+                    final ProcessingReport report, final URI input)
+                {
+                    return manager.getContentAsync(input);
+                }
+            }, new DevNullProcessingReport(), ValueHolder.hold("uri", uri))
+            .getValue();
+
+        deadline.cancel();
+        bytes.setException(new IOException("foo"));
+
+        try {
+            future.get();
+            fail("No exception thrown!");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            assertTrue(cause instanceof DeadlineExceededException);
+            assertMessage(((ProcessingException) cause).getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.cancelled"));
+        }
+    }
+
+    @Test
+    public void syncDownloadersAreUsedInTheCallingThread()
+        throws IOException, ExecutionException, InterruptedException
+    {
+        final URI uri = URI.create("foo://bar");
+        when(mock.fetch(uri))
+            .thenReturn(new ByteArrayInputStream("}".getBytes()));
+
+        final LoadingConfiguration cfg = LoadingConfiguration.newBuilder()
+            .addScheme("foo", mock).freeze();
+        final ListenableFuture<JsonNode> future
+            = new URIManager(cfg).getContentAsync(uri);
+
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail("No exception thrown!");
+        } catch (ExecutionException e) {
+            final ProcessingException cause
+                = (ProcessingException) e.getCause();
+            assertMessage(cause.getProcessingMessage())
+                .hasMessage(BUNDLE.printf("uriManager.uriNotJson", uri));
+        }
+    }
 }
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public final class DiskCacheURIDownloaderTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final String LAST_MODIFIED
+        = "Tue, 15 Apr 2014 10:00:00 GMT";
+
+    private HttpServer server;
+    private String base;
+
+    private volatile String etag;
+    private volatile byte[] content;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private File directory;
+
+    @BeforeClass
+    public void startServer()
+        throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/schema", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                requests.incrementAndGet();
+                final String current = etag;
+                if (current.equals(exchange.getRequestHeaders()
+                    .getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    sendNotModified(exchange);
+                    return;
+                }
+                exchange.getResponseHeaders().add("ETag", current);
+                send(exchange, 200, content);
+            }
+        });
+        server.createContext("/dated", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                requests.incrementAndGet();
+                if (LAST_MODIFIED.equals(exchange.getRequestHeaders()
+                    .getFirst("If-Modified-Since"))) {
+                    notModified.incrementAndGet();
+                    sendNotModified(exchange);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Last-Modified",
+                    LAST_MODIFIED);
+                send(exchange, 200, content);
+            }
+        });
+        server.createContext("/missing", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                requests.incrementAndGet();
+                send(exchange, 404, "not found".getBytes(Charsets.UTF_8));
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void reset()
+    {
+        etag = "\"v1\"";
+        content = "{\"type\":\"string\"}".getBytes(Charsets.UTF_8);
+        requests.set(0);
+        notModified.set(0);
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void deleteDirectory()
+    {
+        for (final File file: directory.listFiles())
+            assertTrue(file.delete());
+        assertTrue(directory.delete());
+    }
+
+    @Test
+    public void freshEntriesAreServedFromDiskAcrossInstances()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema#");
+        final byte[] expected = content;
+
+        assertEquals(fetch(downloader(1L), uri), expected);
+        assertEquals(fetch(downloader(1L), uri), expected);
+        assertEquals(fetch(downloader(1L),
+            URI.create(base + "/schema#/definitions/foo")), expected);
+        assertEquals(requests.get(), 1);
+        assertEquals(directory.listFiles().length, 1);
+    }
+
+    @Test
+    public void staleEntriesAreRevalidatedWithETag()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema#");
+        final DiskCacheURIDownloader downloader = downloader(0L);
+        final byte[] expected = content;
+
+        assertEquals(fetch(downloader, uri), expected);
+        assertEquals(fetch(downloader, uri), expected);
+        assertEquals(fetch(downloader, uri), expected);
+        assertEquals(requests.get(), 3);
+        assertEquals(notModified.get(), 2);
+    }
+
+    @Test
+    public void staleEntriesAreRevalidatedWithLastModified()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/dated#");
+        final DiskCacheURIDownloader downloader = downloader(0L);
+        final byte[] expected = content;
+
+        assertEquals(fetch(downloader, uri), expected);
+        assertEquals(fetch(downloader, uri), expected);
+        assertEquals(requests.get(), 2);
+        assertEquals(notModified.get(), 1);
+    }
+
+    @Test
+    public void modifiedContentReplacesEntry()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema#");
+
+        fetch(downloader(0L), uri);
+        etag = "\"v2\"";
+        content = "{\"type\":\"integer\"}".getBytes(Charsets.UTF_8);
+        final byte[] expected = content;
+
+        assertEquals(fetch(downloader(0L), uri), expected);
+        assertEquals(fetch(downloader(1L), uri), expected);
+        assertEquals(requests.get(), 2);
+        assertEquals(notModified.get(), 0);
+    }
+
+    @Test
+    public void corruptEntriesAreRefetched()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema#");
+        final byte[] expected = content;
+
+        fetch(downloader(1L), uri);
+        final File entry = directory.listFiles()[0];
+        final byte[] stored = Files.toByteArray(entry);
+
+        Files.write(Arrays.copyOf(stored, stored.length - 1), entry);
+        assertEquals(fetch(downloader(1L), uri), expected);
+
+        Files.write(new byte[0], entry);
+        assertEquals(fetch(downloader(1L), uri), expected);
+
+        assertEquals(fetch(downloader(1L), uri), expected);
+        assertEquals(requests.get(), 3);
+    }
+
+    @Test
+    public void failedFetchesAreNotStored()
+    {
+        final URI uri = URI.create(base + "/missing#");
+
+        try {
+            downloader(1L).fetch(uri);
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), BUNDLE.printf(
+                "uriDownloader.httpError", uri, 404));
+        }
+        assertEquals(directory.listFiles().length, 0);
+    }
+
+    @Test
+    public void entriesAreReadAndWrittenByTheExecutor()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema#");
+        final AtomicInteger tasks = new AtomicInteger();
+        final Executor executor = new Executor()
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                tasks.incrementAndGet();
+                command.run();
+            }
+        };
+        final DiskCacheURIDownloader downloader
+            = DiskCacheURIDownloader.newBuilder(directory)
+            .setTimeToLive(1L, TimeUnit.HOURS).setExecutor(executor).freeze();
+
+        assertSame(downloader.getExecutor(), executor);
+        fetch(downloader, uri);
+        assertEquals(tasks.get(), 2);
+        fetch(downloader, uri);
+        assertEquals(tasks.get(), 3);
+    }
+
+    @Test
+    public void staleTemporaryFilesAreDeletedOnCreation()
+        throws IOException
+    {
+        final File stale = File.createTempFile("foo.entry", ".tmp", directory);
+        final File recent = File.createTempFile("bar.entry", ".tmp",
+            directory);
+        final File other = File.createTempFile("baz", ".tmp", directory);
+        final long past = System.currentTimeMillis()
+            - TimeUnit.HOURS.toMillis(1L);
+
+        assertTrue(stale.setLastModified(past));
+        assertTrue(other.setLastModified(past));
+        downloader(1L);
+
+        assertFalse(stale.exists());
+        assertTrue(recent.exists());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void negativeTimeToLiveIsRejected()
+    {
+        try {
+            DiskCacheURIDownloader.newBuilder(directory)
+                .setTimeToLive(-1L, TimeUnit.SECONDS);
+            fail("No exception thrown!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("uriDownloader.negativeTimeToLive"));
+        }
+    }
+
+    private DiskCacheURIDownloader downloader(final long hours)
+    {
+        return DiskCacheURIDownloader.newBuilder(directory)
+            .setTimeToLive(hours, TimeUnit.HOURS).freeze();
+    }
+
+    private static byte[] fetch(final URIDownloader downloader,
+        final URI uri)
+        throws IOException
+    {
+        return ByteStreams.toByteArray(downloader.fetch(uri));
+    }
+
+    private static void sendNotModified(final HttpExchange exchange)
+        throws IOException
+    {
+        exchange.sendResponseHeaders(304, -1L);
+        exchange.close();
+    }
+
+    private static void send(final HttpExchange exchange, final int status,
+        final byte[] body)
+        throws IOException
+    {
+        exchange.sendResponseHeaders(status, body.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.load.URIManager;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfiguration;
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+
+import static org.testng.Assert.*;
+
+public final class FileURIDownloaderTest
+{
+    private final URIDownloader downloader = FileURIDownloader.getInstance();
+
+    private File file;
+
+    @BeforeMethod
+    public void createFile()
+        throws IOException
+    {
+        file = File.createTempFile("schema", ".json");
+    }
+
+    @AfterMethod
+    public void deleteFile()
+    {
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void smallFilesAreReadFully()
+        throws IOException
+    {
+        final byte[] content = "{\"type\":\"string\"}".getBytes(Charsets.UTF_8);
+        Files.write(content, file);
+
+        final InputStream in = downloader.fetch(file.toURI());
+        assertEquals(in.available(), content.length);
+        assertEquals(ByteStreams.toByteArray(in), content);
+    }
+
+    @Test
+    public void largeFilesAreReadFully()
+        throws IOException
+    {
+        final byte[] content = largeContent();
+        Files.write(content, file);
+
+        final InputStream in = downloader.fetch(file.toURI());
+        assertEquals(in.available(), content.length);
+        assertEquals(in.read(), content[0] & 0xff);
+        assertEquals(in.skip(9L), 9L);
+
+        final byte[] rest = ByteStreams.toByteArray(in);
+        assertEquals(rest.length, content.length - 10);
+        assertEquals(rest[0], content[10]);
+        assertEquals(rest[rest.length - 1], content[content.length - 1]);
+        assertEquals(in.read(), -1);
+    }
+
+    @Test
+    public void contentSurvivesTruncationOfTheFile()
+        throws IOException
+    {
+        final byte[] content = largeContent();
+        Files.write(content, file);
+
+        final InputStream in = downloader.fetch(file.toURI());
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0L);
+        } finally {
+            raf.close();
+        }
+
+        assertEquals(ByteStreams.toByteArray(in), content);
+    }
+
+    @Test
+    public void fragmentIsIgnored()
+        throws IOException
+    {
+        final byte[] content = "{}".getBytes(Charsets.UTF_8);
+        Files.write(content, file);
+
+        final URI uri = URI.create(file.toURI() + "#/definitions/foo");
+        assertEquals(ByteStreams.toByteArray(downloader.fetch(uri)), content);
+    }
+
+    @Test(expectedExceptions = FileNotFoundException.class)
+    public void missingFileThrowsIOException()
+        throws IOException
+    {
+        downloader.fetch(new File(file.getPath() + ".missing").toURI());
+    }
+
+    @Test
+    public void largeDocumentsAreParsedThroughURIManager()
+        throws IOException, ProcessingException
+    {
+        Files.write(largeContent(), file);
+
+        final URIManager manager = new URIManager(LoadingConfiguration
+            .newBuilder().addScheme("file", downloader).freeze());
+        final JsonNode node = manager.getContent(file.toURI());
+
+        assertEquals(node.size(), 10000);
+        assertEquals(node.get(9999).textValue(), "item 9999");
+    }
+
+    private static byte[] largeContent()
+    {
+        final ArrayNode node = JacksonUtils.nodeFactory().arrayNode();
+        for (int i = 0; i < 10000; i++)
+            node.add("item " + i);
+        return node.toString().getBytes(Charsets.UTF_8);
+    }
+}
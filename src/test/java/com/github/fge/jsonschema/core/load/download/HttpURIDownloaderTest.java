@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.load.download;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.*;
+
+public final class HttpURIDownloaderTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final byte[] CONTENT
+        = "{\"type\":\"string\"}".getBytes(Charsets.UTF_8);
+
+    private HttpServer server;
+    private String base;
+
+    private final Set<Integer> clientPorts
+        = Collections.synchronizedSet(Sets.<Integer>newHashSet());
+    private final AtomicInteger gzipped = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @BeforeClass
+    public void startServer()
+        throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/schema", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                final String encoding = exchange.getRequestHeaders()
+                    .getFirst("Accept-Encoding");
+                if (encoding == null || !encoding.contains("gzip")) {
+                    send(exchange, 200, CONTENT);
+                    return;
+                }
+                gzipped.incrementAndGet();
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final GZIPOutputStream gzip = new GZIPOutputStream(out);
+                gzip.write(CONTENT);
+                gzip.close();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                send(exchange, 200, out.toByteArray());
+            }
+        });
+        server.createContext("/slow", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                final int current = concurrent.incrementAndGet();
+                int max;
+                do {
+                    max = maxConcurrent.get();
+                } while (current > max
+                    && !maxConcurrent.compareAndSet(max, current));
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200L);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrent.decrementAndGet();
+                }
+                send(exchange, 200, CONTENT);
+            }
+        });
+        server.createContext("/stalled", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(500L);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                send(exchange, 200, CONTENT);
+            }
+        });
+        server.createContext("/missing", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange)
+                throws IOException
+            {
+                send(exchange, 404, "not found".getBytes(Charsets.UTF_8));
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void reset()
+    {
+        clientPorts.clear();
+        gzipped.set(0);
+        maxConcurrent.set(0);
+    }
+
+    @Test
+    public void contentIsFetchedAsynchronously()
+        throws ExecutionException, InterruptedException
+    {
+        final HttpURIDownloader downloader = HttpURIDownloader.byDefault();
+        final ListenableFuture<byte[]> future
+            = downloader.fetchAsync(URI.create(base + "/schema"));
+        assertEquals(future.get(), CONTENT);
+    }
+
+    @Test
+    public void compressedResponsesAreRequestedAndDecoded()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema");
+
+        final HttpURIDownloader downloader = HttpURIDownloader.byDefault();
+        assertEquals(ByteStreams.toByteArray(downloader.fetch(uri)), CONTENT);
+        assertEquals(gzipped.get(), 1);
+
+        final HttpURIDownloader plain = downloader.thaw()
+            .setCompression(false).freeze();
+        assertEquals(ByteStreams.toByteArray(plain.fetch(uri)), CONTENT);
+        assertEquals(gzipped.get(), 1);
+    }
+
+    @Test
+    public void connectionsAreReused()
+        throws IOException
+    {
+        final URI uri = URI.create(base + "/schema");
+        final HttpURIDownloader downloader = HttpURIDownloader.newBuilder()
+            .setMaxConnectionsPerHost(1).freeze();
+
+        for (int i = 0; i < 5; i++)
+            downloader.fetch(uri).close();
+
+        assertEquals(clientPorts.size(), 1);
+    }
+
+    @Test
+    public void concurrentRequestsToAHostAreLimited()
+        throws ExecutionException, InterruptedException
+    {
+        final URI uri = URI.create(base + "/slow");
+        final HttpURIDownloader downloader = HttpURIDownloader.newBuilder()
+            .setMaxConnectionsPerHost(2).freeze();
+
+        final List<ListenableFuture<byte[]>> futures = Lists.newArrayList();
+        for (int i = 0; i < 6; i++)
+            futures.add(downloader.fetchAsync(uri));
+
+        for (final byte[] content: Futures.allAsList(futures).get())
+            assertEquals(content, CONTENT);
+        assertEquals(maxConcurrent.get(), 2);
+    }
+
+    @Test
+    public void readTimeoutIsEnforced()
+    {
+        final HttpURIDownloader downloader = HttpURIDownloader.newBuilder()
+            .setReadTimeout(50L, TimeUnit.MILLISECONDS).freeze();
+
+        try {
+            downloader.fetch(URI.create(base + "/stalled"));
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertTrue(e instanceof SocketTimeoutException);
+        }
+    }
+
+    @Test
+    public void errorStatusesAreReportedAsIOErrors()
+    {
+        final URI uri = URI.create(base + "/missing");
+        final HttpURIDownloader downloader = HttpURIDownloader.byDefault();
+
+        try {
+            downloader.fetch(uri);
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.printf("uriDownloader.httpError", uri, 404));
+        }
+    }
+
+    @Test
+    public void rejectedRequestsAreReportedAsIOErrors()
+        throws InterruptedException
+    {
+        final URI uri = URI.create(base + "/schema");
+        final HttpURIDownloader downloader = HttpURIDownloader.newBuilder()
+            .setExecutor(new Executor()
+            {
+                @Override
+                public void execute(final Runnable command)
+                {
+                    throw new RejectedExecutionException();
+                }
+            }).freeze();
+
+        final ListenableFuture<byte[]> future = downloader.fetchAsync(uri);
+        assertTrue(future.isDone());
+        assertFalse(future.isCancelled());
+        try {
+            future.get();
+            fail("No exception thrown!");
+        } catch (ExecutionException e) {
+            assertEquals(e.getCause().getMessage(),
+                BUNDLE.printf("uriDownloader.requestRejected", uri));
+        }
+
+        try {
+            downloader.fetch(uri);
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void cancelledFetchesAreReportedAsIOErrors()
+    {
+        final SettableFuture<byte[]> future = SettableFuture.create();
+        future.cancel(false);
+
+        try {
+            HttpURIDownloader.waitFor(future);
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("uriDownloader.cancelled"));
+        }
+    }
+
+    @Test
+    public void maxConnectionsPerHostMustBePositive()
+    {
+        try {
+            HttpURIDownloader.newBuilder().setMaxConnectionsPerHost(0);
+            fail("No exception thrown!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("uriDownloader.illegalMaxConnections"));
+        }
+    }
+
+    private static void send(final HttpExchange exchange, final int status,
+        final byte[] body)
+        throws IOException
+    {
+        exchange.sendResponseHeaders(status, body.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
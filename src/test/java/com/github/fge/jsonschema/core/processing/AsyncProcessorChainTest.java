@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.AbstractProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.fge.jsonschema.matchers.ProcessingMessageAssert.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class AsyncProcessorChainTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void initExecutor()
+    {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterClass
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void cannotInitiateWithNullProcessor()
+    {
+        try {
+            AsyncProcessorChain.startWith((AsyncProcessor<MessageProvider,
+                MessageProvider>) null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.nullProcessor"));
+        }
+    }
+
+    @Test
+    public void cannotBuildAsyncProcessorWithNullExecutor()
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        try {
+            AsyncProcessors.fromProcessor(p, null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.nullExecutor"));
+        }
+    }
+
+    @Test
+    public void syncAndAsyncStagesAreRunInOrder()
+        throws ProcessingException
+    {
+        final MessageProvider input = mock(MessageProvider.class);
+        final MessageProvider intermediate = mock(MessageProvider.class);
+        final MessageProvider output = mock(MessageProvider.class);
+        final ProcessingReport report = new DummyReport(LogLevel.DEBUG);
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p2
+            = mock(Processor.class);
+        when(p2.process(report, intermediate)).thenReturn(output);
+
+        final Processor<MessageProvider, MessageProvider> p1
+            = new Processor<MessageProvider, MessageProvider>()
+        {
+            @Override
+            public MessageProvider process(final ProcessingReport report,
+                final MessageProvider input)
+            {
+                thread.set(Thread.currentThread());
+                return intermediate;
+            }
+        };
+
+        final AsyncProcessor<MessageProvider, MessageProvider> processor
+            = AsyncProcessorChain
+                .startWith(AsyncProcessors.fromProcessor(p1, executor))
+                .chainWith(p2).getProcessor();
+
+        final MessageProvider ret
+            = AsyncProcessors.toProcessor(processor).process(report, input);
+
+        assertSame(ret, output);
+        assertNotSame(thread.get(), Thread.currentThread());
+    }
+
+    @Test
+    public void failingOnErrorFailsFuture()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p1
+            = mock(Processor.class);
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p2
+            = mock(Processor.class);
+
+        final AsyncProcessor<MessageProvider, MessageProvider> processor
+            = ProcessorChain.startWith(p1).toAsync().failOnError()
+                .chainWith(AsyncProcessors.fromProcessor(p2, executor))
+                .getProcessor();
+
+        final MessageProvider input = mock(MessageProvider.class);
+        final ProcessingReport report = new DummyReport(LogLevel.ERROR);
+
+        final ListenableFuture<MessageProvider> future
+            = processor.process(report, input);
+
+        assertTrue(future.isDone());
+
+        try {
+            AsyncProcessors.getResult(future);
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.chainStopped"));
+        }
+
+        verify(p1).process(same(report), any(MessageProvider.class));
+        verify(p2, never()).process(any(ProcessingReport.class),
+            any(MessageProvider.class));
+    }
+
+    @Test
+    public void exceptionOfAsyncStageIsRethrown()
+        throws ProcessingException
+    {
+        final ProcessingException exception = new ProcessingException("foo");
+
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        when(p.process(any(ProcessingReport.class),
+            any(MessageProvider.class))).thenThrow(exception);
+
+        final Processor<MessageProvider, MessageProvider> processor
+            = AsyncProcessors.toProcessor(AsyncProcessors.fromProcessor(p,
+                executor));
+
+        try {
+            processor.process(new DummyReport(LogLevel.DEBUG),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            assertSame(e, exception);
+        }
+    }
+
+    @Test
+    public void rejectedTasksFailTheirFuture()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        final Executor rejecting = new Executor()
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        };
+
+        final Processor<MessageProvider, MessageProvider> processor
+            = AsyncProcessors.toProcessor(AsyncProcessors.fromProcessor(p,
+                rejecting));
+
+        try {
+            processor.process(new DummyReport(LogLevel.DEBUG),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.rejected"))
+                .hasField("exceptionClass",
+                    RejectedExecutionException.class.getName());
+        }
+        verifyZeroInteractions(p);
+    }
+
+    private static final class DummyReport
+        extends AbstractProcessingReport
+    {
+        private DummyReport(final LogLevel currentLevel)
+            throws ProcessingException
+        {
+            dispatch(new ProcessingMessage().setLogLevel(currentLevel));
+        }
+
+        @Override
+        public void log(final LogLevel level, final ProcessingMessage message)
+        {
+        }
+    }
+}
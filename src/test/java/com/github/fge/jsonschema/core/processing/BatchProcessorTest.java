@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListReportProvider;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ReportProvider;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class BatchProcessorTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final ReportProvider provider
+        = new ListReportProvider(LogLevel.DEBUG, LogLevel.NONE);
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void initExecutor()
+    {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void cannotBuildWithNullReportProvider()
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        try {
+            new BatchProcessor<MessageProvider, MessageProvider>(p, null,
+                executor);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.nullReportProvider"));
+        }
+    }
+
+    @Test
+    public void resultsAreInInputOrderWithIsolatedReports()
+        throws ProcessingException
+    {
+        final List<Value> inputs = Lists.newArrayList();
+        for (int i = 0; i < 100; i++)
+            inputs.add(new Value(i));
+
+        final BatchProcessor<Value, Value> batch
+            = new BatchProcessor<Value, Value>(new Doubler(), provider,
+                executor);
+
+        final List<ProcessingResult<Value>> results = batch.processAll(inputs);
+
+        assertEquals(results.size(), inputs.size());
+
+        ProcessingResult<Value> result;
+        for (int i = 0; i < 100; i++) {
+            result = results.get(i);
+            assertTrue(result.isSuccess());
+            assertEquals(result.getResult().value, 2 * i);
+            assertEquals(ImmutableList.copyOf(result.getReport()).size(), 1);
+        }
+    }
+
+    @Test
+    public void failureIsCapturedInItsOwnResult()
+        throws ProcessingException
+    {
+        final BatchProcessor<Value, Value> batch
+            = new BatchProcessor<Value, Value>(new Doubler(), provider,
+                executor);
+
+        final List<ProcessingResult<Value>> results
+            = batch.processAll(ImmutableList.of(new Value(1), new Value(-1),
+                new Value(3)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(results.get(2).getResult().value, 6);
+    }
+
+    @Test
+    public void uncheckedExceptionIsCapturedInItsOwnResult()
+        throws ProcessingException
+    {
+        final BatchProcessor<Value, Value> batch
+            = new BatchProcessor<Value, Value>(new Doubler(), provider,
+                executor);
+
+        final List<ProcessingResult<Value>> results
+            = batch.processAll(ImmutableList.of(new Value(1),
+                new Value(1001), new Value(3)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+
+        final ProcessingResult<Value> failed = results.get(1);
+        assertFalse(failed.isSuccess());
+        final ProcessingMessage message = failed.getReport().iterator().next();
+        assertEquals(message.getLogLevel(), LogLevel.FATAL);
+        assertEquals(message.getMessage(),
+            BUNDLE.getMessage("processing.uncheckedException"));
+    }
+
+    private static final class Value
+        implements MessageProvider
+    {
+        private final int value;
+
+        private Value(final int value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public ProcessingMessage newMessage()
+        {
+            return new ProcessingMessage();
+        }
+    }
+
+    private static final class Doubler
+        implements Processor<Value, Value>
+    {
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+            throws ProcessingException
+        {
+            if (input.value < 0)
+                throw new ProcessingException("negative value");
+            if (input.value > 1000)
+                throw new IllegalArgumentException("value too large");
+            report.debug(input.newMessage().setMessage("doubling"));
+            return new Value(2 * input.value);
+        }
+    }
+}
@@ -21,14 +21,24 @@ package com.github.fge.jsonschema.core.processing;
 
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.util.CacheConfiguration;
 import com.github.fge.jsonschema.core.util.equivalence.Equivalences;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 import static com.github.fge.jsonschema.TestUtils.*;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
@@ -110,6 +120,157 @@ public final class CachingProcessorTest
         }
     }
 
+    @Test
+    public void cannotInputNullCacheConfiguration()
+    {
+        try {
+            new CachingProcessor<In, Out>(processor,
+                Equivalences.<In>identity(), null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("cacheCfg.nullConfiguration"));
+        }
+    }
+
+    @Test
+    public void statisticsAreRecorded()
+        throws ProcessingException
+    {
+        final CachingProcessor<In, Out> p = new CachingProcessor<In, Out>(
+            processor, Equivalences.<In>identity());
+        final ProcessingReport report = mock(ProcessingReport.class);
+
+        p.process(report, input);
+        p.process(report, input);
+
+        final CacheStats stats = p.getStats();
+        assertEquals(stats.missCount(), 1L);
+        assertEquals(stats.hitCount(), 1L);
+        assertEquals(stats.loadSuccessCount(), 1L);
+    }
+
+    @Test
+    public void boundedCacheEvictsEntries()
+        throws ProcessingException
+    {
+        final CacheConfiguration cfg = CacheConfiguration.newBuilder()
+            .setMaximumSize(1L).freeze();
+        final CachingProcessor<In, Out> p = new CachingProcessor<In, Out>(
+            processor, Equivalences.<In>identity(), cfg);
+        final ProcessingReport report = mock(ProcessingReport.class);
+        final In other = mock(In.class);
+
+        p.process(report, input);
+        p.process(report, other);
+        p.process(report, input);
+
+        verify(processor, times(2)).process(anyReport(), same(input));
+        assertEquals(p.getStats().evictionCount(), 2L);
+    }
+
+    @Test
+    public void weightBoundedCacheEvictsEntries()
+        throws ProcessingException
+    {
+        final CacheConfiguration cfg = CacheConfiguration.newBuilder()
+            .setMaximumWeight(1L).freeze();
+        final CachingProcessor<In, Out> p = new CachingProcessor<In, Out>(
+            processor, Equivalences.<In>identity(), cfg);
+        final ProcessingReport report = mock(ProcessingReport.class);
+        final In other = mock(In.class);
+
+        p.process(report, input);
+        p.process(report, other);
+        p.process(report, input);
+
+        verify(processor, times(2)).process(anyReport(), same(input));
+    }
+
+    @Test
+    public void compactCleanResultDoesNotTouchReport()
+        throws ProcessingException
+    {
+        final Processor<In, Out> p = new CachingProcessor<In, Out>(processor,
+            Equivalences.<In>identity(), CacheConfiguration.byDefault(),
+            LogLevel.WARNING);
+        final ProcessingReport report = mock(ProcessingReport.class);
+
+        p.process(report, input);
+        p.process(report, input);
+
+        verify(processor, only()).process(anyReport(), same(input));
+        verifyZeroInteractions(report);
+    }
+
+    @Test
+    public void compactResultOnlyKeepsCapturedMessages()
+        throws ProcessingException
+    {
+        final ProcessingMessage debug = new ProcessingMessage();
+        final ProcessingMessage error = new ProcessingMessage();
+        when(processor.process(anyReport(), same(input))).then(new Answer<Out>()
+        {
+            @Override
+            public Out answer(final InvocationOnMock invocation)
+                throws ProcessingException
+            {
+                final ProcessingReport report
+                    = (ProcessingReport) invocation.getArguments()[0];
+                report.debug(debug);
+                report.error(error);
+                return null;
+            }
+        });
+
+        final Processor<In, Out> p = new CachingProcessor<In, Out>(processor,
+            Equivalences.<In>identity(), CacheConfiguration.byDefault(),
+            LogLevel.ERROR);
+
+        ListProcessingReport report;
+        List<ProcessingMessage> messages;
+
+        for (int i = 0; i < 2; i++) {
+            report = new ListProcessingReport(LogLevel.DEBUG);
+            p.process(report, input);
+            messages = Lists.newArrayList(report);
+            assertFalse(report.isSuccess());
+            assertEquals(messages.size(), 1);
+            assertSame(messages.get(0), error);
+        }
+
+        verify(processor, only()).process(anyReport(), same(input));
+    }
+
+    @Test
+    public void compactResultRetainsFailureStatus()
+        throws ProcessingException
+    {
+        when(processor.process(anyReport(), same(input))).then(new Answer<Out>()
+        {
+            @Override
+            public Out answer(final InvocationOnMock invocation)
+                throws ProcessingException
+            {
+                final ProcessingReport report
+                    = (ProcessingReport) invocation.getArguments()[0];
+                report.error(new ProcessingMessage());
+                return null;
+            }
+        });
+
+        final Processor<In, Out> p = new CachingProcessor<In, Out>(processor,
+            Equivalences.<In>identity(), CacheConfiguration.byDefault(),
+            LogLevel.FATAL);
+
+        p.process(new ListProcessingReport(), input);
+        final ProcessingReport report = new ListProcessingReport();
+        p.process(report, input);
+
+        assertFalse(report.isSuccess());
+        assertFalse(report.iterator().hasNext());
+    }
+
     private static final class Foo
         extends ProcessingException
     {
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.DeadlineExceededException;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.load.URIManager;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.fge.jsonschema.matchers.ProcessingMessageAssert.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class ProcessingDeadlineTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void initExecutor()
+    {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterClass
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void cannotCreateDeadlineWithNegativeDuration()
+    {
+        try {
+            ProcessingDeadline.after(-1L, TimeUnit.SECONDS);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.negativeDuration"));
+        }
+    }
+
+    @Test
+    public void exceededDeadlineFailsProcessing()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        final ProcessingDeadline deadline
+            = ProcessingDeadline.after(0L, TimeUnit.SECONDS);
+
+        try {
+            deadline.process(p, new ListProcessingReport(),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (DeadlineExceededException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.deadlineExceeded"))
+                .hasField("budgetMillis",
+                    JacksonUtils.nodeFactory().numberNode(0L));
+        }
+
+        verifyZeroInteractions(p);
+        assertNull(ProcessingDeadline.current());
+    }
+
+    @Test
+    public void cancellationIsCheckedBetweenChainStages()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p2
+            = mock(Processor.class);
+        final Processor<MessageProvider, MessageProvider> p1
+            = new Processor<MessageProvider, MessageProvider>()
+        {
+            @Override
+            public MessageProvider process(final ProcessingReport report,
+                final MessageProvider input)
+            {
+                ProcessingDeadline.current().cancel();
+                return input;
+            }
+        };
+
+        final Processor<MessageProvider, MessageProvider> chain
+            = ProcessorChain.startWith(p1).chainWith(p2).getProcessor();
+
+        try {
+            ProcessingDeadline.unbounded().process(chain,
+                new ListProcessingReport(), mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (DeadlineExceededException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.cancelled"));
+        }
+
+        verifyZeroInteractions(p2);
+    }
+
+    @Test
+    public void deadlineIsPropagatedToAsyncProcessors()
+        throws ProcessingException
+    {
+        final AtomicReference<ProcessingDeadline> seen
+            = new AtomicReference<ProcessingDeadline>();
+        final Processor<MessageProvider, MessageProvider> p
+            = new Processor<MessageProvider, MessageProvider>()
+        {
+            @Override
+            public MessageProvider process(final ProcessingReport report,
+                final MessageProvider input)
+            {
+                seen.set(ProcessingDeadline.current());
+                return input;
+            }
+        };
+
+        final Processor<MessageProvider, MessageProvider> processor
+            = AsyncProcessors.toProcessor(AsyncProcessors.fromProcessor(p,
+                executor));
+        final ProcessingDeadline deadline
+            = ProcessingDeadline.after(1L, TimeUnit.MINUTES);
+
+        deadline.process(processor, new ListProcessingReport(),
+            mock(MessageProvider.class));
+
+        assertSame(seen.get(), deadline);
+    }
+
+    @Test
+    public void exceededDeadlinePreventsDownloads()
+        throws ProcessingException
+    {
+        final URIManager manager = new URIManager();
+        final Processor<MessageProvider, MessageProvider> p
+            = new Processor<MessageProvider, MessageProvider>()
+        {
+            @Override
+            public MessageProvider process(final ProcessingReport report,
+                final MessageProvider input)
+                throws ProcessingException
+            {
+                ProcessingDeadline.current().cancel();
+                manager.getContent(URI.create("http://localhost:1/"));
+                return input;
+            }
+        };
+
+        try {
+            ProcessingDeadline.unbounded().process(p,
+                new ListProcessingReport(), mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (DeadlineExceededException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.cancelled"));
+        }
+    }
+}
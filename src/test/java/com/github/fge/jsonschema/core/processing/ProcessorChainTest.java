@@ -19,6 +19,7 @@
 
 package com.github.fge.jsonschema.core.processing;
 
+import com.github.fge.jsonschema.core.exceptions.DeadlineExceededException;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
 import com.github.fge.jsonschema.core.report.AbstractProcessingReport;
@@ -121,6 +122,113 @@ public final class ProcessorChainTest
         verify(p2).process(same(report), any(MessageProvider.class));
     }
 
+    @Test
+    public void consecutiveFailOnErrorKeepsFirstMessage()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        final ProcessingMessage first = new ProcessingMessage()
+            .setMessage("first");
+        final ProcessingMessage second = new ProcessingMessage()
+            .setMessage("second");
+
+        final Processor<MessageProvider, MessageProvider> processor
+            = ProcessorChain.startWith(p).failOnError(first)
+                .failOnError(second).getProcessor();
+
+        try {
+            processor.process(new DummyReport(LogLevel.ERROR),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            assertMessage(e.getProcessingMessage()).hasMessage("first");
+        }
+    }
+
+    @Test
+    public void nestedChainsAreInlined()
+        throws ProcessingException
+    {
+        final Processor<MessageProvider, MessageProvider> p1
+            = new NamedProcessor("p1");
+        final Processor<MessageProvider, MessageProvider> p2
+            = new NamedProcessor("p2");
+        final Processor<MessageProvider, MessageProvider> p3
+            = new NamedProcessor("p3");
+
+        final Processor<MessageProvider, MessageProvider> inner
+            = ProcessorChain.startWith(p2).failOnError().chainWith(p3)
+                .getProcessor();
+        final Processor<MessageProvider, MessageProvider> processor
+            = ProcessorChain.startWith(p1).chainWith(inner).getProcessor();
+
+        assertEquals(processor.toString(), "p1 -> p2 -> p3");
+
+        try {
+            processor.process(new DummyReport(LogLevel.ERROR),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.chainStopped"));
+        }
+    }
+
+    @Test
+    public void singleStageChainChecksDeadline()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        final Processor<MessageProvider, MessageProvider> processor
+            = ProcessorChain.startWith(p).getProcessor();
+
+        final ProcessingDeadline deadline = ProcessingDeadline.unbounded();
+        deadline.cancel();
+        final ProcessingDeadline previous
+            = ProcessingDeadline.install(deadline);
+
+        try {
+            processor.process(new DummyReport(LogLevel.DEBUG),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (DeadlineExceededException e) {
+            assertMessage(e.getProcessingMessage())
+                .hasMessage(BUNDLE.getMessage("processing.cancelled"));
+        } finally {
+            ProcessingDeadline.restore(previous);
+        }
+
+        verifyZeroInteractions(p);
+    }
+
+    private static final class NamedProcessor
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        private final String name;
+
+        private NamedProcessor(final String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+        {
+            return input;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+
     private static final class DummyReport
         extends AbstractProcessingReport
     {
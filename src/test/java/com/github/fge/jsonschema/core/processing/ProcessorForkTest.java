@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public final class ProcessorForkTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private static final Function<List<Value>, Value> SUM
+        = new Function<List<Value>, Value>()
+    {
+        @Override
+        public Value apply(final List<Value> input)
+        {
+            int sum = 0;
+            for (final Value value: input)
+                sum += value.value;
+            return new Value(sum);
+        }
+    };
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void initExecutor()
+    {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void cannotBuildForkWithNullMergeFunction()
+    {
+        try {
+            new ProcessorFork<Value, Value, Value>(executor, null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.nullMergeFunction"));
+        }
+    }
+
+    @Test
+    public void reportsAreMergedInBranchOrder()
+        throws ProcessingException
+    {
+        final CountDownLatch lastDone = new CountDownLatch(1);
+
+        final Processor<Value, Value> processor
+            = new ProcessorFork<Value, Value, Value>(executor, SUM)
+                .addBranch(new Branch("first", 1, lastDone, null))
+                .addBranch(new Branch("second", 10, null, null))
+                .addBranch(new Branch("third", 100, null, lastDone))
+                .getProcessor();
+
+        final ListProcessingReport report = new ListProcessingReport();
+        final Value ret = processor.process(report, new Value(0));
+
+        assertEquals(ret.value, 111);
+
+        final List<String> messages = Lists.newArrayList();
+        for (final ProcessingMessage message: report)
+            messages.add(message.getMessage());
+
+        assertEquals(messages, Lists.newArrayList("first", "second", "third"));
+    }
+
+    @Test
+    public void firstFailureInBranchOrderIsThrown()
+    {
+        final CountDownLatch lastDone = new CountDownLatch(1);
+
+        final Processor<Value, Value> processor
+            = new ProcessorFork<Value, Value, Value>(executor, SUM)
+                .addBranch(new Branch("first", 1, null, null))
+                .addBranch(new Branch("second", -1, lastDone, null))
+                .addBranch(new Branch("third", -1, null, lastDone))
+                .getProcessor();
+
+        final ListProcessingReport report = new ListProcessingReport();
+
+        try {
+            processor.process(report, new Value(0));
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            assertEquals(e.getProcessingMessage().getMessage(), "second");
+        }
+
+        assertEquals(Lists.newArrayList(report).size(), 3);
+    }
+
+    @Test
+    public void uncheckedExceptionsCancelRunningBranches()
+        throws InterruptedException
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final Processor<Value, Value> processor
+            = new ProcessorFork<Value, Value, Value>(executor, SUM)
+                .addBranch(new Thrower("first", started))
+                .addBranch(new Blocker("second", started, interrupted))
+                .getProcessor();
+
+        final ListProcessingReport report = new ListProcessingReport();
+
+        try {
+            processor.process(report, new Value(0));
+            fail("No exception thrown!!");
+        } catch (ProcessingException e) {
+            fail("Unexpected exception", e);
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "first");
+        }
+
+        assertTrue(interrupted.await(5L, TimeUnit.SECONDS));
+        final List<String> messages = Lists.newArrayList();
+        for (final ProcessingMessage message: report)
+            messages.add(message.getMessage());
+        assertEquals(messages, Lists.newArrayList("first"));
+    }
+
+    @Test
+    public void toStringIsUppercase()
+    {
+        final Processor<Value, Value> processor
+            = new ProcessorFork<Value, Value, Value>(executor, SUM)
+                .addBranch(new Branch("first", 1, null, null))
+                .getProcessor();
+
+        assertEquals(processor.toString(), "FORK[1 branches]");
+    }
+
+    private static final class Value
+        implements MessageProvider
+    {
+        private final int value;
+
+        private Value(final int value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public ProcessingMessage newMessage()
+        {
+            return new ProcessingMessage();
+        }
+    }
+
+    /*
+     * A branch logging its name, then returning its value or failing if the
+     * value is negative; it can wait for, and signal, a latch
+     */
+    private static final class Branch
+        implements Processor<Value, Value>
+    {
+        private final String name;
+        private final int value;
+        private final CountDownLatch await;
+        private final CountDownLatch signal;
+
+        private Branch(final String name, final int value,
+            final CountDownLatch await, final CountDownLatch signal)
+        {
+            this.name = name;
+            this.value = value;
+            this.await = await;
+            this.signal = signal;
+        }
+
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+            throws ProcessingException
+        {
+            try {
+                if (await != null)
+                    assertTrue(await.await(5L, TimeUnit.SECONDS));
+                report.info(new ProcessingMessage().setMessage(name));
+                if (value < 0)
+                    throw new ProcessingException(name);
+                return new Value(value);
+            } catch (InterruptedException e) {
+                throw new ProcessingException(name, e);
+            } finally {
+                if (signal != null)
+                    signal.countDown();
+            }
+        }
+    }
+
+    /*
+     * A branch waiting for another one to start, then logging its name and
+     * throwing an unchecked exception
+     */
+    private static final class Thrower
+        implements Processor<Value, Value>
+    {
+        private final String name;
+        private final CountDownLatch await;
+
+        private Thrower(final String name, final CountDownLatch await)
+        {
+            this.name = name;
+            this.await = await;
+        }
+
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+            throws ProcessingException
+        {
+            try {
+                assertTrue(await.await(5L, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new ProcessingException(name, e);
+            }
+            report.info(new ProcessingMessage().setMessage(name));
+            throw new IllegalStateException(name);
+        }
+    }
+
+    /*
+     * A branch logging its name, signalling that it has started, then
+     * blocking until it is interrupted
+     */
+    private static final class Blocker
+        implements Processor<Value, Value>
+    {
+        private final String name;
+        private final CountDownLatch started;
+        private final CountDownLatch interrupted;
+
+        private Blocker(final String name, final CountDownLatch started,
+            final CountDownLatch interrupted)
+        {
+            this.name = name;
+            this.started = started;
+            this.interrupted = interrupted;
+        }
+
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+            throws ProcessingException
+        {
+            report.info(new ProcessingMessage().setMessage(name));
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+                throw new IllegalStateException("not interrupted");
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new ProcessingException(name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.report.ListReportProvider;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.core.report.ReportProvider;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public final class ProcessorPipelineTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private final ReportProvider provider
+        = new ListReportProvider(LogLevel.DEBUG, LogLevel.NONE);
+
+    @Test
+    public void cannotBuildPipelineWithZeroCapacity()
+    {
+        try {
+            new ProcessorPipeline<Value, Value>(
+                ProcessorChain.startWith(new Doubler()), provider, 0, 1);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.illegalCapacity"));
+        }
+    }
+
+    @Test
+    public void resultsComeOutInSubmissionOrder()
+        throws InterruptedException
+    {
+        final ProcessorChain<Value, Value> chain
+            = ProcessorChain.startWith(new Sleeper()).chainWith(new Doubler());
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(chain, provider, 8, 4);
+
+        final int count = 50;
+
+        final Thread producer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    for (int i = 0; i < count; i++)
+                        pipeline.submit(new Value(i));
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        producer.start();
+
+        ProcessingResult<Value> result;
+        try {
+            for (int i = 0; i < count; i++) {
+                result = pipeline.take();
+                assertTrue(result.isSuccess());
+                assertEquals(result.getResult().value, 2 * i);
+            }
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void stopConditionsAreHonoredPerInput()
+        throws InterruptedException
+    {
+        final AtomicInteger doubled = new AtomicInteger();
+        final ProcessorChain<Value, Value> chain
+            = ProcessorChain.startWith(new ErrorOnNegative()).failOnError()
+                .chainWith(new Doubler(doubled));
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(chain, provider, 4, 1);
+
+        try {
+            pipeline.submit(new Value(1));
+            pipeline.submit(new Value(-1));
+            pipeline.submit(new Value(3));
+
+            assertEquals(pipeline.take().getResult().value, 2);
+            assertFalse(pipeline.take().isSuccess());
+            assertEquals(pipeline.take().getResult().value, 6);
+            assertEquals(doubled.get(), 2);
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void uncheckedExceptionsOnlyFailTheirInput()
+        throws InterruptedException
+    {
+        final ProcessorChain<Value, Value> chain
+            = ProcessorChain.startWith(new ThrowOnNegative())
+                .chainWith(new Doubler());
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(chain, provider, 4, 1);
+
+        try {
+            pipeline.submit(new Value(1));
+            pipeline.submit(new Value(-1));
+            pipeline.submit(new Value(3));
+
+            assertEquals(pipeline.take().getResult().value, 2);
+            final ProcessingResult<Value> failed = pipeline.take();
+            assertFalse(failed.isSuccess());
+            assertEquals(failed.getReport().iterator().next().getMessage(),
+                BUNDLE.getMessage("processing.uncheckedException"));
+            assertEquals(pipeline.take().getResult().value, 6);
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test(timeOut = 5000L)
+    public void interruptedTakeDoesNotSkipResults()
+        throws InterruptedException
+    {
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(
+                ProcessorChain.startWith(new Doubler()), provider, 1, 1);
+
+        try {
+            Thread.currentThread().interrupt();
+            try {
+                pipeline.take();
+                fail("No exception thrown!!");
+            } catch (InterruptedException ignored) {
+            }
+
+            for (int i = 0; i < 3; i++) {
+                pipeline.submit(new Value(i));
+                assertEquals(pipeline.take().getResult().value, 2 * i);
+            }
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void closedPipelineRejectsInputs()
+        throws InterruptedException
+    {
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(
+                ProcessorChain.startWith(new Doubler()), provider, 1, 1);
+        pipeline.close();
+
+        try {
+            pipeline.submit(new Value(0));
+            fail("No exception thrown!!");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.pipelineClosed"));
+        }
+    }
+
+    @Test(timeOut = 5000L)
+    public void submittersBlockedAtCapacityFailOnClose()
+        throws InterruptedException
+    {
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(
+                ProcessorChain.startWith(new Doubler()), provider, 1, 1);
+        final AtomicInteger failures = new AtomicInteger();
+        final Runnable submitter = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    pipeline.submit(new Value(1));
+                } catch (IllegalStateException e) {
+                    assertEquals(e.getMessage(),
+                        BUNDLE.getMessage("processing.pipelineClosed"));
+                    failures.incrementAndGet();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        };
+        final Thread first = new Thread(submitter);
+        final Thread second = new Thread(submitter);
+
+        pipeline.submit(new Value(0));
+        first.start();
+        second.start();
+        while (first.getState() != Thread.State.WAITING
+            || second.getState() != Thread.State.WAITING)
+            Thread.sleep(10L);
+        pipeline.close();
+        first.join();
+        second.join();
+
+        assertEquals(failures.get(), 2);
+    }
+
+    @Test(timeOut = 5000L)
+    public void errorsFailTheirInputAndClosePipeline()
+        throws InterruptedException
+    {
+        final ProcessorPipeline<Value, Value> pipeline
+            = new ProcessorPipeline<Value, Value>(
+                ProcessorChain.startWith(new ErrorOnZero())
+                    .chainWith(new Doubler()), provider, 4, 1);
+
+        pipeline.submit(new Value(0));
+        final ProcessingResult<Value> failed = pipeline.take();
+        assertFalse(failed.isSuccess());
+        assertEquals(failed.getReport().iterator().next().getMessage(),
+            BUNDLE.getMessage("processing.pipelineError"));
+
+        try {
+            pipeline.submit(new Value(1));
+            fail("No exception thrown!!");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.pipelineClosed"));
+        }
+    }
+
+    private static final class Value
+        implements MessageProvider
+    {
+        private final int value;
+
+        private Value(final int value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public ProcessingMessage newMessage()
+        {
+            return new ProcessingMessage();
+        }
+    }
+
+    private static final class Sleeper
+        implements Processor<Value, Value>
+    {
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+            throws ProcessingException
+        {
+            try {
+                Thread.sleep((input.value * 7) % 5);
+            } catch (InterruptedException e) {
+                throw new ProcessingException("interrupted", e);
+            }
+            return input;
+        }
+    }
+
+    private static final class ErrorOnNegative
+        implements Processor<Value, Value>
+    {
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+            throws ProcessingException
+        {
+            if (input.value < 0)
+                report.error(input.newMessage().setMessage("negative"));
+            return input;
+        }
+    }
+
+    private static final class ThrowOnNegative
+        implements Processor<Value, Value>
+    {
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+        {
+            if (input.value < 0)
+                throw new IllegalArgumentException("negative");
+            return input;
+        }
+    }
+
+    private static final class ErrorOnZero
+        implements Processor<Value, Value>
+    {
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+        {
+            if (input.value == 0)
+                throw new ErrorForTest();
+            return input;
+        }
+    }
+
+    /*
+     * Uncaught by the worker thread, and printed by the default handler: keep
+     * the output short
+     */
+    private static final class ErrorForTest
+        extends Error
+    {
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    }
+
+    private static final class Doubler
+        implements Processor<Value, Value>
+    {
+        private final AtomicInteger counter;
+
+        private Doubler(final AtomicInteger counter)
+        {
+            this.counter = counter;
+        }
+
+        private Doubler()
+        {
+            this(new AtomicInteger());
+        }
+
+        @Override
+        public Value process(final ProcessingReport report, final Value input)
+        {
+            counter.incrementAndGet();
+            return new Value(2 * input.value);
+        }
+    }
+}
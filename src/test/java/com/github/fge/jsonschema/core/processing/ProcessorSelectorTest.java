@@ -26,6 +26,7 @@ import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import org.testng.annotations.BeforeMethod;
@@ -217,6 +218,64 @@ public final class ProcessorSelectorTest
             verifyZeroInteractions(p);
     }
 
+    @Test
+    public void consecutiveKeyPredicatesAreResolvedWithOneKeyLookup()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Function<In, String> f = mock(Function.class);
+        when(f.apply(input)).thenReturn("k7");
+
+        ProcessorSelector<In, Out> keyed = new ProcessorSelector<In, Out>();
+        final List<Processor<In, Out>> processors = Lists.newArrayList();
+
+        for (int i = 0; i < 10; i++) {
+            @SuppressWarnings("unchecked")
+            final Processor<In, Out> p = mock(Processor.class);
+            processors.add(p);
+            keyed = keyed.when(KeyPredicate.keyEquals(f, "k" + i)).then(p);
+        }
+
+        keyed.otherwise(byDefault).getProcessor().process(report, input);
+
+        verify(f, onlyOnce()).apply(input);
+        verify(processors.get(7), onlyOnce()).process(report, input);
+        verifyZeroInteractions(byDefault);
+    }
+
+    @Test
+    public void keyPredicatesRespectOrderOfOpaquePredicates()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Function<In, String> f = mock(Function.class);
+        when(f.apply(input)).thenReturn("b");
+        when(predicate1.apply(input)).thenReturn(true);
+
+        final Processor<In, Out> processor = new ProcessorSelector<In, Out>()
+            .when(KeyPredicate.keyEquals(f, "a")).then(byDefault)
+            .when(predicate1).then(processor1)
+            .when(KeyPredicate.keyEquals(f, "b")).then(processor2)
+            .getProcessor();
+
+        processor.process(report, input);
+
+        verify(processor1, onlyOnce()).process(report, input);
+        verifyZeroInteractions(processor2, byDefault);
+    }
+
+    @Test
+    public void keyPredicatesAreEqualIfFunctionAndKeyAreEqual()
+    {
+        @SuppressWarnings("unchecked")
+        final Function<In, String> f = mock(Function.class);
+
+        assertEquals(KeyPredicate.keyEquals(f, "a"),
+            KeyPredicate.keyEquals(f, "a"));
+        assertNotEquals(KeyPredicate.keyEquals(f, "a"),
+            KeyPredicate.keyEquals(f, "b"));
+    }
+
     private interface In extends MessageProvider
     {
     }
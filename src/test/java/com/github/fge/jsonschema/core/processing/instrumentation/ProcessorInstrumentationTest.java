@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.processing.instrumentation;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.processing.Processor;
+import com.github.fge.jsonschema.core.processing.ProcessorChain;
+import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.MessageProvider;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import org.testng.annotations.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class ProcessorInstrumentationTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    @Test
+    public void cannotInstrumentChainWithNullInstrumentation()
+    {
+        try {
+            ProcessorChain.startWith(new Warner("p")).getProcessor(null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("processing.nullInstrumentation"));
+        }
+    }
+
+    @Test
+    public void chainStagesAreInstrumentedSeparately()
+        throws ProcessingException
+    {
+        final ProcessorInstrumentation instrumentation
+            = new ProcessorInstrumentation();
+        final Processor<MessageProvider, MessageProvider> processor
+            = ProcessorChain.startWith(new Warner("p1"))
+                .chainWith(new Warner("p2")).chainWith(new Warner("p2"))
+                .getProcessor(instrumentation);
+
+        final ProcessingReport report = new ListProcessingReport();
+        for (int i = 0; i < 3; i++)
+            processor.process(report, mock(MessageProvider.class));
+
+        final ProcessorMetrics m1 = instrumentation.getMetrics("p1");
+        final ProcessorMetrics m2 = instrumentation.getMetrics("p2");
+
+        assertEquals(instrumentation.getAllMetrics().size(), 2);
+        assertEquals(m1.getInvocationCount(), 3L);
+        assertEquals(m1.getMessageCount(), 3L);
+        assertEquals(m1.getFailureCount(), 0L);
+        assertEquals(m2.getInvocationCount(), 6L);
+        assertEquals(m2.getMessageCount(), 6L);
+        assertTrue(m1.getMaxLatencyNanos() >= m1.getMeanLatencyNanos());
+    }
+
+    @Test
+    public void failuresAreRecorded()
+        throws ProcessingException
+    {
+        @SuppressWarnings("unchecked")
+        final Processor<MessageProvider, MessageProvider> p
+            = mock(Processor.class);
+        when(p.process(any(ProcessingReport.class),
+            any(MessageProvider.class)))
+            .thenThrow(new ProcessingException("foo"));
+
+        final ProcessorInstrumentation instrumentation
+            = new ProcessorInstrumentation();
+        final Processor<MessageProvider, MessageProvider> processor
+            = instrumentation.instrument("failing", p);
+
+        try {
+            processor.process(new ListProcessingReport(),
+                mock(MessageProvider.class));
+            fail("No exception thrown!!");
+        } catch (ProcessingException ignored) {
+        }
+
+        final ProcessorMetrics metrics = instrumentation.getMetrics("failing");
+        assertEquals(metrics.getInvocationCount(), 1L);
+        assertEquals(metrics.getFailureCount(), 1L);
+    }
+
+    @Test
+    public void mergedCountingReportsAreCountedWithoutIteration()
+        throws ProcessingException
+    {
+        final ProcessingReport otherDelegate = mock(ProcessingReport.class);
+        final CountingProcessingReport other
+            = new CountingProcessingReport(otherDelegate);
+        other.warn(new ProcessingMessage());
+        other.error(new ProcessingMessage());
+
+        final CountingProcessingReport report
+            = new CountingProcessingReport(mock(ProcessingReport.class));
+        report.mergeWith(other);
+
+        assertEquals(report.getCount(), 2L);
+        verify(otherDelegate, never()).iterator();
+    }
+
+    @Test
+    public void mergedListReportsCountForTheirVisibleMessages()
+        throws ProcessingException
+    {
+        final ListProcessingReport other = new ListProcessingReport();
+        final ListProcessingReport hidden
+            = new ListProcessingReport(LogLevel.DEBUG);
+        hidden.debug(new ProcessingMessage());
+        other.mergeWith(hidden);
+        other.warn(new ProcessingMessage());
+        other.error(new ProcessingMessage());
+
+        final CountingProcessingReport report
+            = new CountingProcessingReport(mock(ProcessingReport.class));
+        report.mergeWith(other);
+
+        assertEquals(report.getCount(), 2L);
+    }
+
+    @Test
+    public void percentilesAreComputedFromHistogram()
+    {
+        final ProcessorMetrics metrics = new ProcessorMetrics("test");
+
+        for (int i = 0; i < 98; i++)
+            metrics.record(100L, true);
+        metrics.record(5000L, true);
+        metrics.record(5000L, true);
+
+        assertEquals(metrics.getMedianLatencyNanos(), 127L);
+        assertEquals(metrics.get99thPercentileLatencyNanos(), 5000L);
+        assertEquals(metrics.getLatencyHistogram()[6], 98L);
+
+        metrics.reset();
+        assertEquals(metrics.getInvocationCount(), 0L);
+        assertEquals(metrics.getMedianLatencyNanos(), 0L);
+    }
+
+    @Test
+    public void metricsCanBeRegisteredAsMBeans()
+        throws JMException, ProcessingException
+    {
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final ProcessorInstrumentation instrumentation
+            = new ProcessorInstrumentation();
+        final Processor<MessageProvider, MessageProvider> processor
+            = instrumentation.instrument(new Warner("p1"));
+
+        processor.process(new ListProcessingReport(),
+            mock(MessageProvider.class));
+
+        instrumentation.registerMBeans(server, "test");
+
+        final ObjectName name
+            = new ObjectName("test:type=Processor,name=\"p1\"");
+        assertEquals(server.getAttribute(name, "InvocationCount"), 1L);
+
+        instrumentation.unregisterMBeans(server, "test");
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static final class Warner
+        implements Processor<MessageProvider, MessageProvider>
+    {
+        private final String name;
+
+        private Warner(final String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public MessageProvider process(final ProcessingReport report,
+            final MessageProvider input)
+            throws ProcessingException
+        {
+            report.warn(new ProcessingMessage().setMessage(name));
+            return input;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+}
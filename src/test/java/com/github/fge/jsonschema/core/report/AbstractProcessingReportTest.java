@@ -20,6 +20,7 @@
 package com.github.fge.jsonschema.core.report;
 
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -132,6 +133,49 @@ public final class AbstractProcessingReportTest
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void errorsAreAlwaysEnabled()
+    {
+        final CooperativeProcessingReport report
+            = new LogThreshold(LogLevel.NONE);
+
+        assertFalse(report.isEnabled(LogLevel.DEBUG));
+        assertFalse(report.isEnabled(LogLevel.WARNING));
+        assertTrue(report.isEnabled(LogLevel.ERROR));
+        assertTrue(report.isEnabled(LogLevel.FATAL));
+    }
+
+    @Test
+    public void exceptionThresholdEnablesLevel()
+    {
+        final CooperativeProcessingReport report
+            = new LogThreshold(LogLevel.NONE, LogLevel.INFO);
+
+        assertFalse(report.isEnabled(LogLevel.DEBUG));
+        assertTrue(report.isEnabled(LogLevel.INFO));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void suppliersAreNotCalledForDisabledLevels()
+        throws ProcessingException
+    {
+        final AbstractProcessingReport report
+            = spy(new LogThreshold(LogLevel.ERROR));
+        final Supplier<ProcessingMessage> supplier = mock(Supplier.class);
+        when(supplier.get()).thenReturn(new ProcessingMessage());
+
+        report.debug(supplier);
+        report.info(supplier);
+        report.warn(supplier);
+        verify(supplier, never()).get();
+
+        report.error(supplier);
+        verify(supplier, times(1)).get();
+        verify(report).log(same(LogLevel.ERROR), any(ProcessingMessage.class));
+        assertFalse(report.isSuccess());
+    }
+
     private static class LogThreshold
         extends AbstractProcessingReport
     {
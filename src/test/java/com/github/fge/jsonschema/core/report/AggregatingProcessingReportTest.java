@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.util.AsJson;
+import com.google.common.collect.Iterators;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public final class AggregatingProcessingReportTest
+{
+    @Test
+    public void identicalMessagesAreGrouped()
+        throws ProcessingException
+    {
+        final AggregatingProcessingReport report
+            = new AggregatingProcessingReport(LogLevel.DEBUG, LogLevel.NONE, 2);
+
+        for (int i = 0; i < 10; i++)
+            report.error(newMsg("type", "found %s").putArgument("found", 1)
+                .put("index", i));
+        report.error(newMsg("type", "other %s").putArgument("found", 2));
+        report.warn(newMsg("type", "found %s").putArgument("found", 1));
+        report.error(newMsg("format", "found %s").putArgument("found", 1));
+
+        assertEquals(report.getGroupCount(), 4);
+        assertEquals(Iterators.size(report.iterator()), 5);
+        assertFalse(report.isSuccess());
+
+        final JsonNode node = report.asJson();
+        final JsonNode first = node.get(0);
+        assertEquals(first.get("level").textValue(), "error");
+        assertEquals(first.get("domain").textValue(), "syntax");
+        assertEquals(first.get("keyword").textValue(), "type");
+        assertEquals(first.get("message").textValue(), "found %s");
+        assertEquals(first.get("count").longValue(), 10L);
+        assertEquals(first.get("samples").size(), 2);
+        assertEquals(first.get("samples").get(1).get("index").intValue(), 1);
+        assertEquals(node.get(1).get("count").longValue(), 1L);
+    }
+
+    @Test
+    public void messagesAreGroupedWithoutBeingBuilt()
+        throws ProcessingException
+    {
+        final AggregatingProcessingReport report
+            = new AggregatingProcessingReport(LogLevel.DEBUG, LogLevel.NONE, 0);
+        final AtomicInteger built = new AtomicInteger();
+        final AsJson argument = new AsJson()
+        {
+            @Override
+            public JsonNode asJson()
+            {
+                built.incrementAndGet();
+                return JacksonUtils.nodeFactory().textNode("foo");
+            }
+        };
+
+        report.error(newMsg("type", "found %s").putArgument("found", 1));
+        report.error(newMsg("type", "found %s")
+            .putArgument("found", argument));
+
+        assertEquals(report.getGroupCount(), 1);
+        assertEquals(report.asJson().get(0).get("count").longValue(), 2L);
+        assertEquals(built.get(), 0);
+    }
+
+    @Test
+    public void missingDomainAndKeywordAreOmitted()
+        throws ProcessingException
+    {
+        final AggregatingProcessingReport report
+            = new AggregatingProcessingReport(LogLevel.DEBUG, LogLevel.NONE, 0);
+
+        report.info(new ProcessingMessage().setMessage("foo"));
+        report.info(new ProcessingMessage().setMessage("foo"));
+
+        final JsonNode group = report.asJson().get(0);
+        assertFalse(group.has("domain"));
+        assertFalse(group.has("keyword"));
+        assertEquals(group.get("count").longValue(), 2L);
+        assertFalse(report.iterator().hasNext());
+    }
+
+    private static ProcessingMessage newMsg(final String keyword,
+        final String message)
+    {
+        return ProcessingMessage.newLazyMessage().put("domain", "syntax")
+            .put("keyword", keyword).setMessage(message);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.testng.Assert.*;
+
+public final class AsyncProcessingReportTest
+{
+    @Test
+    public void allMessagesAreWrittenOnClose()
+        throws InterruptedException, IOException
+    {
+        final CollectingSink sink = new CollectingSink(null);
+        final AsyncProcessingReport report = new AsyncProcessingReport(sink,
+            4, AsyncProcessingReport.OverflowPolicy.BLOCK, LogLevel.DEBUG);
+        final int nrThreads = 4;
+        final int nrMessages = 1000;
+        final Thread[] threads = new Thread[nrThreads];
+
+        for (int i = 0; i < nrThreads; i++) {
+            final int thread = i;
+            threads[i] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        for (int j = 0; j < nrMessages; j++)
+                            report.info(new ProcessingMessage()
+                                .put("thread", thread).put("index", j));
+                    } catch (ProcessingException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread: threads)
+            thread.join();
+        report.close();
+
+        assertEquals(sink.messages.size(), nrThreads * nrMessages);
+        assertEquals(report.getDroppedCount(), 0L);
+        assertTrue(sink.closed);
+
+        final int[] next = new int[nrThreads];
+        int thread;
+        for (final ProcessingMessage message: sink.messages) {
+            thread = message.asJson().get("thread").intValue();
+            assertEquals(message.asJson().get("index").intValue(),
+                next[thread]++);
+        }
+    }
+
+    @Test(timeOut = 10000L)
+    public void messagesLoggedWhileClosingAreWrittenOrDropped()
+        throws InterruptedException, IOException
+    {
+        final int nrThreads = 4;
+        final int nrMessages = 2000;
+        final Thread[] threads = new Thread[nrThreads];
+        CollectingSink sink;
+        AsyncProcessingReport report;
+
+        for (int round = 0; round < 20; round++) {
+            sink = new CollectingSink(null);
+            report = new AsyncProcessingReport(sink, 4,
+                AsyncProcessingReport.OverflowPolicy.BLOCK, LogLevel.DEBUG);
+            for (int i = 0; i < nrThreads; i++) {
+                threads[i] = new Thread(new Logger(report, nrMessages));
+                threads[i].start();
+            }
+            report.close();
+            for (final Thread thread: threads)
+                thread.join();
+
+            assertEquals(sink.messages.size() + report.getDroppedCount(),
+                (long) nrThreads * nrMessages);
+        }
+    }
+
+    @Test
+    public void overflowingMessagesAreDroppedWithDropPolicy()
+        throws ProcessingException, IOException
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CollectingSink sink = new CollectingSink(latch);
+        final AsyncProcessingReport report = new AsyncProcessingReport(sink,
+            2, AsyncProcessingReport.OverflowPolicy.DROP, LogLevel.DEBUG);
+
+        for (int i = 0; i < 10; i++)
+            report.info(new ProcessingMessage());
+        latch.countDown();
+        report.close();
+
+        assertTrue(report.getDroppedCount() > 0L);
+        assertEquals(sink.messages.size() + report.getDroppedCount(), 10L);
+    }
+
+    @Test
+    public void flushWaitsForMessagesToBeWritten()
+        throws ProcessingException, IOException
+    {
+        final StringWriter writer = new StringWriter();
+        final AsyncProcessingReport report
+            = new AsyncProcessingReport(MessageSinks.jsonLines(writer));
+
+        report.info(new ProcessingMessage().setMessage("foo"));
+        report.warn(new ProcessingMessage().setMessage("bar"));
+        report.flush();
+
+        assertEquals(writer.toString().split("\n").length, 2);
+        report.close();
+    }
+
+    @Test(timeOut = 5000L)
+    public void blockedLoggersResumeWhenRoomIsMade()
+        throws InterruptedException, IOException
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CollectingSink sink = new CollectingSink(latch);
+        final AsyncProcessingReport report = new AsyncProcessingReport(sink,
+            1, AsyncProcessingReport.OverflowPolicy.BLOCK, LogLevel.DEBUG);
+        final Thread logger = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    for (int i = 0; i < 3; i++)
+                        report.info(new ProcessingMessage());
+                } catch (ProcessingException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        logger.start();
+        while (logger.getState() != Thread.State.WAITING)
+            Thread.sleep(1L);
+        assertTrue(sink.messages.isEmpty());
+        latch.countDown();
+        logger.join();
+        report.close();
+
+        assertEquals(sink.messages.size(), 3);
+        assertEquals(report.getDroppedCount(), 0L);
+    }
+
+    @Test(timeOut = 5000L)
+    public void idleReportIsWokenUpByNewMessages()
+        throws InterruptedException, ProcessingException, IOException
+    {
+        final StringWriter writer = new StringWriter();
+        final AsyncProcessingReport report
+            = new AsyncProcessingReport(MessageSinks.jsonLines(writer));
+
+        report.info(new ProcessingMessage().setMessage("foo"));
+        report.flush();
+        Thread.sleep(50L);
+        report.info(new ProcessingMessage().setMessage("bar"));
+        report.flush();
+
+        assertEquals(writer.toString().split("\n").length, 2);
+        report.close();
+    }
+
+    @Test
+    public void sinkErrorsAreThrownOnClose()
+        throws ProcessingException
+    {
+        final IOException exception = new IOException();
+        final AsyncProcessingReport report
+            = new AsyncProcessingReport(new CollectingSink(null)
+        {
+            @Override
+            public void write(final LogLevel level,
+                final ProcessingMessage message)
+                throws IOException
+            {
+                throw exception;
+            }
+        });
+
+        report.error(new ProcessingMessage());
+        try {
+            report.close();
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertSame(e, exception);
+        }
+        assertFalse(report.isSuccess());
+    }
+
+    private static final class Logger
+        implements Runnable
+    {
+        private final ProcessingReport report;
+        private final int nrMessages;
+
+        private Logger(final ProcessingReport report, final int nrMessages)
+        {
+            this.report = report;
+            this.nrMessages = nrMessages;
+        }
+
+        @Override
+        public void run()
+        {
+            try {
+                for (int i = 0; i < nrMessages; i++)
+                    report.info(new ProcessingMessage());
+            } catch (ProcessingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static class CollectingSink
+        implements MessageSink
+    {
+        private final List<ProcessingMessage> messages
+            = Collections.synchronizedList(
+                Lists.<ProcessingMessage>newArrayList());
+        private final CountDownLatch latch;
+        private volatile boolean closed = false;
+
+        private CollectingSink(final CountDownLatch latch)
+        {
+            this.latch = latch;
+        }
+
+        @Override
+        public void write(final LogLevel level,
+            final ProcessingMessage message)
+            throws IOException
+        {
+            if (latch != null)
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            messages.add(message);
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class BoundedProcessingReportTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    @Test
+    public void maximumErrorsMustBeStrictlyPositive()
+    {
+        try {
+            new BoundedProcessingReport(new ListProcessingReport(), 0);
+            fail("No exception thrown!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("report.illegalMaxErrors"));
+        }
+    }
+
+    @Test
+    public void reportIsSaturatedAfterMaximumErrors()
+        throws ProcessingException
+    {
+        final ListProcessingReport delegate = new ListProcessingReport();
+        final BoundedProcessingReport report
+            = new BoundedProcessingReport(delegate, 2);
+
+        report.warn(new ProcessingMessage());
+        report.error(new ProcessingMessage());
+        assertFalse(report.isSaturated());
+        report.error(new ProcessingMessage());
+        assertTrue(report.isSaturated());
+        assertEquals(report.getErrorCount(), 2);
+        assertFalse(delegate.isSuccess());
+    }
+
+    @Test
+    public void mergedErrorsCount()
+        throws ProcessingException
+    {
+        final ListProcessingReport other = new ListProcessingReport();
+        other.error(new ProcessingMessage());
+        other.info(new ProcessingMessage());
+        final BoundedProcessingReport report
+            = new BoundedProcessingReport(new ListProcessingReport(), 1);
+
+        report.mergeWith(other);
+        assertTrue(report.isSaturated());
+    }
+
+    @Test
+    public void unsuccessfulReportWithoutMessagesCountsAsOneError()
+        throws ProcessingException
+    {
+        final ProcessingReport other = new ListProcessingReport(LogLevel.NONE);
+        other.error(new ProcessingMessage());
+        final BoundedProcessingReport report
+            = new BoundedProcessingReport(new ListProcessingReport(), 1);
+
+        report.mergeWith(other);
+        assertEquals(report.getErrorCount(), 1);
+    }
+}
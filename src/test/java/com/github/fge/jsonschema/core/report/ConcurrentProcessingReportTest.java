@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+public final class ConcurrentProcessingReportTest
+{
+    private static final int THREADS = 8;
+    private static final int MESSAGES = 5000;
+
+    @Test
+    public void messagesFromAllThreadsAreRetainedInPerThreadOrder()
+        throws Exception
+    {
+        final ConcurrentProcessingReport report
+            = new ConcurrentProcessingReport(LogLevel.DEBUG);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Future<Void>> futures = Lists.newArrayList();
+
+        try {
+            for (int i = 0; i < THREADS; i++)
+                futures.add(executor.submit(logMessages(report, latch, i)));
+            latch.countDown();
+            for (final Future<Void> future: futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        final Map<String, Integer> lastSeen = Maps.newHashMap();
+        String thread;
+        int index;
+        Integer last;
+
+        for (final ProcessingMessage message: report) {
+            thread = message.asJson().get("thread").textValue();
+            index = message.asJson().get("index").intValue();
+            last = lastSeen.put(thread, index);
+            assertEquals(index, last == null ? 0 : last + 1);
+        }
+
+        assertEquals(lastSeen.size(), THREADS);
+        for (final Integer i: lastSeen.values())
+            assertEquals(i.intValue(), MESSAGES - 1);
+        assertFalse(report.isSuccess());
+        assertEquals(report.asJson().size(), THREADS * MESSAGES);
+    }
+
+    @Test
+    public void iteratorsAreSnapshots()
+        throws ProcessingException
+    {
+        final ConcurrentProcessingReport report
+            = new ConcurrentProcessingReport();
+
+        report.info(new ProcessingMessage());
+        final Iterator<ProcessingMessage> iterator = report.iterator();
+        report.info(new ProcessingMessage());
+
+        assertEquals(Iterators.size(iterator), 1);
+        assertEquals(Iterators.size(report.iterator()), 2);
+        assertTrue(report.isSuccess());
+    }
+
+    private static Callable<Void> logMessages(
+        final ProcessingReport report, final CountDownLatch latch,
+        final int thread)
+    {
+        return new Callable<Void>()
+        {
+            @Override
+            public Void call()
+                throws Exception
+            {
+                latch.await();
+                final String name = "thread" + thread;
+                for (int i = 0; i < MESSAGES; i++) {
+                    final ProcessingMessage message = new ProcessingMessage()
+                        .put("thread", name).put("index", i);
+                    if (thread == 0 && i == MESSAGES / 2)
+                        report.error(message);
+                    else
+                        report.info(message);
+                }
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public final class ListProcessingReportTest
+{
+    @Test
+    public void mergedMessagesKeepTheirOrder()
+        throws ProcessingException
+    {
+        final ListProcessingReport report = new ListProcessingReport();
+        final ListProcessingReport other = new ListProcessingReport();
+        final ProcessingMessage m1 = new ProcessingMessage();
+        final ProcessingMessage m2 = new ProcessingMessage();
+        final ProcessingMessage m3 = new ProcessingMessage();
+        final ProcessingMessage m4 = new ProcessingMessage();
+
+        report.info(m1);
+        other.info(m2);
+        other.warn(m3);
+        report.mergeWith(other);
+        report.info(m4);
+
+        assertEquals(Lists.newArrayList(report),
+            Arrays.asList(m1, m2, m3, m4));
+        assertTrue(report.isSuccess());
+    }
+
+    @Test
+    public void messagesLoggedAfterMergeDoNotShowUpInTarget()
+        throws ProcessingException
+    {
+        final ListProcessingReport report = new ListProcessingReport();
+        final ListProcessingReport other = new ListProcessingReport();
+        final ProcessingMessage m1 = new ProcessingMessage();
+        final ProcessingMessage m2 = new ProcessingMessage();
+
+        for (int i = 0; i < 7; i++)
+            other.info(m1);
+        report.mergeWith(other);
+        for (int i = 0; i < 10; i++)
+            other.info(m2);
+
+        assertEquals(Lists.newArrayList(report).size(), 7);
+        assertEquals(Lists.newArrayList(other).size(), 17);
+    }
+
+    @Test
+    public void mergedMessagesAreFilteredByLogLevel()
+        throws ProcessingException
+    {
+        final ListProcessingReport report
+            = new ListProcessingReport(LogLevel.WARNING);
+        final ListProcessingReport other
+            = new ListProcessingReport(LogLevel.DEBUG);
+        final ProcessingMessage error = new ProcessingMessage();
+
+        other.debug(new ProcessingMessage());
+        other.error(error);
+        other.info(new ProcessingMessage());
+        report.mergeWith(other);
+
+        final List<ProcessingMessage> list = Lists.newArrayList(report);
+        assertEquals(list, Arrays.asList(error));
+        assertFalse(report.isSuccess());
+        assertEquals(report.asJson().size(), 1);
+    }
+
+    @Test
+    public void messagesHiddenByMergedReportsStayHidden()
+        throws ProcessingException
+    {
+        final ListProcessingReport debug
+            = new ListProcessingReport(LogLevel.DEBUG);
+        final ListProcessingReport error
+            = new ListProcessingReport(LogLevel.ERROR);
+        final ListProcessingReport report
+            = new ListProcessingReport(LogLevel.DEBUG);
+        final ProcessingMessage warning = new ProcessingMessage();
+
+        debug.debug(new ProcessingMessage());
+        error.mergeWith(debug);
+        assertEquals(Lists.newArrayList(error).size(), 0);
+
+        report.mergeWith(error);
+        assertEquals(Lists.newArrayList(report).size(), 0);
+        assertTrue(report.isSuccess());
+
+        report.warn(warning);
+        final ListProcessingReport top
+            = new ListProcessingReport(LogLevel.DEBUG);
+        top.mergeWith(report);
+        assertEquals(Lists.newArrayList(top), Arrays.asList(warning));
+    }
+
+    @Test
+    public void hiddenMessagesDoNotReachExceptionThreshold()
+        throws ProcessingException
+    {
+        final ListProcessingReport debug
+            = new ListProcessingReport(LogLevel.DEBUG);
+        final ListProcessingReport fatal
+            = new ListProcessingReport(LogLevel.FATAL);
+        final ListProcessingReport report
+            = new ListProcessingReport(LogLevel.DEBUG, LogLevel.ERROR);
+
+        debug.error(new ProcessingMessage());
+        fatal.mergeWith(debug);
+        report.mergeWith(fatal);
+
+        assertEquals(Lists.newArrayList(report).size(), 0);
+    }
+
+    @Test
+    public void exceptionThresholdIsHonoredOnMerge()
+        throws ProcessingException
+    {
+        final ListProcessingReport report
+            = new ListProcessingReport(LogLevel.DEBUG, LogLevel.ERROR);
+        final ListProcessingReport other = new ListProcessingReport();
+        final ProcessingMessage warning = new ProcessingMessage();
+
+        other.warn(warning);
+        other.error(new ProcessingMessage().setMessage("foo"));
+
+        try {
+            report.mergeWith(other);
+            fail("No exception thrown!");
+        } catch (ProcessingException e) {
+            assertEquals(e.getProcessingMessage().getMessage(), "foo");
+        }
+        assertEquals(Lists.newArrayList(report), Arrays.asList(warning));
+    }
+
+    @Test
+    public void deeplyNestedMergesWork()
+        throws ProcessingException
+    {
+        ListProcessingReport report = new ListProcessingReport();
+        ListProcessingReport parent;
+        final int depth = 10000;
+
+        report.info(new ProcessingMessage());
+        for (int i = 1; i < depth; i++) {
+            parent = new ListProcessingReport();
+            parent.info(new ProcessingMessage());
+            parent.mergeWith(report);
+            report = parent;
+        }
+
+        assertEquals(Lists.newArrayList(report).size(), depth);
+    }
+}
@@ -27,6 +27,7 @@ import com.github.fge.jackson.JacksonUtils;
 import com.github.fge.jsonschema.core.exceptions.ExceptionProvider;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.jsonschema.core.util.AsJson;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.collect.Lists;
@@ -37,6 +38,7 @@ import java.util.Collection;
 import java.util.List;
 
 import static com.github.fge.jsonschema.matchers.ProcessingMessageAssert.*;
+import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
 public final class ProcessingMessageTest
@@ -262,6 +264,85 @@ public final class ProcessingMessageTest
         assertEquals(message.getMessage(), "message2: bar");
     }
 
+    @Test
+    public void lazyMessageFormatsArgumentsOnRead()
+    {
+        final ProcessingMessage message = ProcessingMessage.newLazyMessage()
+            .setMessage("Hello %s!").putArgument("greeted", "world");
+
+        assertTrue(message.isLazy());
+        assertEquals(message.getMessage(), "Hello world!");
+    }
+
+    @Test
+    public void lazyMessageDoesNotConvertValuesUntilRead()
+    {
+        final AsJson asJson = mock(AsJson.class);
+        when(asJson.asJson()).thenReturn(FACTORY.textNode("foo"));
+
+        final ProcessingMessage message = ProcessingMessage.newLazyMessage()
+            .put("foo", asJson);
+
+        verify(asJson, never()).asJson();
+        assertEquals(message.asJson().get("foo"), FACTORY.textNode("foo"));
+        verify(asJson, times(1)).asJson();
+    }
+
+    @Test
+    public void lazyAndEagerMessagesProduceTheSameJson()
+    {
+        final ObjectNode node = FACTORY.objectNode();
+        node.put("a", 1);
+        final List<Integer> list = Arrays.asList(1, 2);
+
+        final ProcessingMessage eager = new ProcessingMessage()
+            .setMessage("%s and %s").put("node", node).put("list", list)
+            .putArgument("arg1", "foo").putArgument("arg2", node);
+        final ProcessingMessage lazy = ProcessingMessage.newLazyMessage()
+            .setMessage("%s and %s").put("node", node).put("list", list)
+            .putArgument("arg1", "foo").putArgument("arg2", node);
+
+        assertEquals(lazy.asJson(), eager.asJson());
+        assertEquals(lazy.getMessage(), eager.getMessage());
+    }
+
+    @Test
+    public void keysAppearInInsertionOrder()
+    {
+        final ProcessingMessage message = new ProcessingMessage()
+            .put("foo", "bar").put("keyword", "k").put("domain", "d")
+            .setMessage("m").put("keyword", "k2");
+        final List<String> expected
+            = Arrays.asList("level", "foo", "keyword", "domain", "message");
+
+        assertEquals(Lists.newArrayList(message.asJson().fieldNames()),
+            expected);
+    }
+
+    @Test
+    public void insertionOrderIsPreservedWithManyKeys()
+    {
+        final ProcessingMessage message = new ProcessingMessage();
+        final List<String> expected = Lists.newArrayList("level");
+
+        String key;
+        for (int i = 0; i < 40; i++) {
+            key = "key" + i;
+            message.put(key, i);
+            expected.add(key);
+            if (i == 10 || i == 30) {
+                key = i == 10 ? "schema" : "message";
+                message.put(key, "foo");
+                expected.add(key);
+            }
+        }
+
+        final JsonNode node = message.asJson();
+        assertEquals(Lists.newArrayList(node.fieldNames()), expected);
+        assertEquals(node.get("key39").intValue(), 39);
+        assertEquals(message.getMessage(), "foo");
+    }
+
     private static final class Foo
         extends ProcessingException
     {
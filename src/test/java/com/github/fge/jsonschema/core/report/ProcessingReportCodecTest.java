@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public final class ProcessingReportCodecTest
+{
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    @DataProvider
+    public Iterator<Object[]> codecs()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+        list.add(new Object[] { ProcessingReportCodec.smile() });
+        list.add(new Object[] { ProcessingReportCodec.json() });
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "codecs")
+    public void messagesAreDecodedIdentically(final ProcessingReportCodec codec)
+        throws IOException
+    {
+        final ProcessingMessage message = new ProcessingMessage()
+            .setLogLevel(LogLevel.WARNING).put("domain", "validation")
+            .setMessage("hello %s").putArgument("who", "world")
+            .put("node", FACTORY.objectNode().put("a", 1).putNull("b"))
+            .put("list", Arrays.asList("c", "d")).put("nothing", (String) null)
+            .put("decimal", FACTORY.numberNode(new BigDecimal("1.10")));
+
+        final ProcessingMessage decoded
+            = codec.decodeMessage(codec.encode(message));
+
+        assertEquals(decoded.getLogLevel(), LogLevel.WARNING);
+        assertEquals(decoded.getMessage(), "hello world");
+        assertEquals(decoded.asJson(), message.asJson());
+        assertEquals(decoded.toString(), message.toString());
+    }
+
+    @Test(dataProvider = "codecs")
+    public void reportsAreDecodedIdentically(final ProcessingReportCodec codec)
+        throws IOException, ProcessingException
+    {
+        final ProcessingReport report
+            = new ListProcessingReport(LogLevel.INFO, LogLevel.FATAL);
+        report.debug(new ProcessingMessage().setMessage("hidden"));
+        report.info(new ProcessingMessage().setMessage("info"));
+        report.error(new ProcessingMessage().setMessage("error")
+            .put("keyword", "type"));
+
+        final ListProcessingReport decoded
+            = codec.decodeReport(codec.encode(report));
+
+        assertEquals(decoded.getLogLevel(), LogLevel.INFO);
+        assertEquals(decoded.getExceptionThreshold(), LogLevel.FATAL);
+        assertFalse(decoded.isSuccess());
+
+        final List<ProcessingMessage> expected = Lists.newArrayList(report);
+        final List<ProcessingMessage> actual = Lists.newArrayList(decoded);
+        assertEquals(actual.size(), 2);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(actual.get(i).getLogLevel(),
+                expected.get(i).getLogLevel());
+            assertEquals(actual.get(i).asJson(), expected.get(i).asJson());
+        }
+    }
+
+    @Test(dataProvider = "codecs")
+    public void failureWithoutMessagesIsPreserved(
+        final ProcessingReportCodec codec)
+        throws IOException, ProcessingException
+    {
+        final ProcessingReport report = new ListProcessingReport(LogLevel.NONE);
+        report.error(new ProcessingMessage());
+
+        final ProcessingReport decoded
+            = codec.decodeReport(codec.encode(report));
+
+        assertFalse(decoded.isSuccess());
+        assertFalse(decoded.iterator().hasNext());
+    }
+
+    @Test
+    public void smileOutputIsSmallerThanJson()
+        throws ProcessingException
+    {
+        final ProcessingReport report = new ListProcessingReport();
+        for (int i = 0; i < 50; i++)
+            report.error(new ProcessingMessage().put("domain", "validation")
+                .put("keyword", "type").setMessage("instance type not allowed")
+                .put("index", i));
+
+        final int json = ProcessingReportCodec.json().encode(report).length;
+        final int smile = ProcessingReportCodec.smile().encode(report).length;
+        assertTrue(smile < json / 2, "Smile: " + smile + ", JSON: " + json);
+    }
+
+    @Test(dataProvider = "codecs")
+    public void invalidInputIsRejected(final ProcessingReportCodec codec)
+        throws ProcessingException
+    {
+        final byte[] message = codec.encode(new ProcessingMessage());
+        try {
+            codec.decodeReport(message);
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertEquals(e.getMessage().split("\n")[0],
+                "invalid encoded report or message");
+        }
+    }
+}
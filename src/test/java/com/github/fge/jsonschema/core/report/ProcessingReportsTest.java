@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.google.common.collect.Iterables;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class ProcessingReportsTest
+{
+    @Test
+    public void levelsAreEnabledForAnyReport()
+    {
+        final ProcessingReport report = mock(ProcessingReport.class);
+        when(report.getLogLevel()).thenReturn(LogLevel.NONE);
+        when(report.getExceptionThreshold()).thenReturn(LogLevel.INFO);
+
+        assertFalse(ProcessingReports.isEnabled(report, LogLevel.DEBUG));
+        assertTrue(ProcessingReports.isEnabled(report, LogLevel.INFO));
+        assertTrue(ProcessingReports.isEnabled(report, LogLevel.ERROR));
+    }
+
+    @Test
+    public void cooperativeReportsAreAskedWhetherLevelsAreEnabled()
+    {
+        final CooperativeProcessingReport report
+            = mock(CooperativeProcessingReport.class);
+        when(report.getLogLevel()).thenReturn(LogLevel.DEBUG);
+        when(report.getExceptionThreshold()).thenReturn(LogLevel.NONE);
+        when(report.isEnabled(LogLevel.INFO)).thenReturn(false);
+
+        assertFalse(ProcessingReports.isEnabled(report, LogLevel.INFO));
+        verify(report).isEnabled(LogLevel.INFO);
+    }
+
+    @Test
+    public void listReportsAreSizedByTheirVisibleMessages()
+        throws ProcessingException
+    {
+        final ListProcessingReport debug
+            = new ListProcessingReport(LogLevel.DEBUG);
+        final ListProcessingReport warning
+            = new ListProcessingReport(LogLevel.WARNING);
+        final ListProcessingReport report
+            = new ListProcessingReport(LogLevel.DEBUG);
+
+        debug.debug(new ProcessingMessage());
+        debug.info(new ProcessingMessage());
+        assertEquals(ProcessingReports.size(debug), 2);
+
+        warning.mergeWith(debug);
+        warning.warn(new ProcessingMessage());
+        assertEquals(ProcessingReports.size(warning), 1);
+
+        report.info(new ProcessingMessage());
+        report.mergeWith(warning);
+        assertEquals(ProcessingReports.size(report), 2);
+        assertEquals(ProcessingReports.size(report), Iterables.size(report));
+    }
+
+    @Test
+    public void onlyCooperativeReportsCanBeSaturated()
+        throws ProcessingException
+    {
+        assertFalse(ProcessingReports.isSaturated(
+            mock(ProcessingReport.class)));
+
+        final ProcessingReport bounded
+            = new BoundedProcessingReport(new ListProcessingReport(), 1);
+        assertFalse(ProcessingReports.isSaturated(bounded));
+        bounded.error(new ProcessingMessage());
+        assertTrue(ProcessingReports.isSaturated(bounded));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.util.AsJson;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public final class StreamingProcessingReportTest
+{
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    @Test
+    public void messagesAreWrittenAsJsonLines()
+        throws ProcessingException, IOException
+    {
+        final StringWriter writer = new StringWriter();
+        final StreamingProcessingReport report
+            = new StreamingProcessingReport(writer, LogLevel.DEBUG);
+        final ProcessingMessage msg1 = new ProcessingMessage()
+            .setMessage("hello %s").putArgument("who", "world")
+            .put("node", FACTORY.objectNode().put("a", 1));
+        final ProcessingMessage msg2 = new ProcessingMessage()
+            .put("list", Arrays.asList("b", "c"));
+
+        report.warn(msg1);
+        report.error(msg2);
+        report.close();
+
+        final BufferedReader reader
+            = new BufferedReader(new StringReader(writer.toString()));
+        assertEquals(readLine(reader), msg1.asJson());
+        assertEquals(readLine(reader), msg2.asJson());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    public void lazyMessagesAreWrittenLikeEagerOnes()
+        throws ProcessingException, IOException
+    {
+        final AsJson asJson = mock(AsJson.class);
+        when(asJson.asJson()).thenReturn(FACTORY.arrayNode().add(true));
+        final StringWriter writer = new StringWriter();
+        final StreamingProcessingReport report
+            = new StreamingProcessingReport(writer);
+        final ProcessingMessage message = ProcessingMessage.newLazyMessage()
+            .setMessage("foo").put("x", asJson);
+
+        report.info(message);
+        report.flush();
+
+        final JsonNode expected = new ProcessingMessage().setMessage("foo")
+            .put("x", asJson).setLogLevel(LogLevel.INFO).asJson();
+        assertEquals(JacksonUtils.getReader().readTree(writer.toString()),
+            expected);
+    }
+
+    @Test
+    public void messagesBelowLogLevelAreNotWrittenButOthersAreCounted()
+        throws ProcessingException, IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final StreamingProcessingReport report
+            = new StreamingProcessingReport(out, LogLevel.ERROR);
+
+        report.info(new ProcessingMessage());
+        report.error(new ProcessingMessage());
+        report.error(new ProcessingMessage());
+        report.close();
+
+        assertEquals(report.getCount(LogLevel.INFO), 0L);
+        assertEquals(report.getCount(LogLevel.ERROR), 2L);
+        assertEquals(out.toString("UTF-8").split("\n").length, 2);
+        assertFalse(report.iterator().hasNext());
+        assertFalse(report.isSuccess());
+    }
+
+    @Test
+    public void ioErrorsAreThrownOnFlush()
+        throws ProcessingException, IOException
+    {
+        final IOException exception = new IOException();
+        final Writer writer = new Writer()
+        {
+            @Override
+            public void write(final char[] cbuf, final int off, final int len)
+                throws IOException
+            {
+                throw exception;
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        final StreamingProcessingReport report
+            = new StreamingProcessingReport(writer);
+
+        report.error(new ProcessingMessage());
+        report.error(new ProcessingMessage());
+        assertEquals(report.getCount(LogLevel.ERROR), 2L);
+
+        try {
+            report.flush();
+            fail("No exception thrown!");
+        } catch (IOException e) {
+            assertSame(e, exception);
+        }
+    }
+
+    private static JsonNode readLine(final BufferedReader reader)
+        throws IOException
+    {
+        return JacksonUtils.getReader().readTree(reader.readLine());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonschema.core.util;
+
+import com.github.fge.jsonschema.core.messages.JsonSchemaCoreMessageBundle;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public final class CacheConfigurationBuilderTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonSchemaCoreMessageBundle.class);
+
+    private CacheConfigurationBuilder builder;
+
+    @BeforeMethod
+    public void createBuilder()
+    {
+        builder = CacheConfiguration.newBuilder();
+    }
+
+    @Test
+    public void defaultConfigurationIsUnbounded()
+    {
+        final CacheConfiguration cfg = builder.freeze();
+
+        assertTrue(cfg.getMaximumSize() < 0L);
+        assertTrue(cfg.getMaximumWeight() < 0L);
+        assertTrue(cfg.getExpireAfterAccess(TimeUnit.SECONDS) < 0L);
+        assertTrue(cfg.getExpireAfterWrite(TimeUnit.SECONDS) < 0L);
+        assertTrue(cfg.getRefreshAfterWrite(TimeUnit.SECONDS) < 0L);
+        assertFalse(cfg.getSoftValues());
+        assertTrue(cfg.getRecordStats());
+    }
+
+    @Test
+    public void cannotSetNegativeSize()
+    {
+        try {
+            builder.setMaximumSize(-1L);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("cacheCfg.negativeSize"));
+        }
+    }
+
+    @Test
+    public void cannotBoundBySizeAndWeight()
+    {
+        builder.setMaximumSize(10L);
+        try {
+            builder.setMaximumWeight(10L);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("cacheCfg.sizeAndWeight"));
+        }
+    }
+
+    @Test
+    public void cannotSetNullTimeUnit()
+    {
+        try {
+            builder.setExpireAfterAccess(1L, null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("cacheCfg.nullTimeUnit"));
+        }
+    }
+
+    @Test
+    public void cannotSetZeroRefreshDelay()
+    {
+        try {
+            builder.setRefreshAfterWrite(0L, TimeUnit.SECONDS);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("cacheCfg.illegalRefreshDelay"));
+        }
+    }
+
+    @Test
+    public void thawedConfigurationRetainsSettings()
+    {
+        final CacheConfiguration cfg = builder.setMaximumWeight(20L)
+            .setExpireAfterAccess(2L, TimeUnit.MINUTES).setSoftValues(true)
+            .setExpireAfterWrite(1L, TimeUnit.HOURS)
+            .setRefreshAfterWrite(30L, TimeUnit.MINUTES)
+            .freeze().thaw().freeze();
+
+        assertEquals(cfg.getMaximumWeight(), 20L);
+        assertEquals(cfg.getExpireAfterAccess(TimeUnit.SECONDS), 120L);
+        assertTrue(cfg.getSoftValues());
+        assertEquals(cfg.getExpireAfterWrite(TimeUnit.MINUTES), 60L);
+        assertEquals(cfg.getRefreshAfterWrite(TimeUnit.MINUTES), 30L);
+    }
+}